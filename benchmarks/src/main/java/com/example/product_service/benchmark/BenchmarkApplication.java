@@ -0,0 +1,46 @@
+package com.example.product_service.benchmark;
+
+import com.example.product_service.ProductServiceApplication;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Starts the service without its web layer on the {@code local} profile, that is a JDBC catalog
+ * over a local-filesystem warehouse. Each named warehouse lives under {@code benchmark.dir}
+ * (default {@code target/benchmark-data}) and is kept between runs, so a large seed is paid once.
+ */
+final class BenchmarkApplication {
+
+    private static final Path DATA_DIR = Path.of(System.getProperty("benchmark.dir", "target/benchmark-data"));
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(String name, Map<String, Object> overrides) {
+        Path root = DATA_DIR.resolve(name).toAbsolutePath();
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("iceberg.catalog.warehouse", "file://" + root.resolve("warehouse"));
+        properties.put("iceberg.catalog.jdbc.uri", "jdbc:h2:file:" + root.resolve("catalog") + ";DATABASE_TO_UPPER=FALSE");
+        properties.put("iceberg.file-cache.disk-dir", root.resolve("file-cache").toString());
+        properties.put("iceberg.maintenance.enabled", false);
+        properties.put("product.cache.enabled", false);
+        properties.put("logging.level.root", "WARN");
+        properties.putAll(overrides);
+
+        // Command-line arguments, unlike default properties, take precedence over the profile.
+        String[] args = properties.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new);
+        return new SpringApplicationBuilder(ProductServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .profiles("local")
+                .run(args);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.product_service.benchmark;
+
+import org.apache.iceberg.DataFile;
+import org.apache.iceberg.DataFiles;
+import org.apache.iceberg.FileFormat;
+import org.apache.iceberg.PartitionSpec;
+import org.apache.iceberg.Schema;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.TableProperties;
+import org.apache.iceberg.catalog.Catalog;
+import org.apache.iceberg.catalog.TableIdentifier;
+import org.apache.iceberg.exceptions.CommitFailedException;
+import org.apache.iceberg.types.Types;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Commit latency of each catalog type with several writers appending to one table, each through
+ * its own {@link Table} instance as separate service replicas would. Iceberg's own retries are
+ * turned off so every lost compare-and-swap shows up in the {@code conflicts} counter. The
+ * appended files are metadata only; nothing is written to them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.nio=ALL-UNNAMED")
+public class CatalogCommitBenchmark {
+
+    private static final TableIdentifier TABLE = TableIdentifier.of("iceberg_catalog", "commit_benchmark");
+    private static final Schema SCHEMA = new Schema(Types.NestedField.required(1, "id", Types.LongType.get()));
+
+    @Param({"hadoop", "jdbc"})
+    public String catalogType;
+
+    private ConfigurableApplicationContext context;
+    private Catalog catalog;
+    private Table table;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("catalog-" + catalogType, Map.of("iceberg.catalog.type", catalogType));
+        catalog = context.getBean(Catalog.class);
+        catalog.dropTable(TABLE, true);
+        table = catalog.buildTable(TABLE, SCHEMA)
+                .withPartitionSpec(PartitionSpec.unpartitioned())
+                .withProperty(TableProperties.COMMIT_NUM_RETRIES, "0")
+                .create();
+    }
+
+    /**
+     * Keeps the metadata file from growing with every snapshot of the previous iterations.
+     */
+    @Setup(Level.Iteration)
+    public void expireSnapshots() {
+        table.refresh();
+        if (table.currentSnapshot() != null) {
+            table.expireSnapshots()
+                    .expireOlderThan(System.currentTimeMillis())
+                    .retainLast(1)
+                    .cleanExpiredFiles(false)
+                    .commit();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        catalog.dropTable(TABLE, true);
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Writer {
+
+        Table table;
+
+        @Setup(Level.Trial)
+        public void setUp(CatalogCommitBenchmark benchmark) {
+            table = benchmark.catalog.loadTable(TABLE);
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Conflicts {
+
+        public long conflicts;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            conflicts = 0;
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void append(Writer writer, Conflicts conflicts) {
+        DataFile file = DataFiles.builder(PartitionSpec.unpartitioned())
+                .withPath(writer.table.location() + "/data/" + UUID.randomUUID() + ".parquet")
+                .withFormat(FileFormat.PARQUET)
+                .withFileSizeInBytes(1024)
+                .withRecordCount(1)
+                .build();
+        while (true) {
+            try {
+                writer.table.newAppend().appendFile(file).commit();
+                return;
+            } catch (CommitFailedException e) {
+                conflicts.conflicts++;
+                writer.table.refresh();
+            }
+        }
+    }
+}
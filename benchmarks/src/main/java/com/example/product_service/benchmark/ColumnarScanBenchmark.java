@@ -0,0 +1,71 @@
+package com.example.product_service.benchmark;
+
+import org.apache.iceberg.Schema;
+import org.apache.iceberg.arrow.vectorized.ColumnVector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Row-based scan against the vectorized Arrow reader over the same two columns, summing price
+ * and amount of every product. {@link ProductRepositoryBenchmark#findAll} is the full-row baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.nio=ALL-UNNAMED")
+public class ColumnarScanBenchmark {
+
+    private static final List<String> COLUMNS = List.of("price", "amount");
+
+    private Schema projection;
+    private int pricePosition;
+    private int amountPosition;
+
+    /**
+     * Batch columns follow the projection, which keeps the table's column order.
+     */
+    @Setup(Level.Trial)
+    public void setUp(ProductWarehouse warehouse) {
+        projection = warehouse.table.schema().select(COLUMNS);
+        pricePosition = projection.columns().indexOf(projection.findField("price"));
+        amountPosition = projection.columns().indexOf(projection.findField("amount"));
+    }
+
+    @Benchmark
+    public double rowScan(ProductWarehouse warehouse) {
+        double[] total = new double[1];
+        warehouse.repository.scan(null, 0, COLUMNS, record ->
+                total[0] += (Double) record.getField("price") + (Long) record.getField("amount"));
+        return total[0];
+    }
+
+    @Benchmark
+    public double batchScan(ProductWarehouse warehouse) {
+        double[] total = new double[1];
+        boolean read = warehouse.batchReader.read(warehouse.seedSnapshotId, projection, batch -> {
+            ColumnVector prices = batch.column(pricePosition);
+            ColumnVector amounts = batch.column(amountPosition);
+            for (int row = 0; row < batch.numRows(); row++) {
+                total[0] += prices.getDouble(row) + amounts.getLong(row);
+            }
+        });
+        if (!read) {
+            throw new IllegalStateException("Seeded snapshot has delete files");
+        }
+        return total[0];
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.product_service.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A burst of concurrent point lookups, the way request threads would issue them. Platform mode
+ * runs them on a pool the size of Tomcat's default, virtual mode on a thread per lookup; in both
+ * the service's read permits bound the I/O actually in flight.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.nio=ALL-UNNAMED")
+public class ConcurrentLookupBenchmark {
+
+    private static final int PLATFORM_THREADS = 200;
+
+    @Param("1000")
+    public int concurrency;
+
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setUp(ThreadModeWarehouse warehouse) {
+        executor = warehouse.virtualThreads
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(PLATFORM_THREADS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public int findById(ThreadModeWarehouse warehouse) throws InterruptedException, ExecutionException {
+        List<Future<Boolean>> lookups = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            lookups.add(executor.submit(() -> warehouse.repository.findById(warehouse.randomId()).isPresent()));
+        }
+        int found = 0;
+        for (Future<Boolean> lookup : lookups) {
+            if (lookup.get()) {
+                found++;
+            }
+        }
+        return found;
+    }
+}
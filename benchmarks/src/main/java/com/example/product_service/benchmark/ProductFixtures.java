@@ -0,0 +1,36 @@
+package com.example.product_service.benchmark;
+
+import com.example.product_service.model.Product;
+
+/**
+ * Deterministic product rows, so every seed of a given size holds the same data.
+ */
+public final class ProductFixtures {
+
+    static final String[] MATERIALS = {"cotton", "wool", "steel", "oak", "glass", "leather", "plastic"};
+    static final String[] COLORS = {"black", "white", "red", "green", "blue", "grey", "yellow", "brown"};
+    private static final String[] COUNTRIES = {"DE", "FR", "IT", "PL", "US", "CN", "JP", "BR", "IN", "TR"};
+    private static final int BRANDS = 50;
+    private static final int SUPPLIERS = 1000;
+
+    private ProductFixtures() {
+    }
+
+    public static Product product(long id) {
+        long supplierId = id % SUPPLIERS + 1;
+        return Product.builder()
+                .productId(id)
+                .title("Product " + id)
+                .description("Benchmark product " + id + ", a sturdy everyday item made to last and easy to clean")
+                .amount(id % 1000)
+                .brand("brand-" + id % BRANDS)
+                .material(MATERIALS[(int) (id % MATERIALS.length)])
+                .color(COLORS[(int) (id % COLORS.length)])
+                .price(1 + (id * 7919 % 100_000) / 100.0)
+                .supplierId(supplierId)
+                .supplierName("Supplier " + supplierId)
+                .supplierContact("sales@supplier-" + supplierId + ".example.com")
+                .supplierCountry(COUNTRIES[(int) (supplierId % COUNTRIES.length)])
+                .build();
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.product_service.benchmark;
+
+import com.example.product_service.dto.ProductField;
+import com.example.product_service.dto.ProductJsonWriter;
+import com.example.product_service.dto.ProductResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.iceberg.data.Record;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of a page of scanned rows: {@link ProductJsonWriter} writing records directly,
+ * against mapping each record to a {@link ProductResponse} for Jackson. Run with {@code -prof gc}
+ * (the default of {@link BenchmarkRunner}) to compare allocation per page.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.nio=ALL-UNNAMED")
+public class ProductJsonWriterBenchmark {
+
+    private static final int PAGE_ROWS = 10_000;
+
+    private final List<Record> page = new ArrayList<>(PAGE_ROWS);
+    private ObjectMapper objectMapper;
+
+    @Setup(Level.Trial)
+    public void setUp(ProductWarehouse warehouse) {
+        objectMapper = warehouse.context.getBean(ObjectMapper.class);
+        warehouse.repository.scan(null, PAGE_ROWS, null, page::add);
+    }
+
+    @Benchmark
+    public void recordWriter() throws IOException {
+        try (JsonGenerator generator = objectMapper.createGenerator(OutputStream.nullOutputStream())) {
+            ProductJsonWriter writer = new ProductJsonWriter(EnumSet.allOf(ProductField.class));
+            generator.writeStartArray();
+            for (Record record : page) {
+                writer.write(generator, record);
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    @Benchmark
+    public void responseBeans() throws IOException {
+        try (JsonGenerator generator = objectMapper.createGenerator(OutputStream.nullOutputStream())) {
+            generator.writeStartArray();
+            for (Record record : page) {
+                objectMapper.writeValue(generator, toResponse(record));
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    private static ProductResponse toResponse(Record record) {
+        return ProductResponse.builder()
+                .productId((Long) record.getField("product_id"))
+                .title((String) record.getField("title"))
+                .description((String) record.getField("description"))
+                .amount((Long) record.getField("amount"))
+                .brand((String) record.getField("brand"))
+                .material((String) record.getField("material"))
+                .color((String) record.getField("color"))
+                .price((Double) record.getField("price"))
+                .supplierId((Long) record.getField("supplier_id"))
+                .supplierName((String) record.getField("supplier_name"))
+                .supplierContact((String) record.getField("supplier_contact"))
+                .supplierCountry((String) record.getField("supplier_country"))
+                .build();
+    }
+}
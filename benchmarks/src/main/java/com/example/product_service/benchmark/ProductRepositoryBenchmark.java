@@ -0,0 +1,63 @@
+package com.example.product_service.benchmark;
+
+import com.example.product_service.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Repository hot paths. Writes run on several threads because the write buffer groups
+ * concurrent callers into one commit; a single caller only measures the buffer's delay.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.nio=ALL-UNNAMED")
+public class ProductRepositoryBenchmark {
+
+    private final AtomicLong nextInsertId = new AtomicLong();
+    private final AtomicLong nextDeleteId = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp(ProductWarehouse warehouse) {
+        nextInsertId.set(warehouse.rows + 1L);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Product save(ProductWarehouse warehouse) {
+        return warehouse.repository.save(ProductFixtures.product(nextInsertId.getAndIncrement()));
+    }
+
+    @Benchmark
+    public Optional<Product> findById(ProductWarehouse warehouse) {
+        return warehouse.repository.findById(warehouse.randomId());
+    }
+
+    @Benchmark
+    public List<Product> findAll(ProductWarehouse warehouse) {
+        return warehouse.repository.findAll();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void deleteById(ProductWarehouse warehouse) {
+        warehouse.repository.deleteById(nextDeleteId.getAndIncrement() % warehouse.rows + 1);
+    }
+}
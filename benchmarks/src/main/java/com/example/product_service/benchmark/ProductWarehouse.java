@@ -0,0 +1,113 @@
+package com.example.product_service.benchmark;
+
+import com.example.product_service.repository.ProductBatchReader;
+import com.example.product_service.repository.ProductBulkWriter;
+import com.example.product_service.repository.ProductRepository;
+import org.apache.iceberg.Snapshot;
+import org.apache.iceberg.Table;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.LongStream;
+
+/**
+ * The service started against a product table seeded with {@code rows} products. A seed is
+ * written once per size and reused by later runs. Whatever a benchmark commits is rolled back
+ * to the seeded snapshot, and expired, when the trial ends.
+ */
+@State(Scope.Benchmark)
+public class ProductWarehouse {
+
+    private static final String SEED_ROWS = "benchmark.seed-rows";
+
+    @Param("10000")
+    public int rows;
+
+    ConfigurableApplicationContext context;
+    Table table;
+    ProductRepository repository;
+    ProductBatchReader batchReader;
+    long seedSnapshotId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = BenchmarkApplication.start(name(), properties());
+        table = context.getBean(Table.class);
+        repository = context.getBean(ProductRepository.class);
+        batchReader = context.getBean(ProductBatchReader.class);
+        seed();
+        seedSnapshotId = table.currentSnapshot().snapshotId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        table.refresh();
+        if (table.currentSnapshot().snapshotId() != seedSnapshotId) {
+            table.manageSnapshots().setCurrentSnapshot(seedSnapshotId).commit();
+            table.expireSnapshots()
+                    .expireOlderThan(System.currentTimeMillis())
+                    .retainLast(1)
+                    .commit();
+        }
+        context.close();
+    }
+
+    /**
+     * Name of the data set; trials with the same name share the seed.
+     */
+    protected String name() {
+        return "products-" + rows;
+    }
+
+    /**
+     * Extra service properties for the trial.
+     */
+    protected Map<String, Object> properties() {
+        return Map.of();
+    }
+
+    /**
+     * Ids of the seeded products, in write order.
+     */
+    protected long[] seedIds() {
+        return LongStream.rangeClosed(1, rows).toArray();
+    }
+
+    long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, rows + 1L);
+    }
+
+    private void seed() throws IOException {
+        seed(table, repository, rows, seedIds());
+    }
+
+    /**
+     * Writes the products once; a table already seeded with as many rows is left as it is.
+     */
+    static void seed(Table table, ProductRepository repository, int rows, long[] ids) throws IOException {
+        Snapshot current = table.currentSnapshot();
+        if (current != null && String.valueOf(rows).equals(table.properties().get(SEED_ROWS))) {
+            return;
+        }
+        if (current != null) {
+            throw new IllegalStateException("Benchmark warehouse for " + rows
+                    + " rows holds an incomplete seed, delete it and run again: " + table.location());
+        }
+
+        try (ProductBulkWriter writer = repository.openBulkWriter()) {
+            for (long id : ids) {
+                writer.write(ProductFixtures.product(id));
+            }
+            writer.commit();
+        }
+        table.updateProperties().set(SEED_ROWS, String.valueOf(rows)).commit();
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.product_service.benchmark;
+
+import com.example.product_service.repository.metrics.RepositoryMetrics;
+import com.example.product_service.repository.metrics.RepositoryMetrics.Operation;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost the repository timers add to every call: the same small unit of work with and without
+ * a histogram timer registered with Prometheus. Run with {@code -t} above 1 to include
+ * contention on the shared histogram.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RepositoryMetricsBenchmark {
+
+    private static final long WORK_TOKENS = 64;
+
+    private RepositoryMetrics metrics;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        metrics = new RepositoryMetrics(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT));
+    }
+
+    @Benchmark
+    public void untimed() {
+        Blackhole.consumeCPU(WORK_TOKENS);
+    }
+
+    @Benchmark
+    public void timed() {
+        metrics.record(Operation.FIND_BY_ID, () -> Blackhole.consumeCPU(WORK_TOKENS));
+    }
+}
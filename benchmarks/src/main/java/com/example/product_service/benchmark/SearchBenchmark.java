@@ -0,0 +1,72 @@
+package com.example.product_service.benchmark;
+
+import com.example.product_service.model.Product;
+import com.example.product_service.repository.index.SearchResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full-text search as the service runs it: rank with the in-memory index, then read the hits'
+ * rows file by file. A product id is a rare term matching one product; a material and a colour
+ * are common ones, each matching a seventh or an eighth of the table, which is the worst case
+ * for scoring. The {@code rank} benchmarks time the index alone, to tell scoring apart from
+ * reading. The sample-time percentiles give the p99.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.nio=ALL-UNNAMED")
+public class SearchBenchmark {
+
+    @Param("10")
+    public int limit;
+
+    @Benchmark
+    public Map<Long, Product> rareTerm(SearchWarehouse warehouse) {
+        return findHits(warehouse, rareQuery(warehouse));
+    }
+
+    @Benchmark
+    public Map<Long, Product> commonTerms(SearchWarehouse warehouse) {
+        return findHits(warehouse, commonQuery());
+    }
+
+    @Benchmark
+    public SearchResult rankRareTerm(SearchWarehouse warehouse) {
+        return warehouse.repository.search(rareQuery(warehouse), limit);
+    }
+
+    @Benchmark
+    public SearchResult rankCommonTerms(SearchWarehouse warehouse) {
+        return warehouse.repository.search(commonQuery(), limit);
+    }
+
+    private Map<Long, Product> findHits(SearchWarehouse warehouse, String query) {
+        SearchResult result = warehouse.repository.search(query, limit);
+        return warehouse.repository.findSearchHits(result.hits());
+    }
+
+    private static String rareQuery(SearchWarehouse warehouse) {
+        return Long.toString(warehouse.randomId());
+    }
+
+    private static String commonQuery() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return ProductFixtures.MATERIALS[random.nextInt(ProductFixtures.MATERIALS.length)]
+                + " " + ProductFixtures.COLORS[random.nextInt(ProductFixtures.COLORS.length)];
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.product_service.benchmark;
+
+import com.example.product_service.repository.ProductRepository;
+import org.apache.iceberg.Table;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.LongStream;
+
+/**
+ * The service with full-text search enabled over a seed of {@code rows} products, a million by
+ * default. It shares the seed of a {@link ProductWarehouse} of the same size and only reads, so
+ * nothing is rolled back. The search index is built before the trial starts.
+ */
+@State(Scope.Benchmark)
+public class SearchWarehouse {
+
+    @Param("1000000")
+    public int rows;
+
+    ConfigurableApplicationContext context;
+    ProductRepository repository;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = BenchmarkApplication.start("products-" + rows, Map.of("iceberg.index.search.enabled", true));
+        repository = context.getBean(ProductRepository.class);
+        ProductWarehouse.seed(context.getBean(Table.class), repository, rows, LongStream.rangeClosed(1, rows).toArray());
+        repository.search("product", 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, rows + 1L);
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.product_service.benchmark;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Map;
+
+/**
+ * The seeded warehouse with the service's virtual-thread switch as a parameter.
+ */
+@State(Scope.Benchmark)
+public class ThreadModeWarehouse extends ProductWarehouse {
+
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    @Override
+    protected Map<String, Object> properties() {
+        return Map.of("spring.threads.virtual.enabled", virtualThreads);
+    }
+}
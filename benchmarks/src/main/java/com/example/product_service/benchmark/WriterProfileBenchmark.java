@@ -0,0 +1,160 @@
+package com.example.product_service.benchmark;
+
+import com.example.product_service.model.Product;
+import com.example.product_service.repository.ProductBulkWriter;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.iceberg.FileScanTask;
+import org.apache.iceberg.Schema;
+import org.apache.iceberg.expressions.Expression;
+import org.apache.iceberg.expressions.Expressions;
+import org.apache.iceberg.io.CloseableIterable;
+import org.apache.iceberg.parquet.ParquetBloomRowGroupFilter;
+import org.apache.iceberg.parquet.ParquetDictionaryRowGroupFilter;
+import org.apache.iceberg.parquet.ParquetMetricsRowGroupFilter;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.util.HadoopInputFile;
+import org.apache.parquet.schema.MessageType;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares Parquet writer profiles. For each profile it reports:
+ * <ul>
+ *   <li>the seeded table's size, printed once per trial;</li>
+ *   <li>bulk write throughput;</li>
+ *   <li>{@code findById} latency;</li>
+ *   <li>the files and row groups a lookup has to open. A row group counts when the reader's
+ *       statistics, dictionary and bloom filters cannot rule it out.</li>
+ * </ul>
+ * Run with {@code -p rows=200000} or more so that the small-group profile writes several
+ * row groups per file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.nio=ALL-UNNAMED")
+public class WriterProfileBenchmark {
+
+    private static final int WRITE_BATCH = 10_000;
+
+    private Configuration conf;
+    private Schema schema;
+    private long nextWriteId;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Pruning {
+
+        public long lookups;
+        public long filesRead;
+        public long rowGroupsRead;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            lookups = 0;
+            filesRead = 0;
+            rowGroupsRead = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp(WriterProfileWarehouse warehouse) throws IOException {
+        conf = warehouse.context.getBean(Configuration.class);
+        schema = warehouse.table.schema();
+        nextWriteId = 2L * warehouse.rows + 1;
+
+        long files = 0;
+        long rowGroups = 0;
+        long bytes = 0;
+        try (CloseableIterable<FileScanTask> tasks = warehouse.table.newScan()
+                .useSnapshot(warehouse.seedSnapshotId)
+                .planFiles()) {
+            for (FileScanTask task : tasks) {
+                files++;
+                bytes += task.file().fileSizeInBytes();
+                try (ParquetFileReader reader = open(task.file().location())) {
+                    rowGroups += reader.getRowGroups().size();
+                }
+            }
+        }
+        System.out.printf("%nWriter profile %s: %d rows in %d data files, %d row groups, %d bytes (%.1f bytes/row)%n",
+                warehouse.profile, warehouse.rows, files, rowGroups, bytes, (double) bytes / warehouse.rows);
+    }
+
+    @Benchmark
+    public Optional<Product> findById(WriterProfileWarehouse warehouse) {
+        return warehouse.repository.findById(warehouse.lookupId());
+    }
+
+    @Benchmark
+    public long lookupPruning(WriterProfileWarehouse warehouse, Pruning pruning) throws IOException {
+        Expression filter = Expressions.equal("product_id", warehouse.lookupId());
+        ParquetMetricsRowGroupFilter statistics = new ParquetMetricsRowGroupFilter(schema, filter);
+        ParquetDictionaryRowGroupFilter dictionaries = new ParquetDictionaryRowGroupFilter(schema, filter);
+        ParquetBloomRowGroupFilter bloomFilters = new ParquetBloomRowGroupFilter(schema, filter);
+
+        pruning.lookups++;
+        try (CloseableIterable<FileScanTask> tasks = warehouse.table.newScan()
+                .useSnapshot(warehouse.seedSnapshotId)
+                .filter(filter)
+                .planFiles()) {
+            for (FileScanTask task : tasks) {
+                pruning.filesRead++;
+                try (ParquetFileReader reader = open(task.file().location())) {
+                    MessageType fileSchema = reader.getFileMetaData().getSchema();
+                    for (BlockMetaData rowGroup : reader.getRowGroups()) {
+                        if (statistics.shouldRead(fileSchema, rowGroup)
+                                && dictionaries.shouldRead(fileSchema, rowGroup, reader.getDictionaryReader(rowGroup))
+                                && bloomFilters.shouldRead(fileSchema, rowGroup, reader.getBloomFilterDataReader(rowGroup))) {
+                            pruning.rowGroupsRead++;
+                        }
+                    }
+                }
+            }
+        }
+        return pruning.rowGroupsRead;
+    }
+
+    /**
+     * One bulk load of {@value #WRITE_BATCH} new products; the trial's writes are rolled back
+     * with the rest of the warehouse.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void bulkWrite(WriterProfileWarehouse warehouse) throws IOException {
+        try (ProductBulkWriter writer = warehouse.repository.openBulkWriter()) {
+            for (int i = 0; i < WRITE_BATCH; i++) {
+                writer.write(ProductFixtures.product(nextWriteId++));
+            }
+            writer.commit();
+        }
+    }
+
+    private ParquetFileReader open(String location) {
+        try {
+            return ParquetFileReader.open(HadoopInputFile.fromPath(new Path(location), conf));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open " + location, e);
+        }
+    }
+}
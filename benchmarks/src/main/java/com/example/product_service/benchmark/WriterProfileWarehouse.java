@@ -0,0 +1,73 @@
+package com.example.product_service.benchmark;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.LongStream;
+
+/**
+ * A warehouse seeded under one Parquet writer profile. Only even ids are seeded, written in a
+ * shuffled order, so every row group spans most of the id range: min/max statistics can then
+ * rarely rule a row group out, and lookups of odd ids hit keys that do not exist.
+ */
+@State(Scope.Benchmark)
+public class WriterProfileWarehouse extends ProductWarehouse {
+
+    private static final Map<String, Map<String, Object>> PROFILES = Map.of(
+            "gzip", profile("gzip", "", 134_217_728, 1_048_576, "", 1_048_576),
+            "zstd", profile("zstd", "3", 134_217_728, 1_048_576, "", 1_048_576),
+            "zstd-bloom", profile("zstd", "3", 134_217_728, 1_048_576, "product_id,supplier_id", 1_048_576),
+            "zstd-bloom-small-groups", profile("zstd", "3", 262_144, 65_536, "product_id,supplier_id", 4_096));
+
+    @Param({"gzip", "zstd", "zstd-bloom", "zstd-bloom-small-groups"})
+    public String profile;
+
+    @Override
+    protected String name() {
+        return "profile-" + profile + "-" + rows;
+    }
+
+    @Override
+    protected Map<String, Object> properties() {
+        Map<String, Object> properties = PROFILES.get(profile);
+        if (properties == null) {
+            throw new IllegalArgumentException("Unknown writer profile: " + profile);
+        }
+        return properties;
+    }
+
+    @Override
+    protected long[] seedIds() {
+        long[] ids = LongStream.rangeClosed(1, rows).map(index -> index * 2).toArray();
+        Random random = new Random(42);
+        for (int i = ids.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            long id = ids[i];
+            ids[i] = ids[j];
+            ids[j] = id;
+        }
+        return ids;
+    }
+
+    /**
+     * A random id in the seeded range; half of them do not exist.
+     */
+    long lookupId() {
+        return ThreadLocalRandom.current().nextLong(1, 2L * rows + 1);
+    }
+
+    private static Map<String, Object> profile(String codec, String level, long rowGroupBytes, long pageBytes,
+                                               String bloomFilterColumns, long bloomFilterBytes) {
+        return Map.of(
+                "iceberg.write.parquet.compression-codec", codec,
+                "iceberg.write.parquet.compression-level", level,
+                "iceberg.write.parquet.row-group-size-bytes", rowGroupBytes,
+                "iceberg.write.parquet.page-size-bytes", pageBytes,
+                "iceberg.write.parquet.bloom-filter-columns", bloomFilterColumns,
+                "iceberg.write.parquet.bloom-filter-max-bytes", bloomFilterBytes);
+    }
+}
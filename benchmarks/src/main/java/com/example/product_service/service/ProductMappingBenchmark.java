@@ -0,0 +1,65 @@
+package com.example.product_service.service;
+
+import com.example.product_service.benchmark.ProductFixtures;
+import com.example.product_service.dto.ProductRequest;
+import com.example.product_service.dto.ProductResponse;
+import com.example.product_service.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DTO mapping of {@link ProductService}. Lives in the service package to reach the package-private
+ * mapping methods; the mapping needs none of the service's collaborators.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ProductMappingBenchmark {
+
+    private final ProductService productService = new ProductService(null, null, null, null);
+    private Product product;
+    private ProductRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        product = ProductFixtures.product(42);
+        request = ProductRequest.builder()
+                .productId(product.getProductId())
+                .title(product.getTitle())
+                .description(product.getDescription())
+                .amount(product.getAmount())
+                .brand(product.getBrand())
+                .material(product.getMaterial())
+                .color(product.getColor())
+                .price(product.getPrice())
+                .supplierId(product.getSupplierId())
+                .supplierName(product.getSupplierName())
+                .supplierContact(product.getSupplierContact())
+                .supplierCountry(product.getSupplierCountry())
+                .build();
+    }
+
+    @Benchmark
+    public Product toEntity() {
+        return productService.convertToEntity(request);
+    }
+
+    @Benchmark
+    public ProductResponse toResponse() {
+        return productService.convertToResponse(product);
+    }
+}
@@ -1,24 +1,52 @@
 package com.example.product_service.config;
 
+import com.example.product_service.repository.io.CachingFileIO;
+import com.example.product_service.repository.metrics.IcebergMetricsReporter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.iceberg.CatalogProperties;
+import org.apache.iceberg.HasTableOperations;
+import org.apache.iceberg.PartitionField;
+import org.apache.iceberg.PartitionSpec;
 import org.apache.iceberg.Schema;
+import org.apache.iceberg.SortOrder;
+import org.apache.iceberg.RowLevelOperationMode;
 import org.apache.iceberg.Table;
+import org.apache.iceberg.TableProperties;
+import org.apache.iceberg.UpdateProperties;
+import org.apache.iceberg.aws.AwsClientProperties;
+import org.apache.iceberg.aws.HttpClientProperties;
+import org.apache.iceberg.aws.s3.S3FileIO;
+import org.apache.iceberg.aws.s3.S3FileIOProperties;
+import org.apache.iceberg.catalog.Catalog;
+import org.apache.iceberg.catalog.Namespace;
+import org.apache.iceberg.catalog.SupportsNamespaces;
 import org.apache.iceberg.catalog.TableIdentifier;
+import org.apache.iceberg.expressions.Expressions;
 import org.apache.iceberg.hadoop.HadoopCatalog;
 import org.apache.iceberg.hadoop.HadoopFileIO;
-import org.apache.iceberg.io.FileIO;
+import org.apache.iceberg.jdbc.JdbcCatalog;
 import org.apache.iceberg.types.Types;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 @org.springframework.context.annotation.Configuration
 @Slf4j
 public class IcebergConfig {
-    private static final String WAREHOUSE_LOCATION = "s3a://warehouse";
+    private static final Namespace NAMESPACE = Namespace.of("iceberg_catalog");
+    private static final String PRODUCT_ID = "product_id";
+    private static final String PRODUCT_ID_BUCKET = "product_id_bucket";
+    private static final int FORMAT_VERSION = 2;
+    private static final Map<String, String> ROW_LEVEL_PROPERTIES = Map.of(
+            TableProperties.FORMAT_VERSION, String.valueOf(FORMAT_VERSION),
+            TableProperties.DELETE_MODE, RowLevelOperationMode.MERGE_ON_READ.modeName(),
+            TableProperties.UPDATE_MODE, RowLevelOperationMode.MERGE_ON_READ.modeName());
 
     @Value("${minio.root.user}")
     private String accessKey;
@@ -29,6 +57,63 @@ public class IcebergConfig {
     @Value("${minio.endpoint:http://localhost:9000}")
     private String endpoint;
 
+    @Value("${iceberg.catalog.type:hadoop}")
+    private String catalogType;
+
+    @Value("${iceberg.catalog.warehouse:s3a://warehouse}")
+    private String warehouse;
+
+    @Value("${iceberg.catalog.jdbc.uri:jdbc:h2:file:./data/iceberg-catalog;DATABASE_TO_UPPER=FALSE}")
+    private String jdbcUri;
+
+    @Value("${iceberg.catalog.jdbc.user:sa}")
+    private String jdbcUser;
+
+    @Value("${iceberg.catalog.jdbc.password:}")
+    private String jdbcPassword;
+
+    @Value("${iceberg.io.type:hadoop}")
+    private String ioType;
+
+    @Value("${iceberg.io.s3.region:us-east-1}")
+    private String s3Region;
+
+    @Value("${iceberg.io.s3.multipart-size-bytes:33554432}")
+    private long s3MultipartSizeBytes;
+
+    @Value("${iceberg.io.s3.multipart-threads:8}")
+    private int s3MultipartThreads;
+
+    @Value("${iceberg.io.s3.max-connections:200}")
+    private int s3MaxConnections;
+
+    @Value("${iceberg.io.s3.connection-timeout-ms:5000}")
+    private long s3ConnectionTimeoutMs;
+
+    @Value("${iceberg.io.s3.socket-timeout-ms:30000}")
+    private long s3SocketTimeoutMs;
+
+    @Value("${iceberg.table.partition-buckets:16}")
+    private int partitionBuckets;
+
+    @Value("${iceberg.file-cache.enabled:true}")
+    private boolean fileCacheEnabled;
+
+    @Value("${iceberg.file-cache.memory-max-bytes:67108864}")
+    private long fileCacheMemoryMaxBytes;
+
+    @Value("${iceberg.file-cache.memory-max-file-bytes:8388608}")
+    private long fileCacheMemoryMaxFileBytes;
+
+    @Value("${iceberg.file-cache.disk-dir:${java.io.tmpdir}/product-service-file-cache}")
+    private String fileCacheDiskDir;
+
+    @Value("${iceberg.file-cache.disk-max-bytes:10737418240}")
+    private long fileCacheDiskMaxBytes;
+
+    @Value("${iceberg.file-cache.block-bytes:4194304}")
+    private int fileCacheBlockBytes;
+
     @Bean
     public Configuration hadoopConfiguration() {
         Map<String, String> props = new HashMap<>();
@@ -44,24 +129,84 @@ public class IcebergConfig {
         return config;
     }
 
+    /**
+     * {@code hadoop} commits by renaming metadata files under the warehouse, which is only safe
+     * for a single writer on object storage; {@code jdbc} commits with a compare-and-swap on
+     * the metadata pointer in a database table (embedded H2 by default).
+     */
     @Bean
-    public HadoopCatalog hadoopCatalog(Configuration hadoopConfiguration) {
-        log.info("Create hadoopCatalog");
-        return new HadoopCatalog(hadoopConfiguration, WAREHOUSE_LOCATION);
+    public Catalog catalog(Configuration hadoopConfiguration) {
+        Map<String, String> properties = new HashMap<>(fileIOProperties());
+        properties.put(CatalogProperties.WAREHOUSE_LOCATION, warehouse);
+        properties.put(CatalogProperties.METRICS_REPORTER_IMPL, IcebergMetricsReporter.class.getName());
+        log.info("Create {} catalog over {}", catalogType, warehouse);
+
+        switch (catalogType) {
+            case "hadoop" -> {
+                HadoopCatalog catalog = new HadoopCatalog();
+                catalog.setConf(hadoopConfiguration);
+                catalog.initialize("hadoop", properties);
+                return catalog;
+            }
+            case "jdbc" -> {
+                properties.put(CatalogProperties.URI, jdbcUri);
+                properties.put(JdbcCatalog.PROPERTY_PREFIX + "user", jdbcUser);
+                properties.put(JdbcCatalog.PROPERTY_PREFIX + "password", jdbcPassword);
+                properties.put(JdbcCatalog.PROPERTY_PREFIX + "schema-version", "V1");
+                JdbcCatalog catalog = new JdbcCatalog();
+                catalog.setConf(hadoopConfiguration);
+                catalog.initialize("product_service", properties);
+                return catalog;
+            }
+            default -> throw new IllegalArgumentException("Unknown iceberg.catalog.type: " + catalogType);
+        }
     }
 
-    @Bean
-    public FileIO fileIO(Configuration hadoopConfiguration) {
-        log.info("Create hadoopConfiguration");
-        return new HadoopFileIO(hadoopConfiguration);
+    private Map<String, String> fileIOProperties() {
+        Map<String, String> properties = new HashMap<>();
+        String ioImpl = switch (ioType) {
+            case "hadoop" -> HadoopFileIO.class.getName();
+            case "s3" -> {
+                properties.put(S3FileIOProperties.ENDPOINT, endpoint);
+                properties.put(S3FileIOProperties.PATH_STYLE_ACCESS, "true");
+                properties.put(S3FileIOProperties.ACCESS_KEY_ID, accessKey);
+                properties.put(S3FileIOProperties.SECRET_ACCESS_KEY, secretKey);
+                properties.put(S3FileIOProperties.MULTIPART_SIZE, String.valueOf(s3MultipartSizeBytes));
+                properties.put(S3FileIOProperties.MULTIPART_UPLOAD_THREADS, String.valueOf(s3MultipartThreads));
+                properties.put(AwsClientProperties.CLIENT_REGION, s3Region);
+                properties.put(HttpClientProperties.CLIENT_TYPE, HttpClientProperties.CLIENT_TYPE_APACHE);
+                properties.put(HttpClientProperties.APACHE_MAX_CONNECTIONS, String.valueOf(s3MaxConnections));
+                properties.put(HttpClientProperties.APACHE_CONNECTION_TIMEOUT_MS, String.valueOf(s3ConnectionTimeoutMs));
+                properties.put(HttpClientProperties.APACHE_SOCKET_TIMEOUT_MS, String.valueOf(s3SocketTimeoutMs));
+                yield S3FileIO.class.getName();
+            }
+            default -> throw new IllegalArgumentException("Unknown iceberg.io.type: " + ioType);
+        };
+
+        if (!fileCacheEnabled) {
+            properties.put(CatalogProperties.FILE_IO_IMPL, ioImpl);
+            return properties;
+        }
+        properties.put(CatalogProperties.FILE_IO_IMPL, CachingFileIO.class.getName());
+        properties.put(CachingFileIO.DELEGATE_IMPL, ioImpl);
+        properties.put(CachingFileIO.MEMORY_MAX_BYTES, String.valueOf(fileCacheMemoryMaxBytes));
+        properties.put(CachingFileIO.MEMORY_MAX_FILE_BYTES, String.valueOf(fileCacheMemoryMaxFileBytes));
+        properties.put(CachingFileIO.DISK_DIR, fileCacheDiskDir);
+        properties.put(CachingFileIO.DISK_MAX_BYTES, String.valueOf(fileCacheDiskMaxBytes));
+        properties.put(CachingFileIO.DISK_BLOCK_BYTES, String.valueOf(fileCacheBlockBytes));
+        return properties;
     }
 
     @Bean
-    public Table productTable(HadoopCatalog catalog) {
-        TableIdentifier id = TableIdentifier.of("iceberg_catalog", "products");
+    public Table productTable(Catalog catalog, ParquetWriterProfile writerProfile) {
+        TableIdentifier id = TableIdentifier.of(NAMESPACE, "products");
+        if (catalog instanceof SupportsNamespaces namespaces && !namespaces.namespaceExists(NAMESPACE)) {
+            log.info("Create namespace {}", NAMESPACE);
+            namespaces.createNamespace(NAMESPACE);
+        }
 
         if (!catalog.tableExists(id)) {
-            Schema schema = new Schema(
+            Schema schema = new Schema(List.of(
                     Types.NestedField.required(1, "product_id", Types.LongType.get()),
                     Types.NestedField.required(2, "title", Types.StringType.get()),
                     Types.NestedField.optional(3, "description", Types.StringType.get()),
@@ -74,11 +219,79 @@ public class IcebergConfig {
                     Types.NestedField.required(10, "supplier_name", Types.StringType.get()),
                     Types.NestedField.optional(11, "supplier_contact", Types.StringType.get()),
                     Types.NestedField.optional(12, "supplier_country", Types.StringType.get())
-            );
+            ), Set.of(1));
             log.info("create Table");
-            return catalog.createTable(id, schema);
+            return catalog.buildTable(id, schema)
+                    .withPartitionSpec(partitionSpec(schema))
+                    .withSortOrder(SortOrder.builderFor(schema).asc(PRODUCT_ID).build())
+                    .withProperties(ROW_LEVEL_PROPERTIES)
+                    .withProperties(writerProfile.tableProperties())
+                    .create();
         } else {
-            return catalog.loadTable(id);
+            Table table = catalog.loadTable(id);
+            upgradeFormat(table);
+            evolveLayout(table);
+            writerProfile.applyTo(table);
+            return table;
+        }
+    }
+
+    private PartitionSpec partitionSpec(Schema schema) {
+        if (partitionBuckets <= 0) {
+            return PartitionSpec.unpartitioned();
+        }
+        return PartitionSpec.builderFor(schema)
+                .bucket(PRODUCT_ID, partitionBuckets, PRODUCT_ID_BUCKET)
+                .build();
+    }
+
+    private void upgradeFormat(Table table) {
+        int formatVersion = ((HasTableOperations) table).operations().current().formatVersion();
+        if (formatVersion < FORMAT_VERSION) {
+            log.info("Upgrade table format from v{} to v{}", formatVersion, FORMAT_VERSION);
+            UpdateProperties update = table.updateProperties();
+            ROW_LEVEL_PROPERTIES.forEach(update::set);
+            update.commit();
+        }
+
+        if (table.schema().identifierFieldIds().isEmpty()) {
+            log.info("Set {} as the table identifier field", PRODUCT_ID);
+            table.updateSchema()
+                    .setIdentifierFields(PRODUCT_ID)
+                    .commit();
+        }
+    }
+
+    private void evolveLayout(Table table) {
+        Optional<PartitionField> bucketField = table.spec().fields().stream()
+                .filter(field -> field.name().equals(PRODUCT_ID_BUCKET))
+                .findFirst();
+        String expectedTransform = "bucket[" + partitionBuckets + "]";
+
+        if (partitionBuckets > 0 && bucketField.isEmpty()) {
+            log.info("Evolve partition spec to bucket({}, {})", PRODUCT_ID, partitionBuckets);
+            table.updateSpec()
+                    .addField(PRODUCT_ID_BUCKET, Expressions.bucket(PRODUCT_ID, partitionBuckets))
+                    .commit();
+        } else if (partitionBuckets > 0 && !bucketField.get().transform().toString().equals(expectedTransform)) {
+            log.info("Evolve partition spec from {} to bucket({}, {})",
+                    bucketField.get().transform(), PRODUCT_ID, partitionBuckets);
+            table.updateSpec()
+                    .removeField(PRODUCT_ID_BUCKET)
+                    .addField(PRODUCT_ID_BUCKET, Expressions.bucket(PRODUCT_ID, partitionBuckets))
+                    .commit();
+        } else if (partitionBuckets <= 0 && bucketField.isPresent()) {
+            log.info("Evolve partition spec to unpartitioned");
+            table.updateSpec()
+                    .removeField(PRODUCT_ID_BUCKET)
+                    .commit();
+        }
+
+        if (table.sortOrder().isUnsorted()) {
+            log.info("Set table sort order to {}", PRODUCT_ID);
+            table.replaceSortOrder()
+                    .asc(PRODUCT_ID)
+                    .commit();
         }
     }
 }
\ No newline at end of file
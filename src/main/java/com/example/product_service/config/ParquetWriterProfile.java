@@ -0,0 +1,131 @@
+package com.example.product_service.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.TableProperties;
+import org.apache.iceberg.UpdateProperties;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Parquet settings for every file the service writes, kept as table properties so that data
+ * files, position delete files and compaction output all pick them up from the table. Bloom
+ * filters let lookups skip row groups whose min/max range covers the key but which do not
+ * hold it.
+ *
+ * <p>Iceberg's Parquet writer only switches dictionary encoding on or off for the whole file;
+ * a column whose dictionary outgrows {@code dict-size-bytes} falls back to plain encoding. It
+ * also passes no distinct-value estimate to Parquet, so a bloom filter takes the full
+ * {@code bloom-filter-max-bytes} unless the writer knows its row count; at 1% false positives
+ * a row group needs about 1.2 bytes per row.
+ */
+@Slf4j
+@Component
+public class ParquetWriterProfile {
+
+    public static final String DICTIONARY_ENABLED = "parquet.enable.dictionary";
+
+    private static final Set<String> CODECS = Set.of("zstd", "snappy", "gzip", "lz4", "uncompressed");
+
+    private final String compressionCodec;
+    private final String compressionLevel;
+    private final long rowGroupSizeBytes;
+    private final long pageSizeBytes;
+    private final boolean dictionaryEnabled;
+    private final long dictSizeBytes;
+    private final List<String> bloomFilterColumns;
+    private final double bloomFilterFpp;
+    private final long bloomFilterMaxBytes;
+
+    public ParquetWriterProfile(@Value("${iceberg.write.parquet.compression-codec:zstd}") String compressionCodec,
+                                @Value("${iceberg.write.parquet.compression-level:3}") String compressionLevel,
+                                @Value("${iceberg.write.parquet.row-group-size-bytes:134217728}") long rowGroupSizeBytes,
+                                @Value("${iceberg.write.parquet.page-size-bytes:1048576}") long pageSizeBytes,
+                                @Value("${iceberg.write.parquet.dictionary-enabled:true}") boolean dictionaryEnabled,
+                                @Value("${iceberg.write.parquet.dict-size-bytes:2097152}") long dictSizeBytes,
+                                @Value("${iceberg.write.parquet.bloom-filter-columns:product_id,supplier_id}") List<String> bloomFilterColumns,
+                                @Value("${iceberg.write.parquet.bloom-filter-fpp:0.01}") double bloomFilterFpp,
+                                @Value("${iceberg.write.parquet.bloom-filter-max-bytes:1048576}") long bloomFilterMaxBytes) {
+        if (!CODECS.contains(compressionCodec)) {
+            throw new IllegalArgumentException("Unsupported Parquet compression codec: " + compressionCodec);
+        }
+        if (bloomFilterFpp <= 0 || bloomFilterFpp >= 1) {
+            throw new IllegalArgumentException("Bloom filter false positive probability must be in (0, 1): " + bloomFilterFpp);
+        }
+        this.compressionCodec = compressionCodec;
+        this.compressionLevel = compressionLevel;
+        this.rowGroupSizeBytes = rowGroupSizeBytes;
+        this.pageSizeBytes = pageSizeBytes;
+        this.dictionaryEnabled = dictionaryEnabled;
+        this.dictSizeBytes = dictSizeBytes;
+        this.bloomFilterColumns = bloomFilterColumns.stream()
+                .map(String::trim)
+                .filter(column -> !column.isEmpty())
+                .toList();
+        this.bloomFilterFpp = bloomFilterFpp;
+        this.bloomFilterMaxBytes = bloomFilterMaxBytes;
+    }
+
+    public Map<String, String> tableProperties() {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put(TableProperties.PARQUET_COMPRESSION, compressionCodec);
+        if (compressionLevel != null && !compressionLevel.isBlank()) {
+            properties.put(TableProperties.PARQUET_COMPRESSION_LEVEL, compressionLevel.trim());
+        }
+        properties.put(TableProperties.PARQUET_ROW_GROUP_SIZE_BYTES, String.valueOf(rowGroupSizeBytes));
+        properties.put(TableProperties.PARQUET_PAGE_SIZE_BYTES, String.valueOf(pageSizeBytes));
+        properties.put(DICTIONARY_ENABLED, String.valueOf(dictionaryEnabled));
+        properties.put(TableProperties.PARQUET_DICT_SIZE_BYTES, String.valueOf(dictSizeBytes));
+        properties.put(TableProperties.PARQUET_BLOOM_FILTER_MAX_BYTES, String.valueOf(bloomFilterMaxBytes));
+        for (String column : bloomFilterColumns) {
+            properties.put(TableProperties.PARQUET_BLOOM_FILTER_COLUMN_ENABLED_PREFIX + column, "true");
+            properties.put(TableProperties.PARQUET_BLOOM_FILTER_COLUMN_FPP_PREFIX + column, String.valueOf(bloomFilterFpp));
+        }
+        return properties;
+    }
+
+    /**
+     * Brings the table properties in line with the profile, dropping the compression level and
+     * bloom filter settings the profile no longer asks for. Files already written keep the
+     * layout they were written with until compaction rewrites them.
+     */
+    public void applyTo(Table table) {
+        for (String column : bloomFilterColumns) {
+            if (table.schema().findField(column) == null) {
+                throw new IllegalArgumentException("Bloom filter column is not in the product schema: " + column);
+            }
+        }
+
+        Map<String, String> desired = tableProperties();
+        Map<String, String> current = table.properties();
+        UpdateProperties update = table.updateProperties();
+        boolean changed = false;
+        for (Map.Entry<String, String> property : desired.entrySet()) {
+            if (!property.getValue().equals(current.get(property.getKey()))) {
+                update.set(property.getKey(), property.getValue());
+                changed = true;
+            }
+        }
+        for (String key : current.keySet()) {
+            if (!desired.containsKey(key) && isProfileKey(key)) {
+                update.remove(key);
+                changed = true;
+            }
+        }
+        if (changed) {
+            update.commit();
+            log.info("Apply Parquet writer profile: {}", desired);
+        }
+    }
+
+    private static boolean isProfileKey(String key) {
+        return key.equals(TableProperties.PARQUET_COMPRESSION_LEVEL)
+                || key.startsWith(TableProperties.PARQUET_BLOOM_FILTER_COLUMN_ENABLED_PREFIX)
+                || key.startsWith(TableProperties.PARQUET_BLOOM_FILTER_COLUMN_FPP_PREFIX);
+    }
+}
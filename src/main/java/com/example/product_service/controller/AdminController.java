@@ -0,0 +1,62 @@
+package com.example.product_service.controller;
+
+import com.example.product_service.repository.CacheStats;
+import com.example.product_service.repository.MaintenanceReport;
+import com.example.product_service.repository.index.KeyIndexStats;
+import com.example.product_service.repository.index.SearchIndexStats;
+import com.example.product_service.repository.index.SecondaryIndexStats;
+import com.example.product_service.repository.io.FileCacheStats;
+import com.example.product_service.service.StorageStatsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+public class AdminController {
+
+    private final StorageStatsService storageStatsService;
+
+    @GetMapping("/cache")
+    public CacheStats getCacheStats() {
+        return storageStatsService.getCacheStats();
+    }
+
+    @GetMapping("/file-cache")
+    public ResponseEntity<FileCacheStats> getFileCacheStats() {
+        return storageStatsService.getFileCacheStats()
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.noContent().build());
+    }
+
+    @GetMapping("/index")
+    public KeyIndexStats getKeyIndexStats() {
+        return storageStatsService.getKeyIndexStats();
+    }
+
+    @GetMapping("/secondary-index")
+    public SecondaryIndexStats getSecondaryIndexStats() {
+        return storageStatsService.getSecondaryIndexStats();
+    }
+
+    @GetMapping("/search-index")
+    public SearchIndexStats getSearchIndexStats() {
+        return storageStatsService.getSearchIndexStats();
+    }
+
+    @GetMapping("/maintenance")
+    public ResponseEntity<MaintenanceReport> getLastMaintenanceReport() {
+        return storageStatsService.getLastMaintenanceReport()
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.noContent().build());
+    }
+
+    @PostMapping("/maintenance")
+    public MaintenanceReport runMaintenance() {
+        return storageStatsService.runMaintenance();
+    }
+}
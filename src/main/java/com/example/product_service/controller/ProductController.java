@@ -1,22 +1,60 @@
 package com.example.product_service.controller;
 
+import com.example.product_service.dto.BulkIngestResponse;
+import com.example.product_service.dto.ProductField;
+import com.example.product_service.dto.ProductJsonWriter;
+import com.example.product_service.dto.ProductQueryRequest;
 import com.example.product_service.dto.ProductRequest;
 import com.example.product_service.dto.ProductResponse;
+import com.example.product_service.dto.ProductSearchResponse;
+import com.example.product_service.infrastructure.exception.DataValidationException;
+import com.example.product_service.repository.ExportFormat;
+import com.example.product_service.repository.GroupedProductStats;
+import com.example.product_service.repository.ProductChangeListener;
+import com.example.product_service.repository.ProductSummary;
+import com.example.product_service.repository.QueryStats;
+import com.example.product_service.service.ProductChangeStream;
+import com.example.product_service.service.ProductExport;
+import com.example.product_service.service.ProductQuery;
 import com.example.product_service.service.ProductService;
+import com.example.product_service.service.ProductStream;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Positive;
 import lombok.RequiredArgsConstructor;
+import org.apache.iceberg.data.Record;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/products")
 @RequiredArgsConstructor
 public class ProductController {
 
+    private static final int DEFAULT_PAGE_SIZE = 1000;
+    private static final int MAX_PAGE_SIZE = 10_000;
+    private static final int MAX_SEARCH_HITS = 100;
+
+    private static final String HIGH_WATER_SNAPSHOT_HEADER = "X-High-Water-Snapshot";
+
     private final ProductService productService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -24,14 +62,119 @@ public class ProductController {
         return productService.createProduct(request);
     }
 
-    @GetMapping
-    public List<ProductResponse> getAllProducts() {
-        return productService.getAllProducts();
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @ResponseStatus(HttpStatus.CREATED)
+    public BulkIngestResponse createProducts(InputStream body) throws IOException {
+        return productService.ingestProducts(body);
+    }
+
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<StreamingResponseBody> getAllProducts(
+            @RequestParam(required = false) @Positive @Max(MAX_PAGE_SIZE) Integer limit,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) Long supplierId,
+            @RequestParam(required = false) String brand,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        Set<ProductField> selected = ProductField.parse(fields);
+        boolean lookup = supplierId != null || brand != null;
+        if (lookup && after != null) {
+            throw new DataValidationException("supplierId and brand lookups are not paged; drop after");
+        }
+        boolean paged = !lookup && (limit != null || after != null);
+        ProductStream stream = lookup
+                ? productService.streamMatching(supplierId, brand, Objects.requireNonNullElse(limit, 0), selected)
+                : productService.streamProducts(after,
+                        paged ? Objects.requireNonNullElse(limit, DEFAULT_PAGE_SIZE) : 0, selected);
+
+        if (acceptsNdjson(accept)) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(out -> writeNdjson(out, stream, paged, selected));
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> writeJson(out, stream, paged, selected));
+    }
+
+    @PostMapping(value = "/query", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> queryProducts(@Valid @RequestBody ProductQueryRequest request) {
+        Set<ProductField> selected = ProductField.parse(request.getFields());
+        ProductQuery query = productService.queryProducts(request, selected, DEFAULT_PAGE_SIZE);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> writeQueryResult(out, query, selected));
+    }
+
+    /**
+     * Net changes between two snapshots as NDJSON upsert/delete events. Without
+     * {@code fromSnapshot} every current row is sent as an upsert. The response header carries
+     * the snapshot to pass as {@code fromSnapshot} on the next call.
+     */
+    @GetMapping(value = "/changes", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getChanges(
+            @RequestParam(required = false) Long fromSnapshot,
+            @RequestParam(required = false) Long toSnapshot,
+            @RequestParam(required = false) String fields) {
+        Set<ProductField> selected = ProductField.parse(fields);
+        selected.add(ProductField.PRODUCT_ID);
+        ProductChangeStream stream = productService.streamChanges(fromSnapshot, toSnapshot, selected);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON);
+        if (stream.highWaterSnapshotId() != null) {
+            response.header(HIGH_WATER_SNAPSHOT_HEADER, stream.highWaterSnapshotId().toString());
+        }
+        return response.body(out -> writeChanges(out, stream, selected));
+    }
+
+    /**
+     * Bulk export of the current snapshot as {@code parquet} (a zip of Parquet files),
+     * {@code arrow} (an Arrow IPC stream) or {@code csv}. Each {@code filter} reads
+     * {@code field:op:value}, e.g. {@code price:gte:10} or {@code brand:in:Acme|Globex}.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @RequestParam String format,
+            @RequestParam(required = false) List<String> filter,
+            @RequestParam(required = false) String fields) {
+        ExportFormat exportFormat = ExportFormat.parse(format);
+        ProductExport export = productService.exportProducts(exportFormat, filter, ProductField.parse(fields));
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.contentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"products." + exportFormat.extension() + "\"")
+                .body(export::writeTo);
+    }
+
+    /**
+     * Full-text search over title, description, brand and material, best matches first.
+     */
+    @GetMapping("/search")
+    public ProductSearchResponse searchProducts(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") @Positive @Max(MAX_SEARCH_HITS) int limit) {
+        return productService.searchProducts(q, limit);
+    }
+
+    @GetMapping("/aggregates")
+    public ProductSummary getSummary() {
+        return productService.getSummary();
+    }
+
+    @GetMapping("/aggregates/groups")
+    public GroupedProductStats getGroupStats(@RequestParam(required = false) String by) {
+        return productService.getGroupStats(by);
     }
 
     @GetMapping("/{id}")
-    public ProductResponse getProductById(@PathVariable Long id) {
-        return productService.getProductById(id);
+    public Object getProductById(@PathVariable Long id, @RequestParam(required = false) String fields) {
+        Set<ProductField> selected = ProductField.parse(fields);
+        ProductResponse response = productService.getProductById(id, selected);
+        if (ProductField.isAll(selected)) {
+            return response;
+        }
+        Map<String, Object> projected = new LinkedHashMap<>();
+        selected.forEach(field -> projected.put(field.apiName(), field.valueOf(response)));
+        return projected;
     }
 
     @PutMapping("/{id}")
@@ -45,4 +188,109 @@ public class ProductController {
     public void deleteProduct(@PathVariable Long id) {
         productService.deleteProduct(id);
     }
+
+    private boolean acceptsNdjson(String accept) {
+        return accept != null && MediaType.parseMediaTypes(accept).stream()
+                .anyMatch(MediaType.APPLICATION_NDJSON::equalsTypeAndSubtype);
+    }
+
+    private void writeJson(OutputStream out, ProductStream stream, boolean paged,
+                           Set<ProductField> fields) throws IOException {
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            if (paged) {
+                generator.writeStartObject();
+                generator.writeArrayFieldStart("items");
+            } else {
+                generator.writeStartArray();
+            }
+            ProductJsonWriter writer = new ProductJsonWriter(fields);
+            String nextCursor = stream.forEach(record -> writeValue(generator, writer, record));
+            generator.writeEndArray();
+            if (paged) {
+                generator.writeStringField("nextCursor", nextCursor);
+                generator.writeEndObject();
+            }
+        }
+    }
+
+    private void writeNdjson(OutputStream out, ProductStream stream, boolean paged,
+                             Set<ProductField> fields) throws IOException {
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            ProductJsonWriter writer = new ProductJsonWriter(fields);
+            String nextCursor = stream.forEach(record -> {
+                writeValue(generator, writer, record);
+                writeNewLine(generator);
+            });
+            if (paged && nextCursor != null) {
+                generator.writeStartObject();
+                generator.writeStringField("nextCursor", nextCursor);
+                generator.writeEndObject();
+                writeNewLine(generator);
+            }
+        }
+    }
+
+    private void writeQueryResult(OutputStream out, ProductQuery query, Set<ProductField> fields) throws IOException {
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("items");
+            ProductJsonWriter writer = new ProductJsonWriter(fields);
+            QueryStats stats = query.forEach(record -> writeValue(generator, writer, record));
+            generator.writeEndArray();
+            generator.writeObjectField("stats", stats);
+            generator.writeEndObject();
+        }
+    }
+
+    private void writeChanges(OutputStream out, ProductChangeStream stream, Set<ProductField> fields) throws IOException {
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            ProductJsonWriter writer = new ProductJsonWriter(fields);
+            stream.forEach(new ProductChangeListener() {
+                @Override
+                public void upsert(Record row) {
+                    try {
+                        generator.writeStartObject();
+                        generator.writeStringField("op", "upsert");
+                        generator.writeFieldName("product");
+                        writer.write(generator, row);
+                        generator.writeEndObject();
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+
+                @Override
+                public void delete(long productId) {
+                    try {
+                        generator.writeStartObject();
+                        generator.writeStringField("op", "delete");
+                        generator.writeNumberField("productId", productId);
+                        generator.writeEndObject();
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+        }
+    }
+
+    private void writeValue(JsonGenerator generator, ProductJsonWriter writer, Record record) {
+        try {
+            writer.write(generator, record);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeNewLine(JsonGenerator generator) {
+        try {
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.example.product_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkIngestResponse {
+
+    private long accepted;
+    private long rejected;
+    private List<RejectedRow> errors;
+}
@@ -0,0 +1,81 @@
+package com.example.product_service.dto;
+
+import com.example.product_service.infrastructure.exception.DataValidationException;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Fields of {@link ProductResponse} that can be requested with {@code ?fields=}, together with
+ * the table column each one is read from.
+ */
+public enum ProductField {
+
+    PRODUCT_ID("productId", "product_id", ProductResponse::getProductId),
+    TITLE("title", "title", ProductResponse::getTitle),
+    DESCRIPTION("description", "description", ProductResponse::getDescription),
+    AMOUNT("amount", "amount", ProductResponse::getAmount),
+    BRAND("brand", "brand", ProductResponse::getBrand),
+    MATERIAL("material", "material", ProductResponse::getMaterial),
+    COLOR("color", "color", ProductResponse::getColor),
+    PRICE("price", "price", ProductResponse::getPrice),
+    SUPPLIER_ID("supplierId", "supplier_id", ProductResponse::getSupplierId),
+    SUPPLIER_NAME("supplierName", "supplier_name", ProductResponse::getSupplierName),
+    SUPPLIER_CONTACT("supplierContact", "supplier_contact", ProductResponse::getSupplierContact),
+    SUPPLIER_COUNTRY("supplierCountry", "supplier_country", ProductResponse::getSupplierCountry);
+
+    private static final Map<String, ProductField> BY_NAME = Arrays.stream(values())
+            .collect(Collectors.toMap(ProductField::apiName, Function.identity()));
+
+    private final String apiName;
+    private final String column;
+    private final Function<ProductResponse, Object> accessor;
+
+    ProductField(String apiName, String column, Function<ProductResponse, Object> accessor) {
+        this.apiName = apiName;
+        this.column = column;
+        this.accessor = accessor;
+    }
+
+    public String apiName() {
+        return apiName;
+    }
+
+    public String column() {
+        return column;
+    }
+
+    public Object valueOf(ProductResponse response) {
+        return accessor.apply(response);
+    }
+
+    /**
+     * Parses a comma-separated list of field names; {@code null} or blank selects every field.
+     */
+    public static Set<ProductField> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return EnumSet.allOf(ProductField.class);
+        }
+        Set<ProductField> selected = EnumSet.noneOf(ProductField.class);
+        for (String name : fields.split(",")) {
+            selected.add(of(name.trim()));
+        }
+        return selected;
+    }
+
+    public static ProductField of(String apiName) {
+        ProductField field = BY_NAME.get(apiName);
+        if (field == null) {
+            throw new DataValidationException("Unknown product field: " + apiName);
+        }
+        return field;
+    }
+
+    public static boolean isAll(Set<ProductField> fields) {
+        return fields.size() == values().length;
+    }
+}
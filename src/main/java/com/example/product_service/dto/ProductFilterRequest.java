@@ -0,0 +1,26 @@
+package com.example.product_service.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductFilterRequest {
+
+    @NotBlank(message = "Filter field is required")
+    private String field;
+
+    @NotBlank(message = "Filter operator is required")
+    private String op;
+
+    private Object value;
+
+    private List<Object> values;
+}
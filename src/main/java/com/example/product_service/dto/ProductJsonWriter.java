@@ -0,0 +1,77 @@
+package com.example.product_service.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import org.apache.iceberg.data.Record;
+import org.apache.iceberg.types.Types;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Writes product rows straight from Iceberg records in the shape of {@link ProductResponse},
+ * limited to the selected fields. Field names are encoded once and columns are bound to record
+ * positions once per record layout, so no {@code Product} or {@code ProductResponse} is built
+ * per row. Not thread-safe; use one writer per response.
+ */
+public class ProductJsonWriter {
+
+    private final ProductField[] fields;
+    private final SerializedString[] names;
+    private final int[] positions;
+    private Types.StructType boundStruct;
+
+    public ProductJsonWriter(Set<ProductField> selected) {
+        this.fields = selected.toArray(ProductField[]::new);
+        this.names = new SerializedString[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            names[i] = new SerializedString(fields[i].apiName());
+        }
+        this.positions = new int[fields.length];
+    }
+
+    public void write(JsonGenerator generator, Record record) throws IOException {
+        if (record.struct() != boundStruct) {
+            bind(record.struct());
+        }
+        generator.writeStartObject();
+        for (int i = 0; i < fields.length; i++) {
+            generator.writeFieldName(names[i]);
+            writeValue(generator, positions[i] >= 0 ? record.get(positions[i]) : null);
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Scans of different files may add delete-filter columns to the record, so positions are
+     * looked up again whenever the layout changes.
+     */
+    private void bind(Types.StructType struct) {
+        List<Types.NestedField> columns = struct.fields();
+        for (int i = 0; i < fields.length; i++) {
+            positions[i] = -1;
+            for (int position = 0; position < columns.size(); position++) {
+                if (columns.get(position).name().equals(fields[i].column())) {
+                    positions[i] = position;
+                    break;
+                }
+            }
+        }
+        boundStruct = struct;
+    }
+
+    private static void writeValue(JsonGenerator generator, Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof Long number) {
+            generator.writeNumber(number);
+        } else if (value instanceof Double number) {
+            generator.writeNumber(number);
+        } else if (value instanceof CharSequence text) {
+            generator.writeString(text.toString());
+        } else {
+            generator.writeObject(value);
+        }
+    }
+}
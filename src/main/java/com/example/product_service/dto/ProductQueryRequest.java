@@ -0,0 +1,29 @@
+package com.example.product_service.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductQueryRequest {
+
+    @Valid
+    private List<ProductFilterRequest> filters;
+
+    private String fields;
+
+    @Positive(message = "Limit must be positive")
+    @Max(value = 10_000, message = "Limit must not exceed 10000")
+    private Integer limit;
+
+    private boolean ordered;
+}
@@ -0,0 +1,4 @@
+package com.example.product_service.repository;
+
+public record CacheStats(long size, long hits, long misses, long evictions, double hitRate, long staleReloads) {
+}
@@ -0,0 +1,8 @@
+package com.example.product_service.repository;
+
+/**
+ * Snapshots a change feed reads between. Without a start snapshot the feed is a full snapshot
+ * of {@code toSnapshotId}, which is how a consumer makes its first sync.
+ */
+public record ChangeRange(Long fromSnapshotId, long toSnapshotId) {
+}
@@ -0,0 +1,35 @@
+package com.example.product_service.repository;
+
+import org.apache.iceberg.Snapshot;
+import org.apache.iceberg.SnapshotUpdate;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Snapshot summary properties stamped on every commit made by this service instance, so
+ * snapshots committed by other instances can be told apart after a table refresh.
+ */
+public final class CommitProperties {
+
+    public static final String WRITER_ID = "product-service.writer-id";
+    public static final String INSTANCE_ID = UUID.randomUUID().toString();
+    public static final String WAL_ID = "product-service.wal-id";
+    public static final String WAL_SEQUENCE = "product-service.wal-sequence";
+
+    private CommitProperties() {
+    }
+
+    public static <T extends SnapshotUpdate<T>> T stamp(T update) {
+        return update.set(WRITER_ID, INSTANCE_ID);
+    }
+
+    public static <T extends SnapshotUpdate<T>> T stamp(T update, Map<String, String> summary) {
+        summary.forEach(update::set);
+        return stamp(update);
+    }
+
+    public static boolean isLocal(Snapshot snapshot) {
+        return INSTANCE_ID.equals(snapshot.summary().get(WRITER_ID));
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.product_service.repository;
+
+import com.example.product_service.infrastructure.exception.DataValidationException;
+
+import java.util.Arrays;
+
+public enum ExportFormat {
+
+    PARQUET("parquet", "application/zip", "zip"),
+    ARROW("arrow", "application/vnd.apache.arrow.stream", "arrows"),
+    CSV("csv", "text/csv", "csv");
+
+    private final String apiName;
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String apiName, String contentType, String extension) {
+        this.apiName = apiName;
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String apiName() {
+        return apiName;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    public static ExportFormat parse(String name) {
+        return Arrays.stream(values())
+                .filter(format -> format.apiName.equals(name))
+                .findFirst()
+                .orElseThrow(() -> new DataValidationException("Unknown export format: " + name));
+    }
+}
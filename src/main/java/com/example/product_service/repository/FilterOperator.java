@@ -0,0 +1,37 @@
+package com.example.product_service.repository;
+
+import com.example.product_service.infrastructure.exception.DataValidationException;
+
+import java.util.Arrays;
+
+public enum FilterOperator {
+
+    EQ("eq"),
+    IN("in"),
+    LT("lt"),
+    LTE("lte"),
+    GT("gt"),
+    GTE("gte"),
+    STARTS_WITH("startsWith");
+
+    private final String apiName;
+
+    FilterOperator(String apiName) {
+        this.apiName = apiName;
+    }
+
+    public String apiName() {
+        return apiName;
+    }
+
+    public boolean isRange() {
+        return this == LT || this == LTE || this == GT || this == GTE;
+    }
+
+    public static FilterOperator parse(String name) {
+        return Arrays.stream(values())
+                .filter(op -> op.apiName.equals(name))
+                .findFirst()
+                .orElseThrow(() -> new DataValidationException("Unknown filter operator: " + name));
+    }
+}
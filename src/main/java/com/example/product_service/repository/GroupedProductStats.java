@@ -0,0 +1,6 @@
+package com.example.product_service.repository;
+
+import java.util.List;
+
+public record GroupedProductStats(Long snapshotId, String groupBy, List<ProductGroupStats> groups) {
+}
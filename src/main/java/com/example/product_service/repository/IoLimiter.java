@@ -0,0 +1,86 @@
+package com.example.product_service.repository;
+
+import com.example.product_service.infrastructure.exception.DataAccessException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Caps outstanding object-store reads and table commits independently. With virtual threads
+ * the number of request threads no longer bounds I/O, so these permits are what keeps the
+ * store and the catalog from being flooded.
+ */
+@Slf4j
+@Component
+public class IoLimiter {
+
+    private final Semaphore reads;
+    private final Semaphore commits;
+
+    public IoLimiter(@Value("${iceberg.io.max-concurrent-reads:64}") int maxConcurrentReads,
+                     @Value("${iceberg.io.max-concurrent-commits:4}") int maxConcurrentCommits) {
+        this.reads = new Semaphore(maxConcurrentReads, true);
+        this.commits = new Semaphore(maxConcurrentCommits, true);
+        log.info("Configure I/O limits: reads={}, commits={}", maxConcurrentReads, maxConcurrentCommits);
+    }
+
+    /**
+     * Holds a read permit until closed. One permit covers reading one file.
+     */
+    public Permit acquireRead() {
+        return acquire(reads, "read");
+    }
+
+    public Permit acquireCommit() {
+        return acquire(commits, "commit");
+    }
+
+    private static Permit acquire(Semaphore semaphore, String kind) {
+        Permit permit = new Permit(semaphore, kind);
+        permit.reacquire();
+        return permit;
+    }
+
+    /**
+     * A held permit. A holder that blocks on something other than I/O, such as a full hand-off
+     * queue, gives the permit back meanwhile so it cannot starve the reader that would unblock it.
+     */
+    public static final class Permit implements AutoCloseable {
+
+        private final Semaphore semaphore;
+        private final String kind;
+        private boolean held;
+
+        private Permit(Semaphore semaphore, String kind) {
+            this.semaphore = semaphore;
+            this.kind = kind;
+        }
+
+        public void release() {
+            if (held) {
+                held = false;
+                semaphore.release();
+            }
+        }
+
+        public void reacquire() {
+            if (held) {
+                return;
+            }
+            try {
+                semaphore.acquire();
+                held = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DataAccessException("Interrupted while waiting for a " + kind + " permit", e);
+            }
+        }
+
+        @Override
+        public void close() {
+            release();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.product_service.repository;
+
+import java.time.Instant;
+
+public record MaintenanceReport(Instant startedAt,
+                                long durationMs,
+                                Footprint before,
+                                Footprint after,
+                                int rewrittenDataFiles,
+                                int addedDataFiles,
+                                int removedDeleteFiles,
+                                int skippedGroups,
+                                int commitConflicts,
+                                int expiredSnapshots,
+                                int orphanFilesRemoved) {
+
+    public record Footprint(long dataFiles, long deleteFiles, long bytes, int manifests, int snapshots) {
+    }
+}
@@ -0,0 +1,333 @@
+package com.example.product_service.repository;
+
+import com.example.product_service.infrastructure.exception.DataAccessException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.iceberg.CombinedScanTask;
+import org.apache.iceberg.FileScanTask;
+import org.apache.iceberg.Schema;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.data.Record;
+import org.apache.iceberg.expressions.Expression;
+import org.apache.iceberg.io.CloseableIterable;
+import org.apache.iceberg.io.CloseableIterator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decodes scan tasks on a bounded worker pool and hands the rows to the calling thread. At most
+ * {@code parallelism} tasks of one scan are in flight; each hands rows over through a bounded
+ * queue, so a slow consumer throttles the workers instead of buffering the table in memory.
+ * Ordered scans deliver tasks in plan order, unordered ones in whatever order rows arrive.
+ * With {@code parallelism} 1 tasks are read inline on the calling thread, in chunks handed over
+ * without the read permit. Workers are virtual threads when {@code spring.threads.virtual.enabled}
+ * is set, otherwise a pool of {@code pool-size} threads shared by all scans, which must exceed
+ * one scan's window so a single scan cannot occupy every worker; every file read holds an
+ * {@link IoLimiter} read permit either way. A worker that cannot hand a row over for {@code stall-timeout-ms} cancels its scan, so a
+ * client that stops reading gives its workers back and its request fails.
+ */
+@Slf4j
+@Component
+public class ParallelScanner {
+
+    private static final long OFFER_TIMEOUT_MS = 100;
+    private static final Object END_OF_TASK = new Object();
+
+    private final Table productTable;
+    private final ProductRecordReader recordReader;
+    private final IoLimiter ioLimiter;
+    private final int parallelism;
+    private final int queueCapacity;
+    private final long stallTimeoutNanos;
+    private final ExecutorService workers;
+
+    public ParallelScanner(Table productTable,
+                           ProductRecordReader recordReader,
+                           IoLimiter ioLimiter,
+                           @Value("${iceberg.scan.parallelism:8}") int parallelism,
+                           @Value("${iceberg.scan.queue-capacity:1024}") int queueCapacity,
+                           @Value("${iceberg.scan.pool-size:32}") int poolSize,
+                           @Value("${iceberg.scan.stall-timeout-ms:30000}") long stallTimeoutMs,
+                           @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.productTable = productTable;
+        this.recordReader = recordReader;
+        this.ioLimiter = ioLimiter;
+        this.parallelism = Math.max(1, parallelism);
+        this.queueCapacity = queueCapacity;
+        this.stallTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(stallTimeoutMs);
+        if (this.parallelism > 1 && !virtualThreads && poolSize <= this.parallelism) {
+            throw new IllegalArgumentException("Scan pool size (" + poolSize
+                    + ") must exceed the per-scan parallelism (" + this.parallelism + ")");
+        }
+        if (this.parallelism == 1) {
+            this.workers = null;
+        } else if (virtualThreads) {
+            this.workers = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("product-scan-", 1).factory());
+        } else {
+            AtomicInteger threadIds = new AtomicInteger();
+            this.workers = Executors.newFixedThreadPool(poolSize, runnable -> {
+                Thread thread = new Thread(runnable, "product-scan-" + threadIds.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        log.info("Configure product scans: parallelism={}, queueCapacity={}, poolSize={}, stallTimeoutMs={}, virtualThreads={}",
+                this.parallelism, queueCapacity, virtualThreads ? "unbounded" : poolSize, stallTimeoutMs, virtualThreads);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Receives scanned rows on the calling thread; {@code task} is the index of the task the row
+     * came from. Returning {@code false} stops the scan.
+     */
+    @FunctionalInterface
+    public interface RowSink {
+
+        boolean accept(int task, Record record);
+    }
+
+    /**
+     * Plans the snapshot into combined tasks of about {@code read.split.target-size} each.
+     */
+    public List<CombinedScanTask> planTasks(long snapshotId, Expression filter) {
+        try (CloseableIterable<CombinedScanTask> planned = productTable.newScan()
+                .useSnapshot(snapshotId)
+                .filter(filter)
+                .planTasks()) {
+            List<CombinedScanTask> tasks = new ArrayList<>();
+            planned.forEach(tasks::add);
+            return tasks;
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to plan product scan", e);
+        }
+    }
+
+    public void scan(List<? extends CombinedScanTask> tasks, Schema projection, boolean ordered, RowSink sink) {
+        if (workers == null || tasks.size() <= 1) {
+            scanInline(tasks, projection, sink);
+        } else if (ordered) {
+            scanOrdered(tasks, projection, sink);
+        } else {
+            scanUnordered(tasks, projection, sink);
+        }
+    }
+
+    /**
+     * Reads tasks on the calling thread, up to {@code queue-capacity} rows at a time; the read
+     * permit is given back while each chunk goes to the sink, so a slow client holds no read slot.
+     */
+    private void scanInline(List<? extends CombinedScanTask> tasks, Schema projection, RowSink sink) {
+        List<Record> chunk = new ArrayList<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            for (FileScanTask task : tasks.get(i).files()) {
+                try (IoLimiter.Permit permit = ioLimiter.acquireRead();
+                     CloseableIterable<Record> records = recordReader.open(task, projection);
+                     CloseableIterator<Record> iterator = records.iterator()) {
+                    while (iterator.hasNext()) {
+                        chunk.add(iterator.next());
+                        if (chunk.size() >= queueCapacity || !iterator.hasNext()) {
+                            permit.release();
+                            if (!deliver(i, chunk, sink)) {
+                                return;
+                            }
+                            permit.reacquire();
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new DataAccessException("Failed to read " + task.file().location(), e);
+                }
+            }
+        }
+    }
+
+    private static boolean deliver(int task, List<Record> chunk, RowSink sink) {
+        try {
+            for (Record record : chunk) {
+                if (!sink.accept(task, record)) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            chunk.clear();
+        }
+    }
+
+    private void scanOrdered(List<? extends CombinedScanTask> tasks, Schema projection, RowSink sink) {
+        ScanState state = new ScanState();
+        Deque<BlockingQueue<Object>> window = new ArrayDeque<>();
+        int next = 0;
+        try {
+            for (int current = 0; current < tasks.size(); current++) {
+                while (next < tasks.size() && window.size() < parallelism) {
+                    BlockingQueue<Object> queue = new ArrayBlockingQueue<>(queueCapacity);
+                    submit(tasks.get(next), next, projection, queue, false, state);
+                    window.add(queue);
+                    next++;
+                }
+                BlockingQueue<Object> queue = window.poll();
+                for (Object item = take(queue, state); item != END_OF_TASK; item = take(queue, state)) {
+                    if (!sink.accept(current, rethrowFailure(item))) {
+                        return;
+                    }
+                }
+            }
+        } finally {
+            state.cancelled = true;
+        }
+    }
+
+    private void scanUnordered(List<? extends CombinedScanTask> tasks, Schema projection, RowSink sink) {
+        ScanState state = new ScanState();
+        BlockingQueue<Object> queue = new ArrayBlockingQueue<>(queueCapacity);
+        int next = 0;
+        int inFlight = 0;
+        try {
+            while (next < tasks.size() && inFlight < parallelism) {
+                submit(tasks.get(next), next++, projection, queue, true, state);
+                inFlight++;
+            }
+            while (inFlight > 0) {
+                Object item = take(queue, state);
+                if (item instanceof TaskRow row) {
+                    if (!sink.accept(row.task(), row.record())) {
+                        return;
+                    }
+                } else if (item == END_OF_TASK) {
+                    inFlight--;
+                    if (next < tasks.size()) {
+                        submit(tasks.get(next), next++, projection, queue, true, state);
+                        inFlight++;
+                    }
+                } else {
+                    rethrowFailure(item);
+                }
+            }
+        } finally {
+            state.cancelled = true;
+        }
+    }
+
+    /**
+     * Reads one task on the pool. Rows of ordered scans go into the task's own queue as plain
+     * records, rows of unordered scans into the shared queue tagged with their task index.
+     */
+    private void submit(CombinedScanTask combined, int index, Schema projection,
+                        BlockingQueue<Object> queue, boolean tagged, ScanState state) {
+        workers.execute(() -> {
+            try {
+                for (FileScanTask task : combined.files()) {
+                    try (IoLimiter.Permit permit = ioLimiter.acquireRead();
+                         CloseableIterable<Record> records = recordReader.open(task, projection);
+                         CloseableIterator<Record> iterator = records.iterator()) {
+                        while (iterator.hasNext()) {
+                            Record record = iterator.next();
+                            if (!offer(queue, tagged ? new TaskRow(index, record) : record, state, permit)) {
+                                return;
+                            }
+                        }
+                    }
+                }
+                offer(queue, END_OF_TASK, state, null);
+            } catch (Exception e) {
+                offer(queue, new ScanFailure(e), state, null);
+            }
+        });
+    }
+
+    /**
+     * Hands an item over, giving the read permit back while the queue is full: ordered scans
+     * drain one task at a time, so a blocked worker holding a permit could starve the task the
+     * consumer is waiting for. Gives up and cancels the scan once the consumer has not made room
+     * for {@code stall-timeout-ms}.
+     */
+    private boolean offer(BlockingQueue<Object> queue, Object item, ScanState state, IoLimiter.Permit permit) {
+        if (queue.offer(item)) {
+            return true;
+        }
+        if (permit != null) {
+            permit.release();
+        }
+        long deadline = System.nanoTime() + stallTimeoutNanos;
+        try {
+            while (!state.cancelled) {
+                if (queue.offer(item, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    if (permit != null) {
+                        permit.reacquire();
+                    }
+                    return true;
+                }
+                if (System.nanoTime() - deadline > 0) {
+                    if (!state.stalled) {
+                        log.warn("Cancel product scan: consumer took no rows for {} ms",
+                                TimeUnit.NANOSECONDS.toMillis(stallTimeoutNanos));
+                    }
+                    state.stalled = true;
+                    state.cancelled = true;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    /**
+     * Takes the next item; once workers cancelled the scan for a stalled consumer, fails as
+     * soon as the rows they handed over are drained.
+     */
+    private Object take(BlockingQueue<Object> queue, ScanState state) {
+        try {
+            while (true) {
+                Object item = queue.poll(OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (item != null) {
+                    return item;
+                }
+                if (state.stalled) {
+                    throw new DataAccessException("Product scan cancelled: consumer stalled for more than "
+                            + TimeUnit.NANOSECONDS.toMillis(stallTimeoutNanos) + " ms");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Product scan interrupted", e);
+        }
+    }
+
+    private static Record rethrowFailure(Object item) {
+        if (item instanceof ScanFailure failure) {
+            throw new DataAccessException("Failed to scan products", failure.cause());
+        }
+        return (Record) item;
+    }
+
+    private static final class ScanState {
+
+        private volatile boolean cancelled;
+        private volatile boolean stalled;
+    }
+
+    private record TaskRow(int task, Record record) {
+    }
+
+    private record ScanFailure(Exception cause) {
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.product_service.repository;
+
+import com.example.product_service.infrastructure.exception.DataAccessException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.iceberg.DataFile;
+import org.apache.iceberg.FileScanTask;
+import org.apache.iceberg.Schema;
+import org.apache.iceberg.Snapshot;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.arrow.vectorized.ColumnVector;
+import org.apache.iceberg.arrow.vectorized.ColumnarBatch;
+import org.apache.iceberg.expressions.Expressions;
+import org.apache.iceberg.io.CloseableIterable;
+import org.apache.iceberg.types.Conversions;
+import org.apache.iceberg.types.Type;
+import org.apache.iceberg.types.Types;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Aggregates over the product table, cached per snapshot id. Count and price/amount bounds are
+ * read from data-file metrics in the manifests when the snapshot has no delete files; otherwise,
+ * and for sums, averages and groupings, a scan reads only the columns involved. That scan is
+ * columnar through {@link ProductBatchReader} unless delete files have to be applied.
+ */
+@Slf4j
+@Component
+public class ProductAggregates {
+
+    private static final String PRICE = "price";
+    private static final String AMOUNT = "amount";
+
+    private final Table productTable;
+    private final ProductWriteBuffer writeBuffer;
+    private final ParallelScanner scanner;
+    private final ProductBatchReader batchReader;
+    private final Cache<AggregateKey, Object> results;
+
+    public ProductAggregates(Table productTable,
+                             ProductWriteBuffer writeBuffer,
+                             ParallelScanner scanner,
+                             ProductBatchReader batchReader,
+                             @Value("${product.aggregates.cache-size:256}") long cacheSize) {
+        this.productTable = productTable;
+        this.writeBuffer = writeBuffer;
+        this.scanner = scanner;
+        this.batchReader = batchReader;
+        this.results = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .build();
+    }
+
+    public ProductSummary summary() {
+        writeBuffer.awaitAcknowledged();
+        Snapshot snapshot = productTable.currentSnapshot();
+        if (snapshot == null) {
+            return new ProductSummary(null, 0, null, null, null, null, "metadata");
+        }
+        return (ProductSummary) results.get(new AggregateKey(snapshot.snapshotId(), "summary"),
+                key -> summarize(snapshot));
+    }
+
+    /**
+     * Per-group count, sum, average and bounds of price and amount. {@code column} is
+     * {@code null} for a single table-wide group.
+     */
+    public GroupedProductStats groupStats(String column) {
+        writeBuffer.awaitAcknowledged();
+        Snapshot snapshot = productTable.currentSnapshot();
+        if (snapshot == null) {
+            return new GroupedProductStats(null, column, List.of());
+        }
+        return (GroupedProductStats) results.get(new AggregateKey(snapshot.snapshotId(), "groups:" + column),
+                key -> new GroupedProductStats(snapshot.snapshotId(), column, scanGroups(snapshot, column)));
+    }
+
+    private ProductSummary summarize(Snapshot snapshot) {
+        return fromMetadata(snapshot).orElseGet(() -> {
+            List<ProductGroupStats> total = scanGroups(snapshot, null);
+            if (total.isEmpty()) {
+                return new ProductSummary(snapshot.snapshotId(), 0, null, null, null, null, "scan");
+            }
+            ProductGroupStats stats = total.get(0);
+            return new ProductSummary(snapshot.snapshotId(), stats.count(), stats.minPrice(), stats.maxPrice(),
+                    stats.minAmount(), stats.maxAmount(), "scan");
+        });
+    }
+
+    private Optional<ProductSummary> fromMetadata(Snapshot snapshot) {
+        Schema schema = productTable.schema();
+        int priceId = schema.findField(PRICE).fieldId();
+        int amountId = schema.findField(AMOUNT).fieldId();
+
+        long count = 0;
+        Double minPrice = null;
+        Double maxPrice = null;
+        Long minAmount = null;
+        Long maxAmount = null;
+        try (CloseableIterable<FileScanTask> tasks = productTable.newScan()
+                .useSnapshot(snapshot.snapshotId())
+                .includeColumnStats()
+                .planFiles()) {
+            for (FileScanTask task : tasks) {
+                DataFile file = task.file();
+                if (!task.deletes().isEmpty() || file.recordCount() == 0) {
+                    if (!task.deletes().isEmpty()) {
+                        log.debug("Snapshot {} has delete files, aggregating with a scan", snapshot.snapshotId());
+                        return Optional.empty();
+                    }
+                    continue;
+                }
+                Double lowerPrice = bound(file.lowerBounds(), priceId, Types.DoubleType.get());
+                Double upperPrice = bound(file.upperBounds(), priceId, Types.DoubleType.get());
+                Long lowerAmount = bound(file.lowerBounds(), amountId, Types.LongType.get());
+                Long upperAmount = bound(file.upperBounds(), amountId, Types.LongType.get());
+                if (lowerPrice == null || upperPrice == null || lowerAmount == null || upperAmount == null) {
+                    log.debug("Data file {} has no bounds, aggregating with a scan", file.location());
+                    return Optional.empty();
+                }
+                count += file.recordCount();
+                minPrice = minPrice == null ? lowerPrice : Math.min(minPrice, lowerPrice);
+                maxPrice = maxPrice == null ? upperPrice : Math.max(maxPrice, upperPrice);
+                minAmount = minAmount == null ? lowerAmount : Math.min(minAmount, lowerAmount);
+                maxAmount = maxAmount == null ? upperAmount : Math.max(maxAmount, upperAmount);
+            }
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to plan product aggregates", e);
+        }
+        return Optional.of(new ProductSummary(snapshot.snapshotId(), count, minPrice, maxPrice,
+                minAmount, maxAmount, "metadata"));
+    }
+
+    private static <T> T bound(Map<Integer, ByteBuffer> bounds, int fieldId, Type type) {
+        if (bounds == null || !bounds.containsKey(fieldId)) {
+            return null;
+        }
+        return Conversions.fromByteBuffer(type, bounds.get(fieldId));
+    }
+
+    private List<ProductGroupStats> scanGroups(Snapshot snapshot, String column) {
+        List<String> columns = new ArrayList<>(List.of(PRICE, AMOUNT));
+        if (column != null) {
+            columns.add(column);
+        }
+        Schema projection = productTable.schema().select(columns);
+        Map<Object, GroupAccumulator> groups = column != null ? new TreeMap<>() : new HashMap<>();
+
+        boolean columnar = batchReader.read(snapshot.snapshotId(), projection,
+                batch -> foldBatch(batch, projection, column, groups));
+        if (!columnar) {
+            // Groups are folded on the calling thread, so rows may arrive in any order
+            scanner.scan(scanner.planTasks(snapshot.snapshotId(), Expressions.alwaysTrue()), projection, false,
+                    (task, record) -> {
+                        Object key = column != null ? record.getField(column) : "all";
+                        groups.computeIfAbsent(key, k -> new GroupAccumulator())
+                                .add((Double) record.getField(PRICE), (Long) record.getField(AMOUNT));
+                        return true;
+                    });
+        }
+
+        List<ProductGroupStats> stats = new ArrayList<>(groups.size());
+        groups.forEach((key, group) -> stats.add(group.toStats(column != null ? key : null)));
+        log.debug("Aggregated snapshot {} by {} into {} groups", snapshot.snapshotId(), column, stats.size());
+        return stats;
+    }
+
+    /**
+     * Folds a columnar batch without materializing rows; only group keys are boxed.
+     */
+    private static void foldBatch(ColumnarBatch batch, Schema projection, String column,
+                                  Map<Object, GroupAccumulator> groups) {
+        List<Types.NestedField> fields = projection.columns();
+        ColumnVector prices = batch.column(fields.indexOf(projection.findField(PRICE)));
+        ColumnVector amounts = batch.column(fields.indexOf(projection.findField(AMOUNT)));
+        int rows = batch.numRows();
+        if (column == null) {
+            GroupAccumulator total = groups.computeIfAbsent("all", k -> new GroupAccumulator());
+            for (int row = 0; row < rows; row++) {
+                total.add(prices.getDouble(row), amounts.getLong(row));
+            }
+            return;
+        }
+
+        Types.NestedField keyField = projection.findField(column);
+        ColumnVector keys = batch.column(fields.indexOf(keyField));
+        boolean stringKeys = keyField.type().typeId() == Type.TypeID.STRING;
+        for (int row = 0; row < rows; row++) {
+            Object key = keys.isNullAt(row) ? null : stringKeys ? keys.getString(row) : keys.getLong(row);
+            groups.computeIfAbsent(key, k -> new GroupAccumulator())
+                    .add(prices.getDouble(row), amounts.getLong(row));
+        }
+    }
+
+    private record AggregateKey(long snapshotId, String aggregate) {
+    }
+
+    private static final class GroupAccumulator {
+
+        private long count;
+        private double sumPrice;
+        private double minPrice = Double.POSITIVE_INFINITY;
+        private double maxPrice = Double.NEGATIVE_INFINITY;
+        private long sumAmount;
+        private long minAmount = Long.MAX_VALUE;
+        private long maxAmount = Long.MIN_VALUE;
+
+        void add(double price, long amount) {
+            count++;
+            sumPrice += price;
+            minPrice = Math.min(minPrice, price);
+            maxPrice = Math.max(maxPrice, price);
+            sumAmount += amount;
+            minAmount = Math.min(minAmount, amount);
+            maxAmount = Math.max(maxAmount, amount);
+        }
+
+        ProductGroupStats toStats(Object key) {
+            return new ProductGroupStats(key, count, sumPrice, sumPrice / count, minPrice, maxPrice,
+                    sumAmount, (double) sumAmount / count, minAmount, maxAmount);
+        }
+    }
+}
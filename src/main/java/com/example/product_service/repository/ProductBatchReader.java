@@ -0,0 +1,85 @@
+package com.example.product_service.repository;
+
+import com.example.product_service.infrastructure.exception.DataAccessException;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.iceberg.CombinedScanTask;
+import org.apache.iceberg.FileScanTask;
+import org.apache.iceberg.Schema;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.TableScan;
+import org.apache.iceberg.arrow.vectorized.ArrowReader;
+import org.apache.iceberg.arrow.vectorized.ColumnarBatch;
+import org.apache.iceberg.io.CloseableIterable;
+import org.apache.iceberg.io.CloseableIterator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Columnar read path over Iceberg's vectorized Arrow reader. Rows are never materialized: the
+ * consumer works on {@link ColumnarBatch}es whose columns follow the order of the projection.
+ * The vectorized reader cannot apply delete files, so snapshots whose plan carries deletes are
+ * left to the row-based readers.
+ */
+@Slf4j
+@Component
+public class ProductBatchReader {
+
+    private final Table productTable;
+    private final IoLimiter ioLimiter;
+    private final int batchSize;
+
+    public ProductBatchReader(Table productTable,
+                              IoLimiter ioLimiter,
+                              @Value("${iceberg.scan.batch-size:4096}") int batchSize) {
+        this.productTable = productTable;
+        this.ioLimiter = ioLimiter;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Hands every batch of the snapshot to the consumer. Batch buffers are reused, so a batch
+     * is only valid until the consumer returns. The read permit is held while a batch is read
+     * and given back while the consumer runs. Returns {@code false} without reading anything
+     * when a planned file has delete files.
+     */
+    public boolean read(long snapshotId, Schema projection, Consumer<ColumnarBatch> consumer) {
+        TableScan scan = productTable.newScan()
+                .useSnapshot(snapshotId)
+                .project(projection);
+
+        List<CombinedScanTask> tasks = new ArrayList<>();
+        try (CloseableIterable<CombinedScanTask> planned = scan.planTasks()) {
+            for (CombinedScanTask task : planned) {
+                for (FileScanTask file : task.files()) {
+                    if (!file.deletes().isEmpty()) {
+                        log.debug("Snapshot {} has delete files, skipping the vectorized reader", snapshotId);
+                        return false;
+                    }
+                }
+                tasks.add(task);
+            }
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to plan product scan", e);
+        }
+
+        try (IoLimiter.Permit permit = ioLimiter.acquireRead();
+             ArrowReader reader = new ArrowReader(scan, batchSize, true);
+             CloseableIterator<ColumnarBatch> batches = reader.open(CloseableIterable.withNoopClose(tasks))) {
+            while (batches.hasNext()) {
+                ColumnarBatch batch = batches.next();
+                // the consumer may be writing to a client, which must not hold up other readers
+                permit.release();
+                consumer.accept(batch);
+                permit.reacquire();
+            }
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to read product batches", e);
+        }
+        return true;
+    }
+}
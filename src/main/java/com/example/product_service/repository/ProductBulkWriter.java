@@ -0,0 +1,89 @@
+package com.example.product_service.repository;
+
+import com.example.product_service.infrastructure.exception.DataAccessException;
+import com.example.product_service.model.Product;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.iceberg.AppendFiles;
+import org.apache.iceberg.DataFile;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.data.Record;
+import org.apache.iceberg.exceptions.CommitStateUnknownException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.function.Function;
+
+/**
+ * Streams products into data files sorted by {@code product_id} and publishes all of them with a
+ * single append. Rows are sorted in runs of {@code sort-buffer-rows}, so a load larger than one
+ * run yields several sorted files whose key ranges overlap until compaction merges them.
+ * Closing a writer that was not committed deletes the files written so far, unless the append
+ * ended with an unknown outcome and may already reference them.
+ */
+@Slf4j
+public class ProductBulkWriter implements Closeable {
+
+    private final Table productTable;
+    private final SortedRunWriter writer;
+    private final Function<Product, Record> recordMapper;
+    private final Runnable onCommit;
+    private final IoLimiter ioLimiter;
+    private long rows;
+    private boolean committed;
+    private boolean outcomeUnknown;
+
+    ProductBulkWriter(Table productTable,
+                      SortedRunWriter writer,
+                      Function<Product, Record> recordMapper,
+                      Runnable onCommit,
+                      IoLimiter ioLimiter) {
+        this.productTable = productTable;
+        this.writer = writer;
+        this.recordMapper = recordMapper;
+        this.onCommit = onCommit;
+        this.ioLimiter = ioLimiter;
+    }
+
+    public void write(Product product) {
+        try {
+            writer.write(recordMapper.apply(product));
+            rows++;
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to write product: " + product.getProductId(), e);
+        }
+    }
+
+    public long commit() {
+        try {
+            DataFile[] dataFiles = writer.dataFiles();
+            if (dataFiles.length > 0) {
+                AppendFiles append = CommitProperties.stamp(productTable.newAppend());
+                for (DataFile dataFile : dataFiles) {
+                    append.appendFile(dataFile);
+                }
+                try (IoLimiter.Permit permit = ioLimiter.acquireCommit()) {
+                    append.commit();
+                } catch (CommitStateUnknownException e) {
+                    outcomeUnknown = true;
+                    throw e;
+                }
+                onCommit.run();
+            }
+            committed = true;
+            log.info("Bulk load committed {} products in {} data files", rows, dataFiles.length);
+            return rows;
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to commit bulk load", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (outcomeUnknown) {
+            log.error("Bulk load of {} products has an unknown commit outcome, keeping its data files", rows);
+        } else if (!committed) {
+            log.warn("Aborting bulk load after {} products", rows);
+            writer.abort();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.product_service.repository;
+
+import com.example.product_service.model.Product;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.iceberg.Snapshot;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.util.SnapshotUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache for product lookups (Caffeine, W-TinyLFU eviction). Each entry is
+ * tagged with the cache generation it was read at. Local writes invalidate their key directly;
+ * snapshots committed by other instances bump the generation, which turns every older entry
+ * into a miss. Whichever code path refreshes the table, the next lookup walks the snapshots
+ * added since the last check, so foreign commits are noticed before a stale entry is served.
+ */
+@Slf4j
+@Component
+public class ProductCache {
+
+    private static final int ENTRY_OVERHEAD_BYTES = 160;
+    private static final long NO_SNAPSHOT = -1L;
+
+    private final Table productTable;
+    private final boolean enabled;
+    private final Cache<Long, CachedProduct> cache;
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong staleReloads = new AtomicLong();
+    private volatile long checkedSnapshotId;
+
+    public ProductCache(Table productTable,
+                        @Value("${product.cache.enabled:true}") boolean enabled,
+                        @Value("${product.cache.max-entries:100000}") long maxEntries,
+                        @Value("${product.cache.max-bytes:0}") long maxBytes,
+                        @Value("${product.cache.ttl:10m}") Duration ttl) {
+        this.productTable = productTable;
+        this.enabled = enabled;
+
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .recordStats();
+        if (maxBytes > 0) {
+            builder.maximumWeight(maxBytes)
+                    .weigher((Long id, CachedProduct entry) -> entry.weight());
+        } else {
+            builder.maximumSize(maxEntries);
+        }
+        this.cache = builder.build();
+        this.checkedSnapshotId = currentSnapshotId();
+        log.info("Configure product cache: enabled={}, maxEntries={}, maxBytes={}, ttl={}",
+                enabled, maxEntries, maxBytes, ttl);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Optional<Product> get(Long id, Function<Long, Optional<Product>> loader) {
+        if (!enabled) {
+            return loader.apply(id);
+        }
+
+        checkForeignSnapshots();
+        CachedProduct cached = cache.asMap().get(id);
+        if (cached != null && cached.generation() != generation.get()) {
+            staleReloads.incrementAndGet();
+            cache.asMap().remove(id, cached);
+        }
+        CachedProduct entry = cache.get(id, key -> load(key, loader));
+        return Optional.ofNullable(entry.product()).map(product -> product.toBuilder().build());
+    }
+
+    public void invalidate(Long id) {
+        cache.invalidate(id);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Bumps the generation if the table moved past a snapshot this instance did not write since
+     * the last check, or to a snapshot that does not descend from the last one checked.
+     */
+    public void checkForeignSnapshots() {
+        long currentId = currentSnapshotId();
+        if (currentId == checkedSnapshotId) {
+            return;
+        }
+        synchronized (this) {
+            long checkedId = checkedSnapshotId;
+            if (currentId == checkedId) {
+                return;
+            }
+            Snapshot foreign = currentId == NO_SNAPSHOT ? null : firstForeignSnapshot(currentId, checkedId);
+            if (foreign != null || currentId == NO_SNAPSHOT) {
+                long current = generation.incrementAndGet();
+                log.debug("Snapshot {} moved product cache to generation {}",
+                        foreign != null ? foreign.snapshotId() : currentId, current);
+            }
+            checkedSnapshotId = currentId;
+        }
+    }
+
+    public CacheStats stats() {
+        com.github.benmanes.caffeine.cache.stats.CacheStats stats = cache.stats();
+        return new CacheStats(cache.estimatedSize(), stats.hitCount(), stats.missCount(),
+                stats.evictionCount(), stats.hitRate(), staleReloads.get());
+    }
+
+    /**
+     * The newest snapshot after {@code checkedId} that another instance wrote, or the current one
+     * when the history no longer runs through {@code checkedId} (a rollback).
+     */
+    private Snapshot firstForeignSnapshot(long currentId, long checkedId) {
+        if (checkedId != NO_SNAPSHOT && !SnapshotUtil.isAncestorOf(productTable, currentId, checkedId)) {
+            return productTable.snapshot(currentId);
+        }
+        Iterable<Snapshot> added = checkedId == NO_SNAPSHOT
+                ? SnapshotUtil.ancestorsOf(currentId, productTable::snapshot)
+                : SnapshotUtil.ancestorsBetween(currentId, checkedId, productTable::snapshot);
+        for (Snapshot snapshot : added) {
+            if (!CommitProperties.isLocal(snapshot)) {
+                return snapshot;
+            }
+        }
+        return null;
+    }
+
+    private long currentSnapshotId() {
+        Snapshot snapshot = productTable.currentSnapshot();
+        return snapshot != null ? snapshot.snapshotId() : NO_SNAPSHOT;
+    }
+
+    private CachedProduct load(Long id, Function<Long, Optional<Product>> loader) {
+        long readGeneration = generation.get();
+        Product product = loader.apply(id).orElse(null);
+        return new CachedProduct(readGeneration, product);
+    }
+
+    private record CachedProduct(long generation, Product product) {
+
+        int weight() {
+            if (product == null) {
+                return ENTRY_OVERHEAD_BYTES;
+            }
+            return ENTRY_OVERHEAD_BYTES + 2 * (length(product.getTitle())
+                    + length(product.getDescription())
+                    + length(product.getBrand())
+                    + length(product.getMaterial())
+                    + length(product.getColor())
+                    + length(product.getSupplierName())
+                    + length(product.getSupplierContact())
+                    + length(product.getSupplierCountry()));
+        }
+
+        private static int length(String value) {
+            return value != null ? value.length() : 0;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.product_service.repository;
+
+import org.apache.iceberg.data.Record;
+
+/**
+ * Net effect of one group-commit batch on a single product: the row to write ({@code null} for
+ * a delete) and whether rows already in the table for that key must be deleted first.
+ */
+record ProductChange(long productId, Record row, boolean replaceExisting) {
+
+    ProductChange then(ProductChange next) {
+        return new ProductChange(productId, next.row(), replaceExisting || next.replaceExisting());
+    }
+}
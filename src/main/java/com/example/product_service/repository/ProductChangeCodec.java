@@ -0,0 +1,128 @@
+package com.example.product_service.repository;
+
+import org.apache.iceberg.Schema;
+import org.apache.iceberg.data.GenericRecord;
+import org.apache.iceberg.data.Record;
+import org.apache.iceberg.types.Types;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Binary form of a {@link ProductChange} for the write-ahead log. Row values are keyed by
+ * Iceberg field id, so entries logged before a schema change still decode: dropped columns are
+ * skipped and added ones stay {@code null}.
+ */
+final class ProductChangeCodec {
+
+    private static final byte INSERT = 0;
+    private static final byte UPSERT = 1;
+    private static final byte DELETE = 2;
+
+    private static final byte NULL = 0;
+    private static final byte LONG = 1;
+    private static final byte INT = 2;
+    private static final byte DOUBLE = 3;
+    private static final byte FLOAT = 4;
+    private static final byte BOOLEAN = 5;
+    private static final byte STRING = 6;
+
+    private ProductChangeCodec() {
+    }
+
+    static byte[] encode(ProductChange change, Schema schema) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            if (change.row() == null) {
+                out.writeByte(DELETE);
+                out.writeLong(change.productId());
+                return bytes.toByteArray();
+            }
+            out.writeByte(change.replaceExisting() ? UPSERT : INSERT);
+            out.writeLong(change.productId());
+            List<Types.NestedField> columns = schema.columns();
+            out.writeShort(columns.size());
+            for (Types.NestedField column : columns) {
+                out.writeInt(column.fieldId());
+                writeValue(out, change.row().getField(column.name()));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static ProductChange decode(ByteBuffer in, Schema schema) {
+        byte op = in.get();
+        long productId = in.getLong();
+        if (op == DELETE) {
+            return new ProductChange(productId, null, true);
+        }
+        Record row = GenericRecord.create(schema);
+        int count = in.getShort();
+        for (int i = 0; i < count; i++) {
+            Types.NestedField column = schema.findField(in.getInt());
+            Object value = readValue(in);
+            if (column != null) {
+                row.setField(column.name(), value);
+            }
+        }
+        return new ProductChange(productId, row, op == UPSERT);
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        switch (value) {
+            case null -> out.writeByte(NULL);
+            case Long v -> {
+                out.writeByte(LONG);
+                out.writeLong(v);
+            }
+            case Integer v -> {
+                out.writeByte(INT);
+                out.writeInt(v);
+            }
+            case Double v -> {
+                out.writeByte(DOUBLE);
+                out.writeDouble(v);
+            }
+            case Float v -> {
+                out.writeByte(FLOAT);
+                out.writeFloat(v);
+            }
+            case Boolean v -> {
+                out.writeByte(BOOLEAN);
+                out.writeBoolean(v);
+            }
+            case String v -> {
+                byte[] utf8 = v.getBytes(StandardCharsets.UTF_8);
+                out.writeByte(STRING);
+                out.writeInt(utf8.length);
+                out.write(utf8);
+            }
+            default -> throw new IllegalArgumentException("Unsupported column value type: " + value.getClass());
+        }
+    }
+
+    private static Object readValue(ByteBuffer in) {
+        byte type = in.get();
+        return switch (type) {
+            case NULL -> null;
+            case LONG -> in.getLong();
+            case INT -> in.getInt();
+            case DOUBLE -> in.getDouble();
+            case FLOAT -> in.getFloat();
+            case BOOLEAN -> in.get() != 0;
+            case STRING -> {
+                byte[] utf8 = new byte[in.getInt()];
+                in.get(utf8);
+                yield new String(utf8, StandardCharsets.UTF_8);
+            }
+            default -> throw new IllegalArgumentException("Unknown column value type " + type);
+        };
+    }
+}
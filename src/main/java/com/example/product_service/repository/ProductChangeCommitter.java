@@ -0,0 +1,307 @@
+package com.example.product_service.repository;
+
+import com.example.product_service.infrastructure.exception.DataAccessException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.iceberg.AppendFiles;
+import org.apache.iceberg.DataFile;
+import org.apache.iceberg.DeleteFile;
+import org.apache.iceberg.FileFormat;
+import org.apache.iceberg.FileScanTask;
+import org.apache.iceberg.MetadataColumns;
+import org.apache.iceberg.OverwriteFiles;
+import org.apache.iceberg.PartitionSpec;
+import org.apache.iceberg.RowDelta;
+import org.apache.iceberg.Snapshot;
+import org.apache.iceberg.StructLike;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.TableProperties;
+import org.apache.iceberg.Transaction;
+import org.apache.iceberg.data.GenericAppenderFactory;
+import org.apache.iceberg.data.GenericRecord;
+import org.apache.iceberg.data.Record;
+import org.apache.iceberg.deletes.PositionDelete;
+import org.apache.iceberg.deletes.PositionDeleteWriter;
+import org.apache.iceberg.exceptions.CommitFailedException;
+import org.apache.iceberg.exceptions.CommitStateUnknownException;
+import org.apache.iceberg.exceptions.ValidationException;
+import org.apache.iceberg.expressions.Expression;
+import org.apache.iceberg.expressions.Expressions;
+import org.apache.iceberg.io.CloseableIterable;
+import org.apache.iceberg.io.OutputFileFactory;
+import org.apache.iceberg.io.TaskWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Commits the net changes of one write batch. Rows that an update or delete replaces are found
+ * with a scan that reads only {@code product_id} and {@code _pos}; data files whose live rows
+ * all go away are dropped whole, every other row is removed with a position delete file. The
+ * new rows and the deletes land in a single commit (a {@link RowDelta} in the common case),
+ * validated against concurrent writes to the same keys and retried on conflict.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductChangeCommitter {
+
+    private static final Comparator<Record> PRODUCT_ID_ORDER =
+            Comparator.comparing(record -> (Long) record.getField("product_id"));
+
+    private final Table productTable;
+    private final ProductFileWriterFactory writerFactory;
+    private final ProductRecordReader recordReader;
+    private final IoLimiter ioLimiter;
+
+    @Value("${iceberg.write.commit-attempts:3}")
+    private int commitAttempts;
+
+    public void commit(Collection<ProductChange> changes) {
+        commit(changes, Map.of());
+    }
+
+    /**
+     * Commits the changes with extra snapshot summary properties, such as the write-ahead log
+     * position the batch covers.
+     */
+    public void commit(Collection<ProductChange> changes, Map<String, String> summary) {
+        for (int attempt = 1; ; attempt++) {
+            WrittenFiles writtenFiles = new WrittenFiles();
+            try {
+                commitOnce(changes, summary, writtenFiles);
+                return;
+            } catch (CommitFailedException | ValidationException e) {
+                deleteQuietly(writtenFiles.paths);
+                if (attempt >= commitAttempts) {
+                    throw e;
+                }
+                log.warn("Commit conflict on attempt {}/{}, retrying: {}", attempt, commitAttempts, e.getMessage());
+                productTable.refresh();
+            } catch (CommitStateUnknownException e) {
+                // the snapshot may have landed and reference these files, so they must stay
+                log.error("Commit outcome unknown, keeping {} written files", writtenFiles.paths.size(), e);
+                throw e;
+            } catch (IOException e) {
+                deleteQuietly(writtenFiles.paths);
+                throw new DataAccessException("Failed to write product changes", e);
+            } catch (RuntimeException e) {
+                if (writtenFiles.committing) {
+                    log.error("Commit failed with an unexpected error, keeping {} written files",
+                            writtenFiles.paths.size(), e);
+                } else {
+                    deleteQuietly(writtenFiles.paths);
+                }
+                throw e;
+            }
+        }
+    }
+
+    private void commitOnce(Collection<ProductChange> changes, Map<String, String> summary,
+                            WrittenFiles writtenFiles) throws IOException {
+        Snapshot base = productTable.currentSnapshot();
+        Set<Long> replacedKeys = changes.stream()
+                .filter(ProductChange::replaceExisting)
+                .map(ProductChange::productId)
+                .collect(Collectors.toSet());
+
+        List<FileDeletes> existing = base != null && !replacedKeys.isEmpty()
+                ? locate(base.snapshotId(), replacedKeys)
+                : List.of();
+
+        List<DataFile> dataFiles = writeRows(changes);
+        dataFiles.forEach(file -> writtenFiles.paths.add(file.location()));
+
+        List<DataFile> droppedFiles = new ArrayList<>();
+        List<DeleteFile> deleteFiles = new ArrayList<>();
+        for (FileDeletes fileDeletes : existing) {
+            if (fileDeletes.coversWholeFile()) {
+                droppedFiles.add(fileDeletes.task().file());
+            } else {
+                DeleteFile deleteFile = writePositionDeletes(fileDeletes);
+                writtenFiles.paths.add(deleteFile.location());
+                deleteFiles.add(deleteFile);
+            }
+        }
+
+        if (droppedFiles.isEmpty() && deleteFiles.isEmpty()) {
+            AppendFiles append = CommitProperties.stamp(productTable.newAppend(), summary);
+            dataFiles.forEach(append::appendFile);
+            try (IoLimiter.Permit permit = ioLimiter.acquireCommit()) {
+                writtenFiles.committing = true;
+                append.commit();
+            }
+            return;
+        }
+
+        long baseId = base.snapshotId();
+        try (IoLimiter.Permit permit = ioLimiter.acquireCommit()) {
+            writtenFiles.committing = true;
+            commitRowLevel(baseId, Expressions.in("product_id", replacedKeys), summary,
+                    existing, dataFiles, droppedFiles, deleteFiles);
+        } catch (IllegalArgumentException e) {
+            // validation cannot walk back to a base snapshot that maintenance expired meanwhile
+            productTable.refresh();
+            if (productTable.snapshot(baseId) != null) {
+                throw e;
+            }
+            throw new CommitFailedException(e, "Base snapshot %s expired before commit", baseId);
+        }
+        log.debug("Committed {} product changes: {} data files, {} dropped files, {} delete files",
+                changes.size(), dataFiles.size(), droppedFiles.size(), deleteFiles.size());
+    }
+
+    private void commitRowLevel(long baseId,
+                                Expression conflictFilter,
+                                Map<String, String> summary,
+                                List<FileDeletes> existing,
+                                List<DataFile> dataFiles,
+                                List<DataFile> droppedFiles,
+                                List<DeleteFile> deleteFiles) {
+        Transaction transaction = productTable.newTransaction();
+
+        if (!droppedFiles.isEmpty()) {
+            OverwriteFiles overwrite = CommitProperties.stamp(transaction.newOverwrite(), summary)
+                    .validateFromSnapshot(baseId)
+                    .conflictDetectionFilter(conflictFilter)
+                    .validateNoConflictingData()
+                    .validateNoConflictingDeletes();
+            droppedFiles.forEach(overwrite::deleteFile);
+            if (deleteFiles.isEmpty()) {
+                dataFiles.forEach(overwrite::addFile);
+            }
+            overwrite.commit();
+        }
+
+        if (!deleteFiles.isEmpty()) {
+            RowDelta rowDelta = CommitProperties.stamp(transaction.newRowDelta(), summary)
+                    .validateFromSnapshot(baseId)
+                    .conflictDetectionFilter(conflictFilter)
+                    .validateDataFilesExist(existing.stream()
+                            .filter(fileDeletes -> !fileDeletes.coversWholeFile())
+                            .map(fileDeletes -> fileDeletes.task().file().location())
+                            .toList())
+                    .validateDeletedFiles()
+                    .validateNoConflictingDataFiles()
+                    .validateNoConflictingDeleteFiles();
+            dataFiles.forEach(rowDelta::addRows);
+            deleteFiles.forEach(rowDelta::addDeletes);
+            rowDelta.commit();
+        }
+
+        transaction.commitTransaction();
+    }
+
+    private List<FileDeletes> locate(long snapshotId, Set<Long> keys) throws IOException {
+        List<FileDeletes> result = new ArrayList<>();
+        try (CloseableIterable<FileScanTask> tasks = productTable.newScan()
+                .useSnapshot(snapshotId)
+                .filter(Expressions.in("product_id", keys))
+                .planFiles()) {
+            for (FileScanTask task : tasks) {
+                FileDeletes fileDeletes = new FileDeletes(task, new ArrayList<>());
+                try (CloseableIterable<Record> rows = recordReader.open(task, ProductRecordReader.KEY_PROJECTION)) {
+                    for (Record row : rows) {
+                        fileDeletes.rows().add(new DeletedRow(
+                                (Long) row.getField(MetadataColumns.ROW_POSITION.name()),
+                                (Long) row.getField("product_id")));
+                    }
+                }
+                if (!fileDeletes.rows().isEmpty()) {
+                    result.add(fileDeletes);
+                }
+            }
+        }
+        return result;
+    }
+
+    private List<DataFile> writeRows(Collection<ProductChange> changes) throws IOException {
+        List<Record> rows = changes.stream()
+                .map(ProductChange::row)
+                .filter(Objects::nonNull)
+                .sorted(PRODUCT_ID_ORDER)
+                .toList();
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+
+        TaskWriter<Record> writer = writerFactory.newTaskWriter(rows.size());
+        try {
+            for (Record row : rows) {
+                writer.write(row);
+            }
+            return Arrays.asList(writer.dataFiles());
+        } catch (IOException | RuntimeException e) {
+            writer.abort();
+            throw e;
+        }
+    }
+
+    private DeleteFile writePositionDeletes(FileDeletes fileDeletes) throws IOException {
+        DataFile dataFile = fileDeletes.task().file();
+        PartitionSpec spec = productTable.specs().get(dataFile.specId());
+        StructLike partition = spec.isUnpartitioned() ? null : dataFile.partition();
+        GenericAppenderFactory appenderFactory = new GenericAppenderFactory(
+                productTable.schema(), spec, null, null, ProductRecordReader.DELETE_ROW_SCHEMA)
+                .setAll(productTable.properties());
+        // untruncated file_path bounds let readers and compaction see which data file a delete file targets
+        appenderFactory.set(TableProperties.METRICS_MODE_COLUMN_CONF_PREFIX + MetadataColumns.DELETE_FILE_PATH.name(), "full");
+        OutputFileFactory fileFactory = OutputFileFactory.builderFor(productTable, dataFile.specId(), 0)
+                .format(FileFormat.PARQUET)
+                .suffix("deletes")
+                .build();
+
+        PositionDeleteWriter<Record> writer = appenderFactory.newPosDeleteWriter(
+                fileFactory.newOutputFile(spec, partition), FileFormat.PARQUET, partition);
+        PositionDelete<Record> delete = PositionDelete.create();
+        try (writer) {
+            fileDeletes.rows().sort(Comparator.comparingLong(DeletedRow::position));
+            for (DeletedRow row : fileDeletes.rows()) {
+                Record deletedRow = GenericRecord.create(ProductRecordReader.DELETE_ROW_SCHEMA);
+                deletedRow.setField("product_id", row.productId());
+                writer.write(delete.set(dataFile.location(), row.position(), deletedRow));
+            }
+        }
+        return writer.toDeleteFile();
+    }
+
+    private void deleteQuietly(List<String> paths) {
+        for (String path : paths) {
+            try {
+                productTable.io().deleteFile(path);
+            } catch (RuntimeException e) {
+                log.warn("Failed to clean up uncommitted file {}", path, e);
+            }
+        }
+    }
+
+    /**
+     * Files written for one attempt, and whether the attempt got as far as committing. Once it
+     * has, only a commit known to have failed may delete them.
+     */
+    private static final class WrittenFiles {
+
+        private final List<String> paths = new ArrayList<>();
+        private boolean committing;
+    }
+
+    private record DeletedRow(long position, long productId) {
+    }
+
+    private record FileDeletes(FileScanTask task, List<DeletedRow> rows) {
+
+        boolean coversWholeFile() {
+            return task.deletes().isEmpty() && rows.size() == task.file().recordCount();
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.product_service.repository;
+
+import com.example.product_service.infrastructure.exception.DataAccessException;
+import com.example.product_service.infrastructure.exception.DataValidationException;
+import com.example.product_service.repository.index.LongArrayList;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.iceberg.CombinedScanTask;
+import org.apache.iceberg.DataFile;
+import org.apache.iceberg.DataOperations;
+import org.apache.iceberg.DeleteFile;
+import org.apache.iceberg.FileContent;
+import org.apache.iceberg.Schema;
+import org.apache.iceberg.Snapshot;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.data.Record;
+import org.apache.iceberg.expressions.Expression;
+import org.apache.iceberg.expressions.Expressions;
+import org.apache.iceberg.io.CloseableIterable;
+import org.apache.iceberg.util.SnapshotUtil;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Net product changes between two snapshots of the table.
+ *
+ * <p>When every snapshot in the range is an append, the rows are read straight from an
+ * incremental append scan. Otherwise the range holds updates or deletes, which this table
+ * writes as position deletes and dropped files; Iceberg's changelog scan does not support delete
+ * files yet, so the keys touched by each snapshot are collected from its added and removed data
+ * files and its delete files instead, and those keys are then read as of the end snapshot.
+ * Compaction ({@code replace}) snapshots change no rows and are skipped.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductChangeFeed {
+
+    private static final int KEY_BATCH_SIZE = 1000;
+
+    private final Table productTable;
+    private final ParallelScanner scanner;
+    private final ProductRecordReader recordReader;
+    private final IoLimiter ioLimiter;
+
+    /**
+     * Checks the requested snapshots; the end defaults to the current snapshot. Returns
+     * {@code null} while the table has no snapshot at all.
+     */
+    public ChangeRange resolve(Long fromSnapshotId, Long toSnapshotId) {
+        Snapshot to = toSnapshotId != null ? snapshot(toSnapshotId) : productTable.currentSnapshot();
+        if (to == null) {
+            if (fromSnapshotId != null) {
+                snapshot(fromSnapshotId);
+            }
+            return null;
+        }
+        if (fromSnapshotId != null) {
+            snapshot(fromSnapshotId);
+            if (!SnapshotUtil.isAncestorOf(productTable, to.snapshotId(), fromSnapshotId)) {
+                throw new DataValidationException("Snapshot " + fromSnapshotId + " is not an ancestor of snapshot "
+                        + to.snapshotId());
+            }
+        }
+        return new ChangeRange(fromSnapshotId, to.snapshotId());
+    }
+
+    public void read(ChangeRange range, Schema projection, ProductChangeListener listener) {
+        if (range.fromSnapshotId() == null) {
+            List<CombinedScanTask> tasks = scanner.planTasks(range.toSnapshotId(), Expressions.alwaysTrue());
+            scanner.scan(tasks, projection, false, (task, record) -> {
+                listener.upsert(record);
+                return true;
+            });
+            return;
+        }
+        if (range.fromSnapshotId() == range.toSnapshotId()) {
+            return;
+        }
+
+        List<Snapshot> snapshots = new ArrayList<>();
+        SnapshotUtil.ancestorsBetween(range.toSnapshotId(), range.fromSnapshotId(), productTable::snapshot)
+                .forEach(snapshots::add);
+        if (snapshots.stream().allMatch(snapshot -> DataOperations.APPEND.equals(snapshot.operation()))) {
+            readAppends(range, projection, listener);
+            return;
+        }
+
+        long[] keys = changedKeys(snapshots);
+        log.debug("Change feed {} touches {} products in {} snapshots", range, keys.length, snapshots.size());
+        for (int start = 0; start < keys.length; start += KEY_BATCH_SIZE) {
+            readKeys(range.toSnapshotId(), Arrays.copyOfRange(keys, start, Math.min(keys.length, start + KEY_BATCH_SIZE)),
+                    projection, listener);
+        }
+    }
+
+    private void readAppends(ChangeRange range, Schema projection, ProductChangeListener listener) {
+        List<CombinedScanTask> tasks = new ArrayList<>();
+        try (CloseableIterable<CombinedScanTask> planned = productTable.newIncrementalAppendScan()
+                .fromSnapshotExclusive(range.fromSnapshotId())
+                .toSnapshot(range.toSnapshotId())
+                .project(projection)
+                .planTasks()) {
+            planned.forEach(tasks::add);
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to plan incremental product scan", e);
+        }
+        scanner.scan(tasks, projection, false, (task, record) -> {
+            listener.upsert(record);
+            return true;
+        });
+    }
+
+    /**
+     * Sorted, distinct ids of every product a row-level snapshot in the range wrote, replaced
+     * or deleted.
+     */
+    private long[] changedKeys(List<Snapshot> snapshots) {
+        LongArrayList keys = new LongArrayList();
+        for (Snapshot snapshot : snapshots) {
+            if (DataOperations.REPLACE.equals(snapshot.operation())) {
+                continue;
+            }
+            for (DataFile file : snapshot.addedDataFiles(productTable.io())) {
+                readKeys(file.location(), keys);
+            }
+            for (DataFile file : snapshot.removedDataFiles(productTable.io())) {
+                readKeys(file.location(), keys);
+            }
+            for (DeleteFile file : snapshot.addedDeleteFiles(productTable.io())) {
+                if (file.content() == FileContent.POSITION_DELETES) {
+                    readDeletedKeys(file, keys);
+                } else {
+                    readKeys(file.location(), keys);
+                }
+            }
+        }
+
+        long[] sorted = keys.toArray();
+        Arrays.sort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, distinct);
+    }
+
+    private void readKeys(String path, LongArrayList keys) {
+        try (IoLimiter.Permit permit = ioLimiter.acquireRead();
+             CloseableIterable<Record> records = recordReader.openFile(path, ProductRecordReader.DELETE_ROW_SCHEMA,
+                     Expressions.alwaysTrue())) {
+            for (Record record : records) {
+                keys.add((Long) record.getField("product_id"));
+            }
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to read product ids from " + path, e);
+        }
+    }
+
+    private void readDeletedKeys(DeleteFile file, LongArrayList keys) {
+        try (IoLimiter.Permit permit = ioLimiter.acquireRead();
+             CloseableIterable<Record> deletes = recordReader.openPositionDeletes(file)) {
+            for (Record delete : deletes) {
+                Record row = (Record) delete.getField("row");
+                keys.add((Long) row.getField("product_id"));
+            }
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to read position deletes from " + file.location(), e);
+        }
+    }
+
+    private void readKeys(long snapshotId, long[] keys, Schema projection, ProductChangeListener listener) {
+        Expression filter = Expressions.in("product_id", Arrays.stream(keys).boxed().toArray());
+        boolean[] found = new boolean[keys.length];
+        scanner.scan(scanner.planTasks(snapshotId, filter), projection, false, (task, record) -> {
+            found[Arrays.binarySearch(keys, (Long) record.getField("product_id"))] = true;
+            listener.upsert(record);
+            return true;
+        });
+        for (int i = 0; i < keys.length; i++) {
+            if (!found[i]) {
+                listener.delete(keys[i]);
+            }
+        }
+    }
+
+    private Snapshot snapshot(long snapshotId) {
+        Snapshot snapshot = productTable.snapshot(snapshotId);
+        if (snapshot == null) {
+            throw new DataValidationException("Snapshot is no longer available: " + snapshotId);
+        }
+        return snapshot;
+    }
+}
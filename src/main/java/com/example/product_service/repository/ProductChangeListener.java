@@ -0,0 +1,14 @@
+package com.example.product_service.repository;
+
+import org.apache.iceberg.data.Record;
+
+/**
+ * Receives the net changes of a change feed: the row as of the end snapshot of every product
+ * inserted or updated in the range, and the id of every product that no longer exists.
+ */
+public interface ProductChangeListener {
+
+    void upsert(Record row);
+
+    void delete(long productId);
+}
@@ -0,0 +1,521 @@
+package com.example.product_service.repository;
+
+import com.example.product_service.config.ParquetWriterProfile;
+import com.example.product_service.infrastructure.exception.DataAccessException;
+import com.example.product_service.repository.io.CachingFileIO;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorLoader;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.VectorUnloader;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
+import org.apache.iceberg.BaseCombinedScanTask;
+import org.apache.iceberg.CombinedScanTask;
+import org.apache.iceberg.DataFile;
+import org.apache.iceberg.FileScanTask;
+import org.apache.iceberg.Schema;
+import org.apache.iceberg.Snapshot;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.TableProperties;
+import org.apache.iceberg.arrow.ArrowAllocation;
+import org.apache.iceberg.arrow.ArrowSchemaUtil;
+import org.apache.iceberg.data.Record;
+import org.apache.iceberg.expressions.Expression;
+import org.apache.iceberg.expressions.Expressions;
+import org.apache.iceberg.io.CloseableIterable;
+import org.apache.iceberg.io.FileIO;
+import org.apache.iceberg.io.InputFile;
+import org.apache.iceberg.io.SeekableInputStream;
+import org.apache.iceberg.parquet.ParquetSchemaUtil;
+import org.apache.iceberg.types.Types;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.SimpleGroup;
+import org.apache.parquet.hadoop.ParquetFileWriter;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.example.ExampleParquetWriter;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.io.OutputFile;
+import org.apache.parquet.io.PositionOutputStream;
+import org.apache.parquet.schema.MessageType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes a snapshot of the product table to a stream in bulk:
+ * <ul>
+ *   <li>{@code parquet} is a zip of Parquet files. Without filters or projection, data files
+ *       that no delete file touches are copied byte for byte from the store; the live rows of
+ *       the rest are re-encoded into one more file as the scan runs.</li>
+ *   <li>{@code arrow} is an Arrow IPC stream of record batches. Unfiltered scans without delete
+ *       files hand the vectorized reader's batches over as they are; everything else is encoded
+ *       from rows.</li>
+ *   <li>{@code csv} has a header line with the column names and RFC 4180 quoting.</li>
+ * </ul>
+ * Memory stays bounded by the copy buffer, one Arrow batch or one Parquet row group, and the
+ * scanner's hand-off queues. Output is flushed to the client as each buffer fills.
+ */
+@Slf4j
+@Component
+public class ProductExporter {
+
+    private static final String ZSTD_LEVEL = "parquet.compression.codec.zstd.level";
+
+    private final Table productTable;
+    private final ParallelScanner scanner;
+    private final ProductBatchReader batchReader;
+    private final IoLimiter ioLimiter;
+    private final int bufferBytes;
+    private final int batchSize;
+    private final long parquetRowGroupBytes;
+
+    public ProductExporter(Table productTable,
+                           ParallelScanner scanner,
+                           ProductBatchReader batchReader,
+                           IoLimiter ioLimiter,
+                           @Value("${product.export.buffer-bytes:1048576}") int bufferBytes,
+                           @Value("${iceberg.scan.batch-size:4096}") int batchSize,
+                           @Value("${product.export.parquet-row-group-bytes:33554432}") long parquetRowGroupBytes) {
+        this.productTable = productTable;
+        this.scanner = scanner;
+        this.batchReader = batchReader;
+        this.ioLimiter = ioLimiter;
+        this.bufferBytes = bufferBytes;
+        this.batchSize = batchSize;
+        this.parquetRowGroupBytes = parquetRowGroupBytes;
+    }
+
+    /**
+     * Writes the rows of the snapshot that match the filter, reading only the projected
+     * columns. The stream is left open.
+     */
+    public void export(ExportFormat format, Snapshot snapshot, Expression filter, Schema projection,
+                       OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        switch (format) {
+            case PARQUET -> writeParquet(snapshot, filter, projection, out);
+            case ARROW -> writeArrow(snapshot, filter, projection, out);
+            case CSV -> writeCsv(snapshot, filter, projection, out);
+        }
+        log.debug("Exported snapshot {} as {} with filter {} in {} ms", snapshot != null ? snapshot.snapshotId() : null,
+                format.apiName(), filter, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void writeParquet(Snapshot snapshot, Expression filter, Schema projection,
+                              OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(new NonClosingOutputStream(out));
+        zip.setLevel(Deflater.NO_COMPRESSION);
+        boolean copyFiles = isAlwaysTrue(filter) && projection.sameSchema(productTable.schema());
+
+        int part = 0;
+        List<CombinedScanTask> reencode = new ArrayList<>();
+        for (FileScanTask task : planFiles(snapshot, filter)) {
+            if (copyFiles && task.deletes().isEmpty()) {
+                zip.putNextEntry(new ZipEntry(partName(part++)));
+                copy(task.file(), zip);
+                zip.closeEntry();
+            } else {
+                reencode.add(new BaseCombinedScanTask(task));
+            }
+        }
+
+        if (!reencode.isEmpty()) {
+            zip.putNextEntry(new ZipEntry(partName(part)));
+            MessageType parquetSchema = ParquetSchemaUtil.convert(projection, "table");
+            try (ParquetWriter<Group> writer = parquetPartWriter(new ZipEntryOutputFile(zip, partName(part)), parquetSchema)) {
+                RowBinding binding = new RowBinding(projection);
+                List<Types.NestedField> columns = projection.columns();
+                scanner.scan(reencode, projection, false, (task, record) -> {
+                    int[] positions = binding.bind(record);
+                    Group row = new SimpleGroup(parquetSchema);
+                    for (int i = 0; i < positions.length; i++) {
+                        addValue(row, i, columns.get(i), record.get(positions[i]));
+                    }
+                    try {
+                        writer.write(row);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return true;
+                });
+            }
+            zip.closeEntry();
+        }
+        zip.finish();
+        zip.flush();
+    }
+
+    /**
+     * Copies a data file through the uncached store. The read permit is given back while the
+     * client drains each buffer, so a slow client does not hold up other readers.
+     */
+    private void copy(DataFile file, OutputStream out) throws IOException {
+        FileIO io = productTable.io() instanceof CachingFileIO caching ? caching.delegate() : productTable.io();
+        InputFile input = io.newInputFile(file.location(), file.fileSizeInBytes());
+        byte[] buffer = new byte[bufferBytes];
+        try (IoLimiter.Permit permit = ioLimiter.acquireRead();
+             SeekableInputStream in = input.newStream()) {
+            int read;
+            while ((read = in.readNBytes(buffer, 0, buffer.length)) > 0) {
+                permit.release();
+                out.write(buffer, 0, read);
+                permit.reacquire();
+            }
+        }
+    }
+
+    /**
+     * A Parquet writer for a re-encoded part, with the table's codec, page and dictionary
+     * settings. Bloom filters are left out; they only pay off for point lookups on the table
+     * itself.
+     */
+    private ParquetWriter<Group> parquetPartWriter(ZipEntryOutputFile file, MessageType schema) throws IOException {
+        Map<String, String> properties = productTable.properties();
+        String codec = properties.getOrDefault(TableProperties.PARQUET_COMPRESSION,
+                TableProperties.PARQUET_COMPRESSION_DEFAULT);
+        ExampleParquetWriter.Builder builder = ExampleParquetWriter.builder(file)
+                .withType(schema)
+                .withWriteMode(ParquetFileWriter.Mode.OVERWRITE)
+                .withCompressionCodec(CompressionCodecName.fromConf(codec))
+                .withRowGroupSize(parquetRowGroupBytes)
+                .withPageSize(Integer.parseInt(properties.getOrDefault(TableProperties.PARQUET_PAGE_SIZE_BYTES,
+                        String.valueOf(TableProperties.PARQUET_PAGE_SIZE_BYTES_DEFAULT))))
+                .withDictionaryPageSize(Integer.parseInt(properties.getOrDefault(TableProperties.PARQUET_DICT_SIZE_BYTES,
+                        String.valueOf(TableProperties.PARQUET_DICT_SIZE_BYTES_DEFAULT))))
+                .withDictionaryEncoding(Boolean.parseBoolean(properties.getOrDefault(ParquetWriterProfile.DICTIONARY_ENABLED, "true")));
+        String level = properties.get(TableProperties.PARQUET_COMPRESSION_LEVEL);
+        if (level != null && "zstd".equalsIgnoreCase(codec)) {
+            builder.config(ZSTD_LEVEL, level);
+        }
+        return builder.build();
+    }
+
+    private static void addValue(Group row, int column, Types.NestedField field, Object value) {
+        if (value == null) {
+            return;
+        }
+        switch (field.type().typeId()) {
+            case LONG -> row.add(column, (Long) value);
+            case INTEGER -> row.add(column, (Integer) value);
+            case DOUBLE -> row.add(column, (Double) value);
+            case STRING -> row.add(column, value.toString());
+            default -> throw new IllegalStateException("Cannot export column " + field.name()
+                    + " of type " + field.type());
+        }
+    }
+
+    private void writeArrow(Snapshot snapshot, Expression filter, Schema projection,
+                            OutputStream out) throws IOException {
+        try (BufferAllocator allocator = ArrowAllocation.rootAllocator()
+                .newChildAllocator("product-export", 0, Long.MAX_VALUE);
+             VectorSchemaRoot root = VectorSchemaRoot.create(ArrowSchemaUtil.convert(projection), allocator);
+             ArrowStreamWriter writer = new ArrowStreamWriter(root, null, Channels.newChannel(new NonClosingOutputStream(out)))) {
+            writer.start();
+            if (snapshot != null) {
+                VectorLoader loader = new VectorLoader(root);
+                boolean vectorized = isAlwaysTrue(filter) && batchReader.read(snapshot.snapshotId(), projection, batch -> {
+                    try (ArrowRecordBatch recordBatch = new VectorUnloader(batch.createVectorSchemaRootFromVectors())
+                            .getRecordBatch()) {
+                        loader.load(recordBatch);
+                        writer.writeBatch();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                if (!vectorized) {
+                    writeArrowRows(snapshot, filter, projection, root, writer);
+                }
+            }
+            writer.end();
+        }
+    }
+
+    private void writeArrowRows(Snapshot snapshot, Expression filter, Schema projection,
+                                VectorSchemaRoot root, ArrowStreamWriter writer) {
+        RowBinding binding = new RowBinding(projection);
+        List<FieldVector> vectors = root.getFieldVectors();
+        int[] rows = {0};
+        root.allocateNew();
+        scanner.scan(scanner.planTasks(snapshot.snapshotId(), filter), projection, false, (task, record) -> {
+            int[] positions = binding.bind(record);
+            for (int i = 0; i < positions.length; i++) {
+                setValue(vectors.get(i), rows[0], record.get(positions[i]));
+            }
+            if (++rows[0] == batchSize) {
+                writeArrowBatch(root, writer, rows[0]);
+                rows[0] = 0;
+            }
+            return true;
+        });
+        if (rows[0] > 0) {
+            writeArrowBatch(root, writer, rows[0]);
+        }
+    }
+
+    private static void writeArrowBatch(VectorSchemaRoot root, ArrowStreamWriter writer, int rows) {
+        root.setRowCount(rows);
+        try {
+            writer.writeBatch();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        root.allocateNew();
+    }
+
+    private static void setValue(FieldVector vector, int row, Object value) {
+        switch (vector) {
+            case BigIntVector longs -> {
+                if (value == null) {
+                    longs.setNull(row);
+                } else {
+                    longs.setSafe(row, (Long) value);
+                }
+            }
+            case Float8Vector doubles -> {
+                if (value == null) {
+                    doubles.setNull(row);
+                } else {
+                    doubles.setSafe(row, (Double) value);
+                }
+            }
+            case IntVector ints -> {
+                if (value == null) {
+                    ints.setNull(row);
+                } else {
+                    ints.setSafe(row, (Integer) value);
+                }
+            }
+            case VarCharVector strings -> {
+                if (value == null) {
+                    strings.setNull(row);
+                } else {
+                    strings.setSafe(row, value.toString().getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            default -> throw new IllegalStateException("Cannot export column " + vector.getName()
+                    + " of type " + vector.getMinorType());
+        }
+    }
+
+    private void writeCsv(Snapshot snapshot, Expression filter, Schema projection,
+                          OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(
+                new OutputStreamWriter(new NonClosingOutputStream(out), StandardCharsets.UTF_8), bufferBytes);
+        List<Types.NestedField> columns = projection.columns();
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeCsvValue(writer, columns.get(i).name());
+        }
+        writer.write("\r\n");
+
+        if (snapshot != null) {
+            RowBinding binding = new RowBinding(projection);
+            scanner.scan(scanner.planTasks(snapshot.snapshotId(), filter), projection, false, (task, record) -> {
+                int[] positions = binding.bind(record);
+                try {
+                    for (int i = 0; i < positions.length; i++) {
+                        if (i > 0) {
+                            writer.write(',');
+                        }
+                        Object value = record.get(positions[i]);
+                        if (value != null) {
+                            writeCsvValue(writer, value.toString());
+                        }
+                    }
+                    writer.write("\r\n");
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return true;
+            });
+        }
+        writer.flush();
+    }
+
+    private static void writeCsvValue(Writer writer, String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private List<FileScanTask> planFiles(Snapshot snapshot, Expression filter) {
+        if (snapshot == null) {
+            return List.of();
+        }
+        try (CloseableIterable<FileScanTask> planned = productTable.newScan()
+                .useSnapshot(snapshot.snapshotId())
+                .filter(filter)
+                .planFiles()) {
+            List<FileScanTask> tasks = new ArrayList<>();
+            planned.forEach(tasks::add);
+            return tasks;
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to plan product export", e);
+        }
+    }
+
+    private static boolean isAlwaysTrue(Expression filter) {
+        return filter.op() == Expressions.alwaysTrue().op();
+    }
+
+    private static String partName(int part) {
+        return String.format("products/part-%05d.parquet", part);
+    }
+
+    /**
+     * Positions of the projected columns in a scanned record. Scans of different files may add
+     * delete-filter columns, so positions are looked up again whenever the layout changes.
+     */
+    private static final class RowBinding {
+
+        private final List<Types.NestedField> columns;
+        private final int[] positions;
+        private Types.StructType bound;
+
+        RowBinding(Schema projection) {
+            this.columns = projection.columns();
+            this.positions = new int[columns.size()];
+        }
+
+        int[] bind(Record record) {
+            if (record.struct() != bound) {
+                List<Types.NestedField> fields = record.struct().fields();
+                for (int i = 0; i < columns.size(); i++) {
+                    positions[i] = -1;
+                    for (int position = 0; position < fields.size(); position++) {
+                        if (fields.get(position).fieldId() == columns.get(i).fieldId()) {
+                            positions[i] = position;
+                            break;
+                        }
+                    }
+                    if (positions[i] < 0) {
+                        throw new IllegalStateException("Scanned record has no column " + columns.get(i).name());
+                    }
+                }
+                bound = record.struct();
+            }
+            return positions;
+        }
+    }
+
+    /**
+     * Hands a Parquet writer the current zip entry as its file. Closing the writer flushes the
+     * entry but leaves the zip open for the next one.
+     */
+    private static final class ZipEntryOutputFile implements OutputFile {
+
+        private final OutputStream out;
+        private final String path;
+
+        ZipEntryOutputFile(OutputStream out, String path) {
+            this.out = out;
+            this.path = path;
+        }
+
+        @Override
+        public PositionOutputStream create(long blockSizeHint) {
+            return new PositionOutputStream() {
+                private long position;
+
+                @Override
+                public long getPos() {
+                    return position;
+                }
+
+                @Override
+                public void write(int b) throws IOException {
+                    out.write(b);
+                    position++;
+                }
+
+                @Override
+                public void write(byte[] bytes, int offset, int length) throws IOException {
+                    out.write(bytes, offset, length);
+                    position += length;
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    out.flush();
+                }
+
+                @Override
+                public void close() throws IOException {
+                    out.flush();
+                }
+            };
+        }
+
+        @Override
+        public PositionOutputStream createOrOverwrite(long blockSizeHint) {
+            return create(blockSizeHint);
+        }
+
+        @Override
+        public boolean supportsBlockSize() {
+            return false;
+        }
+
+        @Override
+        public long defaultBlockSize() {
+            return 0;
+        }
+
+        @Override
+        public String getPath() {
+            return path;
+        }
+    }
+
+    /**
+     * Keeps the response stream open when a format's writer closes its own stream.
+     */
+    private static final class NonClosingOutputStream extends FilterOutputStream {
+
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            out.write(bytes, offset, length);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+}
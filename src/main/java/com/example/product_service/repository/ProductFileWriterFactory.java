@@ -0,0 +1,107 @@
+package com.example.product_service.repository;
+
+import org.apache.iceberg.FileFormat;
+import org.apache.iceberg.PartitionKey;
+import org.apache.iceberg.PartitionSpec;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.TableProperties;
+import org.apache.iceberg.data.GenericAppenderFactory;
+import org.apache.iceberg.data.InternalRecordWrapper;
+import org.apache.iceberg.data.Record;
+import org.apache.iceberg.io.OutputFileFactory;
+import org.apache.iceberg.io.PartitionedFanoutWriter;
+import org.apache.iceberg.io.TaskWriter;
+import org.apache.iceberg.io.UnpartitionedWriter;
+import org.apache.iceberg.util.PropertyUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates rolling Parquet task writers for the product table. Each writer follows the table's
+ * current partition spec and starts a new file once the open one reaches the target size.
+ * Format settings come from the table properties.
+ */
+@Component
+public class ProductFileWriterFactory {
+
+    private static final long MIN_BLOOM_FILTER_BYTES = 32;
+
+    private final Table productTable;
+    private final long targetFileSizeBytes;
+    private final int sortBufferRows;
+    private final AtomicInteger writerIds = new AtomicInteger();
+
+    public ProductFileWriterFactory(Table productTable,
+                                    @Value("${iceberg.write.target-file-size-bytes:134217728}") long targetFileSizeBytes,
+                                    @Value("${iceberg.write.sort-buffer-rows:200000}") int sortBufferRows) {
+        this.productTable = productTable;
+        this.targetFileSizeBytes = targetFileSizeBytes;
+        this.sortBufferRows = sortBufferRows;
+    }
+
+    /**
+     * A writer for rows in no particular order, which sorts them by {@code product_id} in runs
+     * of up to {@code sort-buffer-rows}.
+     */
+    public SortedRunWriter newSortedRunWriter() {
+        return new SortedRunWriter(this, productTable.io(), sortBufferRows);
+    }
+
+    /**
+     * A writer for at most about {@code expectedRows} rows. Parquet allocates every bloom filter
+     * at the configured maximum size, which would dwarf the small files of a group commit, so
+     * the filters are sized for the expected row count instead.
+     */
+    public TaskWriter<Record> newTaskWriter(long expectedRows) {
+        PartitionSpec spec = productTable.spec();
+        Map<String, String> properties = productTable.properties();
+        GenericAppenderFactory appenderFactory = new GenericAppenderFactory(productTable.schema(), spec)
+                .setAll(properties)
+                .set(TableProperties.PARQUET_BLOOM_FILTER_MAX_BYTES,
+                        String.valueOf(bloomFilterBytes(properties, expectedRows)));
+        OutputFileFactory fileFactory = OutputFileFactory.builderFor(productTable, 0, writerIds.incrementAndGet())
+                .format(FileFormat.PARQUET)
+                .build();
+
+        if (spec.isUnpartitioned()) {
+            return new UnpartitionedWriter<>(spec, FileFormat.PARQUET, appenderFactory,
+                    fileFactory, productTable.io(), targetFileSizeBytes);
+        }
+        return new PartitionedRecordWriter(spec, appenderFactory, fileFactory);
+    }
+
+    private static long bloomFilterBytes(Map<String, String> properties, long expectedRows) {
+        long maxBytes = PropertyUtil.propertyAsLong(properties, TableProperties.PARQUET_BLOOM_FILTER_MAX_BYTES,
+                TableProperties.PARQUET_BLOOM_FILTER_MAX_BYTES_DEFAULT);
+        double fpp = properties.entrySet().stream()
+                .filter(property -> property.getKey().startsWith(TableProperties.PARQUET_BLOOM_FILTER_COLUMN_FPP_PREFIX))
+                .mapToDouble(property -> Double.parseDouble(property.getValue()))
+                .min()
+                .orElse(TableProperties.PARQUET_BLOOM_FILTER_COLUMN_FPP_DEFAULT);
+        double bits = expectedRows * -Math.log(fpp) / (Math.log(2) * Math.log(2));
+        return Math.max(MIN_BLOOM_FILTER_BYTES, Math.min(maxBytes, (long) Math.ceil(bits / Byte.SIZE)));
+    }
+
+    private class PartitionedRecordWriter extends PartitionedFanoutWriter<Record> {
+
+        private final PartitionKey partitionKey;
+        private final InternalRecordWrapper wrapper;
+
+        PartitionedRecordWriter(PartitionSpec spec,
+                                GenericAppenderFactory appenderFactory,
+                                OutputFileFactory fileFactory) {
+            super(spec, FileFormat.PARQUET, appenderFactory, fileFactory, productTable.io(), targetFileSizeBytes);
+            this.partitionKey = new PartitionKey(spec, productTable.schema());
+            this.wrapper = new InternalRecordWrapper(productTable.schema().asStruct());
+        }
+
+        @Override
+        protected PartitionKey partition(Record record) {
+            partitionKey.partition(wrapper.wrap(record));
+            return partitionKey;
+        }
+    }
+}
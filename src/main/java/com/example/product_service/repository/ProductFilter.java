@@ -0,0 +1,69 @@
+package com.example.product_service.repository;
+
+import com.example.product_service.infrastructure.exception.DataValidationException;
+import org.apache.iceberg.Schema;
+import org.apache.iceberg.expressions.Expression;
+import org.apache.iceberg.expressions.Expressions;
+import org.apache.iceberg.types.Type;
+import org.apache.iceberg.types.Types;
+
+import java.util.List;
+
+/**
+ * One typed predicate on a product column. Values are coerced to the column type before they
+ * become an Iceberg expression, so a bad value fails the request instead of the scan.
+ */
+public record ProductFilter(String column, FilterOperator operator, List<Object> values) {
+
+    Expression toExpression(Schema schema) {
+        Types.NestedField field = schema.findField(column);
+        if (field == null) {
+            throw new DataValidationException("Unknown column: " + column);
+        }
+        Type.TypeID type = field.type().typeId();
+        if (operator.isRange() && type == Type.TypeID.STRING) {
+            throw new DataValidationException("Range filters are not supported on " + column);
+        }
+        if (operator == FilterOperator.STARTS_WITH && type != Type.TypeID.STRING) {
+            throw new DataValidationException("startsWith is only supported on text fields, not " + column);
+        }
+        if (values == null || values.isEmpty() || (operator != FilterOperator.IN && values.size() != 1)) {
+            throw new DataValidationException("Filter " + operator.apiName() + " on " + column
+                    + (operator == FilterOperator.IN ? " needs at least one value" : " needs exactly one value"));
+        }
+
+        List<Object> literals = values.stream()
+                .map(value -> coerce(value, type))
+                .toList();
+        Object value = literals.get(0);
+        return switch (operator) {
+            case EQ -> Expressions.equal(column, value);
+            case IN -> Expressions.in(column, literals);
+            case LT -> Expressions.lessThan(column, value);
+            case LTE -> Expressions.lessThanOrEqual(column, value);
+            case GT -> Expressions.greaterThan(column, value);
+            case GTE -> Expressions.greaterThanOrEqual(column, value);
+            case STARTS_WITH -> Expressions.startsWith(column, (String) value);
+        };
+    }
+
+    private Object coerce(Object value, Type.TypeID type) {
+        if (value == null) {
+            throw new DataValidationException("Filter " + operator.apiName() + " on " + column + " does not accept null");
+        }
+        try {
+            return switch (type) {
+                case LONG -> value instanceof Number number && number.doubleValue() == number.longValue()
+                        ? number.longValue()
+                        : Long.parseLong((String) value);
+                case DOUBLE -> value instanceof Number number
+                        ? number.doubleValue()
+                        : Double.parseDouble((String) value);
+                case STRING -> (String) value;
+                default -> throw new DataValidationException("Filtering on " + column + " is not supported");
+            };
+        } catch (ClassCastException | NumberFormatException e) {
+            throw new DataValidationException("Invalid value for " + column + ": " + value, e);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.product_service.repository;
+
+public record ProductGroupStats(Object key,
+                                long count,
+                                double sumPrice,
+                                double avgPrice,
+                                double minPrice,
+                                double maxPrice,
+                                long sumAmount,
+                                double avgAmount,
+                                long minAmount,
+                                long maxAmount) {
+}
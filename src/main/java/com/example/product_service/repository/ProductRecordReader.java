@@ -0,0 +1,125 @@
+package com.example.product_service.repository;
+
+import com.example.product_service.infrastructure.exception.DataAccessException;
+import com.example.product_service.repository.index.RowLocation;
+import lombok.RequiredArgsConstructor;
+import org.apache.iceberg.DeleteFile;
+import org.apache.iceberg.FileScanTask;
+import org.apache.iceberg.MetadataColumns;
+import org.apache.iceberg.Schema;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.data.DeleteFilter;
+import org.apache.iceberg.data.GenericDeleteFilter;
+import org.apache.iceberg.data.IdentityPartitionConverters;
+import org.apache.iceberg.data.Record;
+import org.apache.iceberg.data.parquet.GenericParquetReaders;
+import org.apache.iceberg.expressions.Evaluator;
+import org.apache.iceberg.expressions.Expression;
+import org.apache.iceberg.expressions.Expressions;
+import org.apache.iceberg.io.CloseableIterable;
+import org.apache.iceberg.io.DeleteSchemaUtil;
+import org.apache.iceberg.io.InputFile;
+import org.apache.iceberg.parquet.Parquet;
+import org.apache.iceberg.types.TypeUtil;
+import org.apache.iceberg.types.Types;
+import org.apache.iceberg.util.PartitionUtil;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Reads the live rows of a single planned file: Parquet row groups are pruned with the task's
+ * residual filter, delete files are applied, and the residual is re-checked per row.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductRecordReader {
+
+    public static final Schema DELETE_ROW_SCHEMA = new Schema(
+            Types.NestedField.required(1, "product_id", Types.LongType.get()));
+    public static final Schema KEY_PROJECTION = TypeUtil.join(DELETE_ROW_SCHEMA, new Schema(MetadataColumns.ROW_POSITION));
+    public static final Schema POSITION_DELETE_SCHEMA = DeleteSchemaUtil.posDeleteSchema(DELETE_ROW_SCHEMA);
+
+    private final Table productTable;
+
+    public CloseableIterable<Record> open(FileScanTask task, Schema projection) {
+        DeleteFilter<Record> deletes = new GenericDeleteFilter(productTable.io(), task, productTable.schema(), projection);
+        Schema readSchema = deletes.requiredSchema();
+        Map<Integer, ?> constants = PartitionUtil.constantsMap(task, IdentityPartitionConverters::convertConstant);
+        Expression residual = task.residual();
+
+        InputFile input = productTable.io().newInputFile(task.file().location(), task.file().fileSizeInBytes());
+        CloseableIterable<Record> records = Parquet.read(input)
+                .project(readSchema)
+                .split(task.start(), task.length())
+                .filter(residual)
+                .createReaderFunc(fileSchema -> GenericParquetReaders.buildReader(readSchema, fileSchema, constants))
+                .build();
+
+        records = deletes.filter(records);
+        if (residual.op() != Expressions.alwaysTrue().op()) {
+            Evaluator evaluator = new Evaluator(readSchema.asStruct(), residual);
+            records = CloseableIterable.filter(records, evaluator::eval);
+        }
+        return records;
+    }
+
+    public Optional<Record> readRow(RowLocation location, Schema projection, Expression filter) {
+        Schema readSchema = TypeUtil.join(projection, new Schema(MetadataColumns.ROW_POSITION));
+        try (CloseableIterable<Record> records = openFile(location.filePath(), readSchema, filter)) {
+            for (Record record : records) {
+                if ((Long) record.getField(MetadataColumns.ROW_POSITION.name()) == location.position()) {
+                    return Optional.of(record);
+                }
+            }
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to read row from " + location.filePath(), e);
+        }
+    }
+
+    /**
+     * Reads the rows at the given positions of one data file, without applying delete files.
+     * Row groups are pruned with the filter first; the records carry {@code _pos}.
+     */
+    public CloseableIterable<Record> readRows(String path, RoaringBitmap positions, Schema projection,
+                                              Expression filter) {
+        Schema readSchema = TypeUtil.join(projection, new Schema(MetadataColumns.ROW_POSITION));
+        return CloseableIterable.filter(openFile(path, readSchema, filter), record ->
+                positions.contains(((Long) record.getField(MetadataColumns.ROW_POSITION.name())).intValue()));
+    }
+
+    /**
+     * Reads a position delete file written by this service; {@code row} carries the deleted
+     * {@code product_id}.
+     */
+    public CloseableIterable<Record> openPositionDeletes(DeleteFile deleteFile) {
+        InputFile input = productTable.io().newInputFile(deleteFile.location(), deleteFile.fileSizeInBytes());
+        return Parquet.read(input)
+                .project(POSITION_DELETE_SCHEMA)
+                .createReaderFunc(fileSchema -> GenericParquetReaders.buildReader(POSITION_DELETE_SCHEMA, fileSchema))
+                .build();
+    }
+
+    /**
+     * Reads one data file as written, without applying delete files. Callers that need live
+     * rows only must know that no deletes apply to the file.
+     */
+    public CloseableIterable<Record> openFile(String path, Schema projection, Expression filter) {
+        InputFile input = productTable.io().newInputFile(path);
+        CloseableIterable<Record> records = Parquet.read(input)
+                .project(projection)
+                .filter(filter)
+                .createReaderFunc(fileSchema -> GenericParquetReaders.buildReader(projection, fileSchema))
+                .build();
+
+        if (filter.op() != Expressions.alwaysTrue().op()) {
+            Evaluator evaluator = new Evaluator(projection.asStruct(), filter);
+            records = CloseableIterable.filter(records, evaluator::eval);
+        }
+        return records;
+    }
+}
@@ -1,25 +1,43 @@
 package com.example.product_service.repository;
 
 import com.example.product_service.infrastructure.exception.DataAccessException;
+import com.example.product_service.infrastructure.exception.DataValidationException;
 import com.example.product_service.model.Product;
+import com.example.product_service.repository.index.ProductKeyIndex;
+import com.example.product_service.repository.index.ProductSearchIndex;
+import com.example.product_service.repository.index.ProductSecondaryIndex;
+import com.example.product_service.repository.index.RowLocation;
+import com.example.product_service.repository.index.RowPositions;
+import com.example.product_service.repository.index.SearchHit;
+import com.example.product_service.repository.index.SearchResult;
+import com.example.product_service.repository.metrics.RepositoryMetrics;
+import com.example.product_service.repository.metrics.RepositoryMetrics.Operation;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.iceberg.*;
 import org.apache.iceberg.data.GenericRecord;
-import org.apache.iceberg.data.IcebergGenerics;
 import org.apache.iceberg.data.Record;
-import org.apache.iceberg.data.parquet.GenericParquetWriter;
+import org.apache.iceberg.expressions.Expression;
 import org.apache.iceberg.expressions.Expressions;
 import org.apache.iceberg.io.*;
-import org.apache.iceberg.parquet.Parquet;
+import org.roaringbitmap.RoaringBitmap;
 import org.springframework.stereotype.Repository;
 
 import java.io.IOException;
-import java.math.BigDecimal;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
-import java.util.stream.StreamSupport;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 @Slf4j
 @Repository
@@ -27,59 +45,471 @@ import java.util.stream.StreamSupport;
 public class ProductRepository {
 
    private final Table productTable;
-   private final FileIO fileIO;
+   private final ProductWriteBuffer writeBuffer;
+   private final ProductFileWriterFactory writerFactory;
+   private final ProductRecordReader recordReader;
+   private final ProductKeyIndex keyIndex;
+   private final ProductSecondaryIndex secondaryIndex;
+   private final ProductSearchIndex searchIndex;
+   private final ProductCache productCache;
+   private final ParallelScanner scanner;
+   private final IoLimiter ioLimiter;
+   private final RepositoryMetrics metrics;
+   private final ProductChangeFeed changeFeed;
+   private final ProductExporter exporter;
 
    public Product save(Product product) {
-      validateProduct(product);
-      try {
-         Record record = buildRecord(product);
-         DataFile dataFile = writeRecordToFile(record);
-         appendDataFile(dataFile);
-         return product;
-      } catch (IOException e) {
-         log.error("Failed to save product: {}", product.getProductId(), e);
-         throw new DataAccessException("Failed to save product", e);
-      }
+      return metrics.record(Operation.SAVE, () -> {
+         validateProduct(product);
+         try {
+            Record record = buildRecord(product);
+            writeBuffer.submitInsert(record).join();
+            productCache.invalidate(product.getProductId());
+            return product;
+         } catch (CompletionException e) {
+            log.error("Failed to save product: {}", product.getProductId(), e.getCause());
+            throw new DataAccessException("Failed to save product", e.getCause());
+         }
+      });
+   }
+
+   /**
+    * Replaces the stored row of the product through a position delete plus the new row.
+    */
+   public Product update(Product product) {
+      return metrics.record(Operation.UPDATE, () -> {
+         validateProduct(product);
+         try {
+            Record record = buildRecord(product);
+            writeBuffer.submitUpsert(record).join();
+            productCache.invalidate(product.getProductId());
+            return product;
+         } catch (CompletionException e) {
+            log.error("Failed to update product: {}", product.getProductId(), e.getCause());
+            throw new DataAccessException("Failed to update product", e.getCause());
+         }
+      });
+   }
+
+   public ProductBulkWriter openBulkWriter() {
+      return new ProductBulkWriter(productTable, writerFactory.newSortedRunWriter(), this::buildRecord,
+              productCache::invalidateAll, ioLimiter);
    }
 
    public List<Product> findAll() {
-      try (CloseableIterable<Record> records = IcebergGenerics.read(productTable).build()) {
-         return StreamSupport.stream(records.spliterator(), false)
-                 .map(this::mapToProduct)
-                 .toList();
+      return metrics.record(Operation.FIND_ALL, () -> {
+         writeBuffer.awaitAcknowledged();
+         Snapshot snapshot = productTable.currentSnapshot();
+         if (snapshot == null) {
+            return List.of();
+         }
+         List<Product> products = new ArrayList<>();
+         scanner.scan(scanner.planTasks(snapshot.snapshotId(), Expressions.alwaysTrue()), productTable.schema(), true,
+                 (task, record) -> products.add(mapToProduct(record)));
+         return products;
+      });
+   }
+
+   /**
+    * Streams up to {@code limit} product rows after the cursor, reading only the given columns
+    * ({@code null} reads all of them). Rows are handed over as read, without mapping them to
+    * {@link Product}. Returns the cursor of the next page, or {@code null}.
+    */
+   public ScanCursor scan(ScanCursor after, int limit, Collection<String> columns, Consumer<Record> consumer) {
+      return metrics.record(Operation.SCAN, () -> scanSnapshot(after, limit, columns, consumer));
+   }
+
+   private ScanCursor scanSnapshot(ScanCursor after, int limit, Collection<String> columns, Consumer<Record> consumer) {
+      if (after == null) {
+         writeBuffer.awaitAcknowledged();
+      }
+      Snapshot snapshot = after != null
+              ? productTable.snapshot(after.snapshotId())
+              : productTable.currentSnapshot();
+      if (snapshot == null) {
+         if (after != null) {
+            throw new DataValidationException("Cursor snapshot is no longer available: " + after.snapshotId());
+         }
+         return null;
+      }
+
+      Schema projection = projection(columns);
+      if (after == null && limit == 0) {
+         List<CombinedScanTask> splits = scanner.planTasks(snapshot.snapshotId(), Expressions.alwaysTrue());
+         scanner.scan(splits, projection, true, (task, record) -> {
+            consumer.accept(record);
+            return true;
+         });
+         return null;
+      }
+
+      // Cursors address a row by file and offset, so pages read whole files in path order
+      List<CombinedScanTask> files = new ArrayList<>();
+      for (FileScanTask task : planFilesInPathOrder(snapshot.snapshotId())) {
+         if (after == null || task.file().location().compareTo(after.filePath()) >= 0) {
+            files.add(new BaseCombinedScanTask(task));
+         }
+      }
+      long skip = after != null && !files.isEmpty() && location(files.get(0)).equals(after.filePath())
+              ? after.rowOffset()
+              : 0;
+
+      PagePosition position = new PagePosition();
+      scanner.scan(files, projection, true, (task, record) -> {
+         long offset = position.advance(task);
+         if (task == 0 && offset < skip) {
+            return true;
+         }
+         if (limit > 0 && position.emitted == limit) {
+            position.next = new ScanCursor(snapshot.snapshotId(), location(files.get(task)), offset);
+            return false;
+         }
+         consumer.accept(record);
+         position.emitted++;
+         return true;
+      });
+      return position.next;
+   }
+
+   private static String location(CombinedScanTask task) {
+      return task.files().iterator().next().file().location();
+   }
+
+   private static final class PagePosition {
+
+      private int task;
+      private long offset;
+      private long emitted;
+      private ScanCursor next;
+
+      long advance(int rowTask) {
+         if (rowTask != task) {
+            task = rowTask;
+            offset = 0;
+         }
+         return offset++;
+      }
+   }
+
+   /**
+    * Streams up to {@code limit} rows matching every filter. The combined expression prunes
+    * manifests and data files by partition and column bounds during planning, and row groups
+    * and rows while reading. Unordered queries hand rows over as the parallel readers produce
+    * them; ordered ones keep plan order.
+    */
+   public QueryStats query(List<ProductFilter> filters, Collection<String> columns, int limit, boolean ordered,
+                           Consumer<Record> consumer) {
+      writeBuffer.awaitAcknowledged();
+      return metrics.record(Operation.QUERY, () -> runQuery(filters, columns, limit, ordered, consumer));
+   }
+
+   private QueryStats runQuery(List<ProductFilter> filters, Collection<String> columns, int limit, boolean ordered,
+                               Consumer<Record> consumer) {
+      Snapshot snapshot = productTable.currentSnapshot();
+      if (snapshot == null) {
+         return new QueryStats(0, 0, 0);
+      }
+
+      Expression filter = Expressions.alwaysTrue();
+      Set<String> readColumns = columns != null ? new HashSet<>(columns) : null;
+      for (ProductFilter productFilter : filters) {
+         filter = Expressions.and(filter, productFilter.toExpression(productTable.schema()));
+         if (readColumns != null) {
+            readColumns.add(productFilter.column());
+         }
+      }
+      Schema projection = projection(readColumns);
+
+      List<CombinedScanTask> tasks = scanner.planTasks(snapshot.snapshotId(), filter);
+      long planned = tasks.stream()
+              .flatMap(task -> task.files().stream())
+              .map(task -> task.file().location())
+              .distinct()
+              .count();
+
+      long[] returned = {0};
+      if (limit > 0) {
+         scanner.scan(tasks, projection, ordered, (task, record) -> {
+            consumer.accept(record);
+            return ++returned[0] < limit;
+         });
+      }
+
+      long totalFiles = Long.parseLong(snapshot.summary().getOrDefault(SnapshotSummary.TOTAL_DATA_FILES_PROP, "0"));
+      log.debug("Product query {} planned {} of {} data files, returned {} rows", filter, planned, totalFiles, returned[0]);
+      return new QueryStats(planned, Math.max(0, totalFiles - planned), returned[0]);
+   }
+
+   /**
+    * Streams up to {@code limit} rows whose columns equal the given values. When the secondary
+    * index covers every column only the rows it points at are read, from the files holding
+    * them; otherwise this runs as a filtered query.
+    */
+   public QueryStats findByColumns(Map<String, Object> values, Collection<String> columns, int limit,
+                                   Consumer<Record> consumer) {
+      writeBuffer.awaitAcknowledged();
+      return metrics.record(Operation.LOOKUP, () -> lookup(values, columns, limit, consumer));
+   }
+
+   private QueryStats lookup(Map<String, Object> values, Collection<String> columns, int limit,
+                             Consumer<Record> consumer) {
+      List<ProductFilter> filters = values.entrySet().stream()
+              .map(value -> new ProductFilter(value.getKey(), FilterOperator.EQ, List.of(value.getValue())))
+              .toList();
+      if (!secondaryIndex.covers(values.keySet())) {
+         return runQuery(filters, columns, limit, true, consumer);
+      }
+
+      Expression filter = Expressions.alwaysTrue();
+      Set<String> readColumns = columns != null ? new HashSet<>(columns) : null;
+      for (ProductFilter productFilter : filters) {
+         filter = Expressions.and(filter, productFilter.toExpression(productTable.schema()));
+         if (readColumns != null) {
+            readColumns.add(productFilter.column());
+         }
+      }
+      Schema projection = projection(readColumns);
+
+      List<RowPositions> matches = secondaryIndex.lookup(values);
+      long returned = 0;
+      long read = 0;
+      for (RowPositions file : matches) {
+         if (returned >= limit) {
+            break;
+         }
+         read++;
+         // Rows are handed over after the permit is released, so a slow client holds no read slot
+         List<Record> found = new ArrayList<>();
+         try (IoLimiter.Permit permit = ioLimiter.acquireRead();
+              CloseableIterable<Record> rows = recordReader.readRows(file.filePath(), file.positions(), projection, filter)) {
+            for (Record row : rows) {
+               found.add(row);
+               if (returned + found.size() >= limit) {
+                  break;
+               }
+            }
+         } catch (IOException e) {
+            log.error("Failed to read products from {}", file.filePath(), e);
+            throw new DataAccessException("Failed to retrieve products", e);
+         }
+         found.forEach(consumer);
+         returned += found.size();
+      }
+
+      Snapshot snapshot = productTable.currentSnapshot();
+      long totalFiles = snapshot != null
+              ? Long.parseLong(snapshot.summary().getOrDefault(SnapshotSummary.TOTAL_DATA_FILES_PROP, "0"))
+              : 0;
+      log.debug("Product lookup {} read {} of {} data files through the secondary index, returned {} rows",
+              values, read, totalFiles, returned);
+      return new QueryStats(read, Math.max(0, totalFiles - read), returned);
+   }
+
+   /**
+    * The {@code limit} products whose text best matches the query, by BM25 score over the
+    * in-memory search index.
+    */
+   public SearchResult search(String query, int limit) {
+      if (!searchIndex.isEnabled()) {
+         throw new DataValidationException("Full-text search is disabled");
+      }
+      writeBuffer.awaitAcknowledged();
+      return metrics.record(Operation.SEARCH, () -> searchIndex.search(query, limit));
+   }
+
+   /**
+    * The products behind the search hits, by product id. Hits are grouped by data file and each
+    * file is read once for all of its rows, as secondary index lookups are, without applying
+    * delete files: the search index only ranks live rows. A product with an acknowledged but
+    * uncommitted change is taken from the write buffer, so one deleted there is left out.
+    */
+   public Map<Long, Product> findSearchHits(List<SearchHit> hits) {
+      return metrics.record(Operation.SEARCH_HITS, () -> {
+         Map<Long, Product> products = new HashMap<>();
+         Map<String, RoaringBitmap> positions = new LinkedHashMap<>();
+         Map<String, List<Long>> productIds = new HashMap<>();
+         for (SearchHit hit : hits) {
+            ProductChange pending = writeBuffer.pending(hit.productId());
+            if (pending != null) {
+               if (pending.row() != null) {
+                  products.put(hit.productId(), mapToProduct(pending.row()));
+               }
+               continue;
+            }
+            String path = hit.location().filePath();
+            positions.computeIfAbsent(path, file -> new RoaringBitmap()).add((int) hit.location().position());
+            productIds.computeIfAbsent(path, file -> new ArrayList<>()).add(hit.productId());
+         }
+
+         for (Map.Entry<String, RoaringBitmap> file : positions.entrySet()) {
+            // the ids prune row groups by their bounds and bloom filters before positions are matched
+            Expression filter = Expressions.in("product_id", productIds.get(file.getKey()));
+            try (IoLimiter.Permit permit = ioLimiter.acquireRead();
+                 CloseableIterable<Record> rows = recordReader.readRows(file.getKey(), file.getValue(),
+                         productTable.schema(), filter)) {
+               for (Record row : rows) {
+                  Product product = mapToProduct(row);
+                  products.put(product.getProductId(), product);
+               }
+            } catch (IOException e) {
+               log.error("Failed to read search hits from {}", file.getKey(), e);
+               throw new DataAccessException("Failed to retrieve products", e);
+            }
+         }
+         return products;
+      });
+   }
+
+   public ChangeRange resolveChanges(Long fromSnapshotId, Long toSnapshotId) {
+      writeBuffer.awaitAcknowledged();
+      return changeFeed.resolve(fromSnapshotId, toSnapshotId);
+   }
+
+   /**
+    * Streams the net changes of the range, reading only the given columns of changed rows
+    * ({@code null} reads all of them).
+    */
+   public void changes(ChangeRange range, Collection<String> columns, ProductChangeListener listener) {
+      metrics.record(Operation.CHANGES, () -> changeFeed.read(range, projection(columns), listener));
+   }
+
+   /**
+    * Writes every row of the current snapshot that matches the filters in the given format,
+    * reading only the given columns ({@code null} reads all of them).
+    */
+   public void export(ExportFormat format, List<ProductFilter> filters, Collection<String> columns, OutputStream out) {
+      metrics.record(Operation.EXPORT, () -> {
+         writeBuffer.awaitAcknowledged();
+         Expression filter = Expressions.alwaysTrue();
+         for (ProductFilter productFilter : filters) {
+            filter = Expressions.and(filter, productFilter.toExpression(productTable.schema()));
+         }
+         try {
+            exporter.export(format, productTable.currentSnapshot(), filter, projection(columns), out);
+         } catch (IOException e) {
+            throw new UncheckedIOException(e);
+         }
+      });
+   }
+
+   public void validateFilters(List<ProductFilter> filters) {
+      filters.forEach(filter -> filter.toExpression(productTable.schema()));
+   }
+
+   private List<FileScanTask> planFilesInPathOrder(long snapshotId) {
+      try (CloseableIterable<FileScanTask> planned = productTable.newScan().useSnapshot(snapshotId).planFiles()) {
+         List<FileScanTask> tasks = new ArrayList<>();
+         planned.forEach(tasks::add);
+         tasks.sort(Comparator.comparing(task -> task.file().location()));
+         return tasks;
       } catch (IOException e) {
-         log.error("Failed to retrieve products", e);
+         log.error("Failed to plan product scan", e);
          throw new DataAccessException("Failed to retrieve products", e);
       }
    }
 
    public Optional<Product> findById(Long id) {
-      try (CloseableIterable<Record> records = IcebergGenerics.read(productTable)
-              .where(Expressions.equal("product_id", id))
-              .build()) {
+      return metrics.record(Operation.FIND_BY_ID, () -> {
+         ProductChange pending = writeBuffer.pending(id);
+         if (pending != null) {
+            return Optional.ofNullable(pending.row()).map(this::mapToProduct);
+         }
+         return productCache.get(id, key -> loadById(key, productTable.schema()));
+      });
+   }
+
+   /**
+    * Looks a product up reading only the given columns. Served from the cache when it is
+    * enabled, since cached rows are complete.
+    */
+   public Optional<Product> findById(Long id, Collection<String> columns) {
+      if (columns == null || productCache.isEnabled() || writeBuffer.pending(id) != null) {
+         return findById(id);
+      }
+      return metrics.record(Operation.FIND_BY_ID, () -> loadById(id, projection(columns)));
+   }
+
+   private Optional<Product> loadById(Long id, Schema projection) {
+      if (keyIndex.isEnabled()) {
+         Optional<RowLocation> location = keyIndex.lookup(id);
+         if (location.isEmpty()) {
+            return Optional.empty();
+         }
+         Optional<Record> record;
+         try (IoLimiter.Permit permit = ioLimiter.acquireRead()) {
+            record = recordReader.readRow(location.get(), projection, Expressions.equal("product_id", id));
+         }
+         if (record.isPresent()) {
+            return record.map(this::mapToProduct);
+         }
+         log.warn("Primary-key index points product {} at a missing row {}, falling back to a scan", id, location.get());
+      }
+
+      List<FileScanTask> tasks = planFiles(Expressions.equal("product_id", id));
+      log.debug("findById({}) planned {} data files", id, tasks.size());
+
+      for (FileScanTask task : tasks) {
+         try (IoLimiter.Permit permit = ioLimiter.acquireRead();
+              CloseableIterable<Record> records = recordReader.open(task, projection);
+              CloseableIterator<Record> iterator = records.iterator()) {
+            if (iterator.hasNext()) {
+               return Optional.of(mapToProduct(iterator.next()));
+            }
+         } catch (IOException e) {
+            log.error("Failed to find product: {}", id, e);
+            throw new DataAccessException("Failed to find product", e);
+         }
+      }
+      return Optional.empty();
+   }
 
-         return StreamSupport.stream(records.spliterator(), false)
-                 .findFirst()
-                 .map(this::mapToProduct);
+   private List<FileScanTask> planFiles(Expression filter) {
+      try (CloseableIterable<FileScanTask> planned = productTable.newScan().filter(filter).planFiles()) {
+         List<FileScanTask> tasks = new ArrayList<>();
+         planned.forEach(tasks::add);
+         return tasks;
       } catch (IOException e) {
-         log.error("Failed to find product: {}", id, e);
-         throw new DataAccessException("Failed to find product", e);
+         log.error("Failed to plan product scan for {}", filter, e);
+         throw new DataAccessException("Failed to plan product scan", e);
       }
    }
 
    public boolean existsById(Long id) {
-      return findById(id).isPresent();
+      return metrics.record(Operation.EXISTS_BY_ID, () -> {
+         ProductChange pending = writeBuffer.pending(id);
+         if (pending != null) {
+            return pending.row() != null;
+         }
+         if (keyIndex.isEnabled()) {
+            return keyIndex.lookup(id).isPresent();
+         }
+         return findById(id).isPresent();
+      });
    }
 
    public void deleteById(Long id) {
-      try {
-         productTable.newDelete()
-                 .deleteFromRowFilter(Expressions.equal("product_id", id))
-                 .commit();
-      } catch (Exception e) {
-         log.error("Failed to delete product: {}", id, e);
-         throw new DataAccessException("Failed to delete product", e);
+      metrics.record(Operation.DELETE_BY_ID, () -> {
+         try {
+            writeBuffer.submitDelete(id).join();
+            productCache.invalidate(id);
+         } catch (CompletionException e) {
+            log.error("Failed to delete product: {}", id, e.getCause());
+            throw new DataAccessException("Failed to delete product", e.getCause());
+         }
+      });
+   }
+
+   /**
+    * Projects the table schema onto the requested columns. {@code product_id} is always read
+    * because point lookups filter on it.
+    */
+   private Schema projection(Collection<String> columns) {
+      if (columns == null) {
+         return productTable.schema();
       }
+      Set<String> selected = new HashSet<>(columns);
+      selected.add("product_id");
+      return productTable.schema().select(selected);
    }
 
    private Record buildRecord(Product product) {
@@ -99,30 +529,6 @@ public class ProductRepository {
       return record;
    }
 
-   private DataFile writeRecordToFile(Record record) throws IOException {
-      String filePath = String.format("%s/data/%s.parquet",
-              productTable.location(), UUID.randomUUID());
-
-      OutputFile outputFile = fileIO.newOutputFile(filePath);
-      DataWriter<Record> writer = Parquet.writeData(outputFile)
-              .schema(productTable.schema())
-              .withSpec(productTable.spec())
-              .createWriterFunc(GenericParquetWriter::buildWriter)
-              .build();
-
-       try (writer) {
-           writer.write(record);
-       }
-
-      return writer.toDataFile();
-   }
-
-   private void appendDataFile(DataFile dataFile) {
-      productTable.newAppend()
-              .appendFile(dataFile)
-              .commit();
-   }
-
    private Product mapToProduct(Record record) {
       return Product.builder()
               .productId((Long) record.getField("product_id"))
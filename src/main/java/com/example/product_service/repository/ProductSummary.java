@@ -0,0 +1,14 @@
+package com.example.product_service.repository;
+
+/**
+ * Table-wide product count and value bounds. {@code source} is {@code metadata} when the answer
+ * came from manifest and file metrics alone, {@code scan} when row data had to be read.
+ */
+public record ProductSummary(Long snapshotId,
+                             long count,
+                             Double minPrice,
+                             Double maxPrice,
+                             Long minAmount,
+                             Long maxAmount,
+                             String source) {
+}
@@ -0,0 +1,530 @@
+package com.example.product_service.repository;
+
+import com.example.product_service.infrastructure.exception.DataAccessException;
+import com.example.product_service.repository.wal.WriteAheadLog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.iceberg.Snapshot;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.data.Record;
+import org.apache.iceberg.exceptions.CommitFailedException;
+import org.apache.iceberg.exceptions.CommitStateUnknownException;
+import org.apache.iceberg.exceptions.RuntimeIOException;
+import org.apache.iceberg.exceptions.ValidationException;
+import org.apache.iceberg.util.SnapshotUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Group-commit buffer for product writes. Concurrent callers enqueue inserts, upserts and deletes
+ * into a bounded queue; a single flusher thread drains it once {@code batch-size} writes are
+ * waiting or the oldest one is {@code max-delay-ms} old, folds them into one net change per
+ * product and hands the batch to {@link ProductChangeCommitter} for a single commit. Every
+ * caller's future completes after its batch is committed.
+ *
+ * <p>With the write-ahead log enabled, a write is acknowledged as soon as its log entry is
+ * fsynced instead. Acknowledged writes stay visible to point lookups through {@link #pending}
+ * until their batch is committed; the commit records the last log sequence it covers in the
+ * snapshot summary, which is where replay resumes after a restart. Scans, queries and the other
+ * streamed reads do not merge the overlay; they call {@link #awaitAcknowledged()} first, which
+ * waits up to {@code wal.read-wait-ms} for every acknowledged write to be committed.
+ *
+ * <p>Because its callers have already been answered, a batch that fails with an I/O error or a
+ * commit conflict is retried until it lands, while the bounded queue holds back new writers;
+ * before each retry the table is checked for a snapshot that already carries the batch's
+ * sequence, so an attempt whose outcome was unknown is never applied twice. Only a batch that
+ * fails in a way a retry cannot fix is given up: its entries are written and fsynced to a file
+ * under {@code <wal.dir>/rejected} before the log is truncated past them. A write whose log
+ * entry cannot be fsynced fails its caller and stops the log from taking further writes.
+ */
+@Slf4j
+@Component
+public class ProductWriteBuffer {
+
+    private static final long IDLE_POLL_MS = 100;
+
+    private final ProductChangeCommitter changeCommitter;
+    private final Table productTable;
+    private final ProductCache productCache;
+    private final int batchSize;
+    private final long maxDelayNanos;
+    private final long retryBackoffMs;
+    private final long readWaitNanos;
+    private final Path rejectedDir;
+    private final BlockingQueue<PendingWrite> queue;
+    private final Thread flusher;
+    private final WriteAheadLog writeAheadLog;
+    private final Map<Long, LoggedChange> pending = new ConcurrentHashMap<>();
+    private final Object appendLock = new Object();
+    // appended but not yet fsynced, in log order; guarded by appendLock
+    private final Deque<LoggedChange> unsynced = new ArrayDeque<>();
+    private final Object resolvedLock = new Object();
+    // submitters hold the read lock, so no write is queued once stop() has taken the write lock
+    private final ReadWriteLock lifecycle = new ReentrantReadWriteLock();
+
+    private volatile boolean running = true;
+    private volatile long publishedSequence;
+    // last log sequence whose batch was committed or saved aside; guarded by resolvedLock
+    private volatile long resolvedSequence;
+    private volatile RuntimeException logFailure;
+
+    public ProductWriteBuffer(ProductChangeCommitter changeCommitter,
+                              Table productTable,
+                              ProductCache productCache,
+                              @Value("${iceberg.write.batch-size:500}") int batchSize,
+                              @Value("${iceberg.write.max-delay-ms:50}") long maxDelayMs,
+                              @Value("${iceberg.write.queue-capacity:10000}") int queueCapacity,
+                              @Value("${iceberg.write.wal.enabled:false}") boolean walEnabled,
+                              @Value("${iceberg.write.wal.dir:./data/wal}") String walDir,
+                              @Value("${iceberg.write.wal.segment-bytes:67108864}") int walSegmentBytes,
+                              @Value("${iceberg.write.wal.retry-backoff-ms:1000}") long retryBackoffMs,
+                              @Value("${iceberg.write.wal.read-wait-ms:5000}") long readWaitMs) {
+        this.changeCommitter = changeCommitter;
+        this.productTable = productTable;
+        this.productCache = productCache;
+        this.batchSize = batchSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+        this.retryBackoffMs = retryBackoffMs;
+        this.readWaitNanos = TimeUnit.MILLISECONDS.toNanos(readWaitMs);
+        this.rejectedDir = Path.of(walDir).resolve("rejected");
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.flusher = new Thread(this::run, "product-write-flusher");
+        this.flusher.setDaemon(true);
+        this.writeAheadLog = walEnabled ? WriteAheadLog.open(Path.of(walDir), walSegmentBytes) : null;
+    }
+
+    @PostConstruct
+    void start() {
+        log.info("Start product write buffer: batchSize={}, maxDelayMs={}, wal={}",
+                batchSize, TimeUnit.NANOSECONDS.toMillis(maxDelayNanos), writeAheadLog != null);
+        flusher.start();
+        if (writeAheadLog != null) {
+            replay();
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        lifecycle.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            lifecycle.writeLock().unlock();
+        }
+        flusher.join();
+
+        List<PendingWrite> stranded = new ArrayList<>();
+        queue.drainTo(stranded);
+        if (!stranded.isEmpty()) {
+            // left behind when the flusher was interrupted or stopped at a batch it could not
+            // commit; logged writes replay on restart
+            log.warn("Stopped with {} queued product writes the flusher did not commit", stranded.size());
+            failAll(stranded, new DataAccessException("Product write buffer is shut down"));
+        }
+        if (writeAheadLog != null) {
+            writeAheadLog.close();
+            if (!pending.isEmpty()) {
+                log.warn("Stopped with {} uncommitted products in the write-ahead log", pending.size());
+            }
+        }
+        log.info("Stopped product write buffer");
+    }
+
+    /**
+     * Queues a new row for the next group commit, blocking while the buffer is full.
+     */
+    public CompletableFuture<Void> submitInsert(Record record) {
+        return submit(new ProductChange((Long) record.getField("product_id"), record, false));
+    }
+
+    /**
+     * Queues a row that replaces every existing row with the same {@code product_id}.
+     */
+    public CompletableFuture<Void> submitUpsert(Record record) {
+        return submit(new ProductChange((Long) record.getField("product_id"), record, true));
+    }
+
+    public CompletableFuture<Void> submitDelete(long productId) {
+        return submit(new ProductChange(productId, null, true));
+    }
+
+    /**
+     * The acknowledged but not yet committed change of a product, or {@code null}. A change
+     * without a row is a pending delete.
+     */
+    ProductChange pending(long productId) {
+        LoggedChange logged = pending.get(productId);
+        return logged != null ? logged.change() : null;
+    }
+
+    /**
+     * Blocks until every write acknowledged so far is committed or saved aside, so a read that
+     * starts afterwards sees them. Without the write-ahead log, writes are acknowledged on commit
+     * and this returns at once.
+     *
+     * @throws DataAccessException if the writes are not committed within {@code wal.read-wait-ms}
+     */
+    public void awaitAcknowledged() {
+        long target = publishedSequence;
+        if (resolvedSequence >= target) {
+            return;
+        }
+        long deadline = System.nanoTime() + readWaitNanos;
+        synchronized (resolvedLock) {
+            while (resolvedSequence < target) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new DataAccessException("Timed out waiting for acknowledged product writes to commit");
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(resolvedLock, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new DataAccessException("Interrupted while waiting for acknowledged product writes", e);
+                }
+            }
+        }
+    }
+
+    private CompletableFuture<Void> submit(ProductChange change) {
+        lifecycle.readLock().lock();
+        try {
+            if (!running) {
+                throw new DataAccessException("Product write buffer is shut down");
+            }
+            if (writeAheadLog == null) {
+                PendingWrite write = new PendingWrite(change, 0, System.nanoTime(), new CompletableFuture<>());
+                enqueue(write);
+                return write.future();
+            }
+
+            byte[] entry = ProductChangeCodec.encode(change, productTable.schema());
+            long sequence;
+            synchronized (appendLock) {
+                checkLog();
+                sequence = writeAheadLog.append(entry);
+                unsynced.add(new LoggedChange(sequence, change));
+            }
+            try {
+                writeAheadLog.sync(sequence);
+            } catch (RuntimeException e) {
+                failLog(e);
+                throw new DataAccessException("Failed to sync the write-ahead log", e);
+            }
+            publish(sequence);
+            return CompletableFuture.completedFuture(null);
+        } finally {
+            lifecycle.readLock().unlock();
+        }
+    }
+
+    /**
+     * Makes every fsynced entry up to the sequence visible and queues it for commit. Entries are
+     * published in log order, since a later batch must never commit ahead of an older write.
+     */
+    private void publish(long sequence) {
+        synchronized (appendLock) {
+            checkLog();
+            while (!unsynced.isEmpty() && unsynced.peekFirst().sequence() <= sequence) {
+                LoggedChange logged = unsynced.pollFirst();
+                pending.put(logged.change().productId(), logged);
+                enqueue(new PendingWrite(logged.change(), logged.sequence(), System.nanoTime(), null));
+                publishedSequence = logged.sequence();
+            }
+        }
+    }
+
+    /**
+     * Stops the log from taking writes once an fsync failed: whether the entries it covered reached
+     * the disk is unknown, so none of the writes still waiting on it are published.
+     */
+    private void failLog(RuntimeException cause) {
+        synchronized (appendLock) {
+            if (logFailure == null) {
+                logFailure = cause;
+                log.error("Failed to sync the write-ahead log, refusing product writes until restart", cause);
+            }
+            unsynced.clear();
+        }
+    }
+
+    private void checkLog() {
+        if (logFailure != null) {
+            throw new DataAccessException("Write-ahead log failed, product writes are refused until restart",
+                    logFailure);
+        }
+    }
+
+    private void enqueue(PendingWrite write) {
+        try {
+            queue.put(write);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Interrupted while queueing product write", e);
+        }
+    }
+
+    /**
+     * Queues the logged entries that no snapshot covers yet. Inserts are replayed as upserts,
+     * since a commit whose summary was lost to snapshot expiry may already hold them.
+     */
+    private void replay() {
+        long applied = appliedSequence();
+        long[] replayed = {0};
+        resolved(applied);
+        synchronized (appendLock) {
+            writeAheadLog.replay(applied, (sequence, payload) -> {
+                ProductChange logged = ProductChangeCodec.decode(payload, productTable.schema());
+                ProductChange change = new ProductChange(logged.productId(), logged.row(), true);
+                pending.put(change.productId(), new LoggedChange(sequence, change));
+                enqueue(new PendingWrite(change, sequence, System.nanoTime(), null));
+                publishedSequence = sequence;
+                replayed[0]++;
+            });
+        }
+        log.info("Replayed {} product writes after log sequence {}", replayed[0], applied);
+    }
+
+    private long appliedSequence() {
+        if (productTable.currentSnapshot() == null) {
+            return 0;
+        }
+        for (Snapshot snapshot : SnapshotUtil.currentAncestors(productTable)) {
+            if (writeAheadLog.id().equals(snapshot.summary().get(CommitProperties.WAL_ID))) {
+                return Long.parseLong(snapshot.summary().get(CommitProperties.WAL_SEQUENCE));
+            }
+        }
+        return 0;
+    }
+
+    private void run() {
+        List<PendingWrite> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                collectBatch(batch, first.enqueuedAt() + maxDelayNanos);
+                if (!flush(batch)) {
+                    // later logged batches must not commit past this one; all of them replay
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failAll(batch, new DataAccessException("Product write flusher interrupted", e));
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void collectBatch(List<PendingWrite> batch, long deadline) throws InterruptedException {
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                return;
+            }
+            PendingWrite next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    /**
+     * Commits a batch, returning {@code false} if a logged batch was left to replay on shutdown.
+     */
+    private boolean flush(List<PendingWrite> batch) throws InterruptedException {
+        Map<Long, ProductChange> changes = new LinkedHashMap<>();
+        for (PendingWrite write : batch) {
+            changes.merge(write.change().productId(), write.change(), ProductChange::then);
+        }
+        if (writeAheadLog != null) {
+            return flushLogged(batch, changes);
+        }
+        try {
+            changeCommitter.commit(changes.values());
+            log.debug("Committed {} product writes as {} changes", batch.size(), changes.size());
+            batch.forEach(write -> write.future().complete(null));
+        } catch (Exception e) {
+            log.error("Failed to commit batch of {} product writes", batch.size(), e);
+            failAll(batch, new DataAccessException("Failed to save product", e));
+        }
+        return true;
+    }
+
+    private boolean flushLogged(List<PendingWrite> batch, Map<Long, ProductChange> changes) throws InterruptedException {
+        long lastSequence = batch.get(batch.size() - 1).sequence();
+        Map<String, String> summary = Map.of(
+                CommitProperties.WAL_ID, writeAheadLog.id(),
+                CommitProperties.WAL_SEQUENCE, Long.toString(lastSequence));
+        for (int attempt = 1; ; attempt++) {
+            try {
+                if (attempt > 1 && committedThrough(lastSequence)) {
+                    log.info("Logged product writes up to sequence {} were committed by an earlier attempt",
+                            lastSequence);
+                } else {
+                    changeCommitter.commit(changes.values(), summary);
+                }
+                log.debug("Committed {} logged product writes up to sequence {}", batch.size(), lastSequence);
+                break;
+            } catch (Exception e) {
+                if (!running) {
+                    log.error("Failed to commit {} logged product writes on shutdown, leaving them to replay",
+                            batch.size(), e);
+                    return false;
+                }
+                if (!isRetryable(e)) {
+                    if (!reject(batch, lastSequence, e)) {
+                        return false;
+                    }
+                    break;
+                }
+                log.error("Failed to commit {} logged product writes on attempt {}, retrying in {} ms",
+                        batch.size(), attempt, retryBackoffMs, e);
+                Thread.sleep(retryBackoffMs);
+            }
+        }
+
+        // drop cached rows before the overlay, so no lookup can fall through to a stale entry
+        for (Long productId : changes.keySet()) {
+            productCache.invalidate(productId);
+            pending.computeIfPresent(productId,
+                    (key, logged) -> logged.sequence() <= lastSequence ? null : logged);
+        }
+        writeAheadLog.truncate(lastSequence);
+        resolved(lastSequence);
+        return true;
+    }
+
+    private void resolved(long sequence) {
+        synchronized (resolvedLock) {
+            resolvedSequence = sequence;
+            resolvedLock.notifyAll();
+        }
+    }
+
+    /**
+     * Whether a snapshot of the current table already covers the log up to the sequence, as after
+     * a commit that landed although it reported an unknown state.
+     */
+    private boolean committedThrough(long sequence) {
+        productTable.refresh();
+        return appliedSequence() >= sequence;
+    }
+
+    /**
+     * Conflicts and I/O failures may clear up on a later attempt; anything else, such as a row
+     * the writer cannot encode, fails the same way every time.
+     */
+    private static boolean isRetryable(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException || cause instanceof UncheckedIOException
+                    || cause instanceof RuntimeIOException || cause instanceof CommitFailedException
+                    || cause instanceof CommitStateUnknownException || cause instanceof ValidationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gives up on a logged batch that can never commit: saves its entries, sequence first, to a
+     * file under {@code rejected} for an operator to inspect or re-submit. The file and its
+     * directory are fsynced before this returns, since the caller truncates the log past the
+     * batch. A save that fails is retried, so the entries stay in the log; returns {@code false}
+     * if the buffer stopped first, leaving them to replay.
+     */
+    private boolean reject(List<PendingWrite> batch, long lastSequence, Exception cause) throws InterruptedException {
+        long firstSequence = batch.get(0).sequence();
+        Path file = rejectedDir.resolve("rejected-" + firstSequence + "-" + lastSequence + ".log");
+        while (true) {
+            try {
+                save(batch, file);
+                log.error("Gave up on {} logged product writes (sequences {}-{}), saved them to {}",
+                        batch.size(), firstSequence, lastSequence, file, cause);
+                return true;
+            } catch (IOException | RuntimeException e) {
+                log.error("Failed to save {} rejected product writes (sequences {}-{}) to {}, "
+                                + "keeping them in the write-ahead log and retrying in {} ms",
+                        batch.size(), firstSequence, lastSequence, file, retryBackoffMs, e);
+            }
+            if (!running) {
+                log.error("Stopped before saving rejected product writes (sequences {}-{}), leaving them to replay",
+                        firstSequence, lastSequence, cause);
+                return false;
+            }
+            Thread.sleep(retryBackoffMs);
+        }
+    }
+
+    private void save(List<PendingWrite> batch, Path file) throws IOException {
+        Files.createDirectories(rejectedDir);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            for (PendingWrite write : batch) {
+                byte[] entry = ProductChangeCodec.encode(write.change(), productTable.schema());
+                out.writeLong(write.sequence());
+                out.writeInt(entry.length);
+                out.write(entry);
+            }
+            out.flush();
+            channel.force(true);
+        }
+        // the file's directory entry, and the directory's own on first use, must survive a crash too
+        forceDirectory(rejectedDir);
+        forceDirectory(rejectedDir.getParent());
+    }
+
+    private static void forceDirectory(Path dir) throws IOException {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    private void failAll(List<PendingWrite> batch, DataAccessException error) {
+        batch.stream()
+                .filter(write -> write.future() != null)
+                .forEach(write -> write.future().completeExceptionally(error));
+    }
+
+    /**
+     * A queued write; logged writes carry their log sequence and have no future, since they
+     * were acknowledged on fsync.
+     */
+    private record PendingWrite(ProductChange change, long sequence, long enqueuedAt, CompletableFuture<Void> future) {
+    }
+
+    private record LoggedChange(long sequence, ProductChange change) {
+    }
+}
@@ -0,0 +1,4 @@
+package com.example.product_service.repository;
+
+public record QueryStats(long filesPlanned, long filesSkipped, long rowsReturned) {
+}
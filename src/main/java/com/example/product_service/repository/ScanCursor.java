@@ -0,0 +1,35 @@
+package com.example.product_service.repository;
+
+import com.example.product_service.infrastructure.exception.DataValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position inside a snapshot-pinned table scan: the snapshot being read, the data file the
+ * scan stopped in and the number of live rows of that file already returned. Files are visited
+ * in path order, so a cursor stays valid for as long as its snapshot is retained.
+ */
+public record ScanCursor(long snapshotId, String filePath, long rowOffset) {
+
+    private static final String VERSION = "v1";
+    private static final String SEPARATOR = "|";
+
+    public String encode() {
+        String raw = String.join(SEPARATOR, VERSION, Long.toString(snapshotId), Long.toString(rowOffset), filePath);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ScanCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 4);
+            if (parts.length != 4 || !VERSION.equals(parts[0])) {
+                throw new DataValidationException("Invalid cursor: " + token);
+            }
+            return new ScanCursor(Long.parseLong(parts[1]), parts[3], Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new DataValidationException("Invalid cursor: " + token, e);
+        }
+    }
+}
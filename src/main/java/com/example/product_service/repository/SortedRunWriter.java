@@ -0,0 +1,85 @@
+package com.example.product_service.repository;
+
+import org.apache.iceberg.DataFile;
+import org.apache.iceberg.data.Record;
+import org.apache.iceberg.io.FileIO;
+import org.apache.iceberg.io.TaskWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Writes rows so that every data file holds them in {@code product_id} order, the table's sort
+ * order. Rows are buffered up to {@code runRows}, sorted and written through a task writer of
+ * their own, so no file mixes two runs. Inputs larger than one run end up as several sorted
+ * files, which compaction later merges into files of the target size. Not thread-safe.
+ */
+public class SortedRunWriter {
+
+    static final Comparator<Record> PRODUCT_ID_ORDER =
+            Comparator.comparingLong(record -> (Long) record.getField("product_id"));
+
+    private final ProductFileWriterFactory writerFactory;
+    private final FileIO io;
+    private final int runRows;
+    private final List<Record> buffer = new ArrayList<>();
+    private final List<DataFile> dataFiles = new ArrayList<>();
+    private TaskWriter<Record> writer;
+
+    SortedRunWriter(ProductFileWriterFactory writerFactory, FileIO io, int runRows) {
+        this.writerFactory = writerFactory;
+        this.io = io;
+        this.runRows = runRows;
+    }
+
+    /**
+     * Buffers the row, writing out a sorted run once the buffer is full. The writer keeps the
+     * record, so callers must not reuse it.
+     */
+    public void write(Record record) throws IOException {
+        buffer.add(record);
+        if (buffer.size() >= runRows) {
+            flushRun();
+        }
+    }
+
+    /**
+     * Writes out the last run and returns the files of every run.
+     */
+    public DataFile[] dataFiles() throws IOException {
+        flushRun();
+        return dataFiles.toArray(new DataFile[0]);
+    }
+
+    /**
+     * Drops the buffered rows and deletes every file written so far.
+     */
+    public void abort() throws IOException {
+        buffer.clear();
+        if (writer != null) {
+            writer.abort();
+            writer = null;
+        }
+        for (DataFile dataFile : dataFiles) {
+            io.deleteFile(dataFile.location());
+        }
+        dataFiles.clear();
+    }
+
+    private void flushRun() throws IOException {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        buffer.sort(PRODUCT_ID_ORDER);
+        writer = writerFactory.newTaskWriter(buffer.size());
+        for (Record record : buffer) {
+            writer.write(record);
+        }
+        Collections.addAll(dataFiles, writer.dataFiles());
+        writer = null;
+        buffer.clear();
+    }
+}
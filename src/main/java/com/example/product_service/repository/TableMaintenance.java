@@ -0,0 +1,566 @@
+package com.example.product_service.repository;
+
+import com.example.product_service.infrastructure.exception.DataAccessException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hadoop.fs.Path;
+import org.apache.iceberg.DataFile;
+import org.apache.iceberg.DeleteFile;
+import org.apache.iceberg.FileScanTask;
+import org.apache.iceberg.ManifestContent;
+import org.apache.iceberg.ManifestFile;
+import org.apache.iceberg.ManifestFiles;
+import org.apache.iceberg.PartitionSpec;
+import org.apache.iceberg.ReachableFileUtil;
+import org.apache.iceberg.RewriteFiles;
+import org.apache.iceberg.Snapshot;
+import org.apache.iceberg.SnapshotSummary;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.TableProperties;
+import org.apache.iceberg.data.Record;
+import org.apache.iceberg.exceptions.CommitFailedException;
+import org.apache.iceberg.exceptions.CommitStateUnknownException;
+import org.apache.iceberg.exceptions.ValidationException;
+import org.apache.iceberg.io.CloseableIterable;
+import org.apache.iceberg.io.FileInfo;
+import org.apache.iceberg.io.SupportsPrefixOperations;
+import org.apache.iceberg.io.TaskWriter;
+import org.apache.iceberg.util.ContentFileUtil;
+import org.apache.iceberg.util.PropertyUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Background maintenance of the product table. Each run
+ * <ol>
+ *     <li>bin-packs small data files (and files carrying position deletes) per partition into
+ *     files of the target size, one {@code RewriteFiles} commit per group. Groups whose files
+ *     are each in {@code product_id} order are merged, so the output keeps the table's sort
+ *     order; any other group is sorted in runs like a bulk load,</li>
+ *     <li>expires snapshots older than the retention window,</li>
+ *     <li>rewrites small data manifests clustered by partition,</li>
+ *     <li>removes files under the table location that no snapshot references.</li>
+ * </ol>
+ * Rewrites run on a bounded pool. A commit conflict with foreground writes abandons that group
+ * and backs off exponentially; compaction stops for the run after {@code commit-attempts}
+ * conflicts.
+ */
+@Slf4j
+@Component
+public class TableMaintenance {
+
+    private static final double SMALL_FILE_RATIO = 0.75;
+
+    private final Table productTable;
+    private final ProductFileWriterFactory writerFactory;
+    private final ProductRecordReader recordReader;
+    private final IoLimiter ioLimiter;
+    private final boolean enabled;
+    private final long smallFileBytes;
+    private final long maxGroupBytes;
+    private final int maxGroupFiles;
+    private final int minInputFiles;
+    private final Duration snapshotRetention;
+    private final int minSnapshots;
+    private final Duration orphanFileAge;
+    private final int commitAttempts;
+    private final long backoffMs;
+    private final ExecutorService rewritePool;
+    private final Lock runLock = new ReentrantLock();
+
+    private volatile MaintenanceReport lastReport;
+
+    public TableMaintenance(Table productTable,
+                            ProductFileWriterFactory writerFactory,
+                            ProductRecordReader recordReader,
+                            IoLimiter ioLimiter,
+                            @Value("${iceberg.maintenance.enabled:true}") boolean enabled,
+                            @Value("${iceberg.write.target-file-size-bytes:134217728}") long targetFileSizeBytes,
+                            @Value("${iceberg.maintenance.max-group-size-bytes:1073741824}") long maxGroupBytes,
+                            @Value("${iceberg.maintenance.max-group-files:100}") int maxGroupFiles,
+                            @Value("${iceberg.maintenance.min-input-files:5}") int minInputFiles,
+                            @Value("${iceberg.maintenance.snapshot-retention:1h}") Duration snapshotRetention,
+                            @Value("${iceberg.maintenance.min-snapshots:10}") int minSnapshots,
+                            @Value("${iceberg.maintenance.orphan-file-age:3d}") Duration orphanFileAge,
+                            @Value("${iceberg.maintenance.parallelism:2}") int parallelism,
+                            @Value("${iceberg.maintenance.commit-attempts:3}") int commitAttempts,
+                            @Value("${iceberg.maintenance.backoff-ms:1000}") long backoffMs) {
+        this.productTable = productTable;
+        this.writerFactory = writerFactory;
+        this.recordReader = recordReader;
+        this.ioLimiter = ioLimiter;
+        this.enabled = enabled;
+        this.smallFileBytes = (long) (targetFileSizeBytes * SMALL_FILE_RATIO);
+        this.maxGroupBytes = maxGroupBytes;
+        this.maxGroupFiles = maxGroupFiles;
+        this.minInputFiles = minInputFiles;
+        this.snapshotRetention = snapshotRetention;
+        this.minSnapshots = minSnapshots;
+        this.orphanFileAge = orphanFileAge;
+        this.commitAttempts = commitAttempts;
+        this.backoffMs = backoffMs;
+        this.rewritePool = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "table-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        rewritePool.shutdownNow();
+    }
+
+    @Scheduled(initialDelayString = "${iceberg.maintenance.interval-ms:600000}",
+            fixedDelayString = "${iceberg.maintenance.interval-ms:600000}")
+    void scheduledRun() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            run();
+        } catch (RuntimeException e) {
+            log.error("Table maintenance failed", e);
+        }
+    }
+
+    public Optional<MaintenanceReport> lastReport() {
+        return Optional.ofNullable(lastReport);
+    }
+
+    public MaintenanceReport run() {
+        if (!runLock.tryLock()) {
+            throw new IllegalStateException("Table maintenance is already running");
+        }
+        try {
+            Instant startedAt = Instant.now();
+            productTable.refresh();
+            MaintenanceReport.Footprint before = footprint();
+
+            Compaction compaction = compactDataFiles();
+            int expired = withBackoff("expire snapshots", this::expireSnapshots);
+            withBackoff("rewrite manifests", this::rewriteManifests);
+            int orphans = removeOrphanFiles();
+
+            MaintenanceReport report = new MaintenanceReport(startedAt,
+                    Duration.between(startedAt, Instant.now()).toMillis(),
+                    before, footprint(),
+                    compaction.rewrittenDataFiles().get(), compaction.addedDataFiles().get(),
+                    compaction.removedDeleteFiles().get(), compaction.skippedGroups().get(),
+                    compaction.conflicts().get(), expired, orphans);
+            log.info("Table maintenance finished: {}", report);
+            lastReport = report;
+            return report;
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    private Compaction compactDataFiles() {
+        Compaction compaction = new Compaction();
+        Snapshot snapshot = productTable.currentSnapshot();
+        if (snapshot == null) {
+            return compaction;
+        }
+
+        List<List<FileScanTask>> groups = planGroups(snapshot.snapshotId());
+        List<Future<?>> rewrites = new ArrayList<>();
+        for (List<FileScanTask> group : groups) {
+            rewrites.add(rewritePool.submit(() -> rewriteGroup(snapshot.snapshotId(), group, compaction)));
+        }
+        for (Future<?> rewrite : rewrites) {
+            try {
+                rewrite.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                rewrites.forEach(pending -> pending.cancel(true));
+                throw new DataAccessException("Table maintenance interrupted", e);
+            } catch (ExecutionException e) {
+                compaction.skippedGroups().incrementAndGet();
+                log.error("Failed to compact a file group", e.getCause());
+            }
+        }
+        return compaction;
+    }
+
+    private List<List<FileScanTask>> planGroups(long snapshotId) {
+        Map<String, List<FileScanTask>> byPartition = new LinkedHashMap<>();
+        try (CloseableIterable<FileScanTask> tasks = productTable.newScan()
+                .useSnapshot(snapshotId)
+                .includeColumnStats()
+                .planFiles()) {
+            for (FileScanTask task : tasks) {
+                if (task.file().fileSizeInBytes() < smallFileBytes || !task.deletes().isEmpty()) {
+                    PartitionSpec spec = task.spec();
+                    String partition = spec.specId() + "/" + spec.partitionToPath(task.file().partition());
+                    byPartition.computeIfAbsent(partition, key -> new ArrayList<>()).add(task);
+                }
+            }
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to plan table compaction", e);
+        }
+
+        List<List<FileScanTask>> groups = new ArrayList<>();
+        for (List<FileScanTask> candidates : byPartition.values()) {
+            candidates.sort(Comparator.comparingLong(task -> task.file().fileSizeInBytes()));
+            List<FileScanTask> group = new ArrayList<>();
+            long groupBytes = 0;
+            for (FileScanTask task : candidates) {
+                if (!group.isEmpty() && (groupBytes + task.file().fileSizeInBytes() > maxGroupBytes
+                        || group.size() >= maxGroupFiles)) {
+                    addIfWorthRewriting(groups, group);
+                    group = new ArrayList<>();
+                    groupBytes = 0;
+                }
+                group.add(task);
+                groupBytes += task.file().fileSizeInBytes();
+            }
+            addIfWorthRewriting(groups, group);
+        }
+        log.debug("Planned {} compaction groups at snapshot {}", groups.size(), snapshotId);
+        return groups;
+    }
+
+    private void addIfWorthRewriting(List<List<FileScanTask>> groups, List<FileScanTask> group) {
+        boolean hasDeletes = group.stream().anyMatch(task -> !task.deletes().isEmpty());
+        if (group.size() >= minInputFiles || (hasDeletes && !group.isEmpty())) {
+            groups.add(group);
+        }
+    }
+
+    private void rewriteGroup(long snapshotId, List<FileScanTask> group, Compaction compaction) {
+        if (compaction.conflicts().get() >= commitAttempts) {
+            compaction.skippedGroups().incrementAndGet();
+            return;
+        }
+
+        Set<DataFile> rewritten = new HashSet<>();
+        Set<String> rewrittenPaths = new HashSet<>();
+        Set<DeleteFile> obsoleteDeletes = new HashSet<>();
+        for (FileScanTask task : group) {
+            rewritten.add(task.file());
+            rewrittenPaths.add(task.file().location());
+        }
+        for (FileScanTask task : group) {
+            for (DeleteFile deleteFile : task.deletes()) {
+                if (rewrittenPaths.contains(ContentFileUtil.referencedDataFileLocation(deleteFile))) {
+                    obsoleteDeletes.add(deleteFile);
+                }
+            }
+        }
+
+        List<DataFile> added = writeLiveRows(group);
+        try (IoLimiter.Permit permit = ioLimiter.acquireCommit()) {
+            RewriteFiles rewrite = CommitProperties.stamp(productTable.newRewrite())
+                    .validateFromSnapshot(snapshotId);
+            rewritten.forEach(rewrite::deleteFile);
+            obsoleteDeletes.forEach(rewrite::deleteFile);
+            added.forEach(rewrite::addFile);
+            rewrite.commit();
+        } catch (CommitFailedException | ValidationException e) {
+            deleteQuietly(added);
+            int conflicts = compaction.conflicts().incrementAndGet();
+            compaction.skippedGroups().incrementAndGet();
+            log.warn("Compaction of {} files conflicted with a concurrent commit ({}/{}): {}",
+                    group.size(), conflicts, commitAttempts, e.getMessage());
+            backOff(conflicts);
+            return;
+        } catch (CommitStateUnknownException e) {
+            // the rewrite may have landed and reference the compacted files, so they must stay
+            log.error("Compaction commit of {} files has an unknown outcome, keeping {} written files",
+                    group.size(), added.size(), e);
+            throw e;
+        } catch (RuntimeException e) {
+            deleteQuietly(added);
+            throw e;
+        }
+
+        compaction.rewrittenDataFiles().addAndGet(rewritten.size());
+        compaction.addedDataFiles().addAndGet(added.size());
+        compaction.removedDeleteFiles().addAndGet(obsoleteDeletes.size());
+    }
+
+    private List<DataFile> writeLiveRows(List<FileScanTask> group) {
+        try {
+            return isSorted(group) ? mergeSorted(group) : writeSortedRuns(group);
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to rewrite data files", e);
+        }
+    }
+
+    /**
+     * Whether the live rows of every file come in {@code product_id} order. Reads only the key
+     * column, which costs little next to the rewrite itself.
+     */
+    private boolean isSorted(List<FileScanTask> group) throws IOException {
+        for (FileScanTask task : group) {
+            try (CloseableIterable<Record> rows = recordReader.open(task, ProductRecordReader.KEY_PROJECTION)) {
+                long previous = Long.MIN_VALUE;
+                for (Record row : rows) {
+                    long productId = (Long) row.getField("product_id");
+                    if (productId < previous) {
+                        log.debug("Data file {} is not in product_id order", task.file().location());
+                        return false;
+                    }
+                    previous = productId;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Merges the sorted files of the group into sorted files of the target size, holding one
+     * row per input file in memory.
+     */
+    private List<DataFile> mergeSorted(List<FileScanTask> group) throws IOException {
+        TaskWriter<Record> writer = writerFactory.newTaskWriter(group.stream()
+                .mapToLong(task -> task.file().recordCount())
+                .sum());
+        List<CloseableIterable<Record>> inputs = new ArrayList<>();
+        try {
+            PriorityQueue<MergeHead> heads = new PriorityQueue<>(
+                    Comparator.comparing(MergeHead::row, SortedRunWriter.PRODUCT_ID_ORDER));
+            for (FileScanTask task : group) {
+                CloseableIterable<Record> rows = recordReader.open(task, productTable.schema());
+                inputs.add(rows);
+                Iterator<Record> iterator = rows.iterator();
+                if (iterator.hasNext()) {
+                    heads.add(new MergeHead(iterator.next(), iterator));
+                }
+            }
+            while (!heads.isEmpty()) {
+                MergeHead head = heads.poll();
+                writer.write(head.row());
+                if (head.rows().hasNext()) {
+                    heads.add(new MergeHead(head.rows().next(), head.rows()));
+                }
+            }
+            return Arrays.asList(writer.dataFiles());
+        } catch (IOException | RuntimeException e) {
+            abortQuietly(writer::abort, e);
+            throw e;
+        } finally {
+            for (CloseableIterable<Record> input : inputs) {
+                input.close();
+            }
+        }
+    }
+
+    private List<DataFile> writeSortedRuns(List<FileScanTask> group) throws IOException {
+        SortedRunWriter writer = writerFactory.newSortedRunWriter();
+        try {
+            for (FileScanTask task : group) {
+                try (CloseableIterable<Record> rows = recordReader.open(task, productTable.schema())) {
+                    for (Record row : rows) {
+                        writer.write(row.copy());
+                    }
+                }
+            }
+            return Arrays.asList(writer.dataFiles());
+        } catch (IOException | RuntimeException e) {
+            abortQuietly(writer::abort, e);
+            throw e;
+        }
+    }
+
+    private static void abortQuietly(Abort abort, Exception failure) {
+        try {
+            abort.run();
+        } catch (IOException | RuntimeException abortFailure) {
+            failure.addSuppressed(abortFailure);
+        }
+    }
+
+    private int expireSnapshots() {
+        int before = snapshotCount();
+        productTable.expireSnapshots()
+                .expireOlderThan(System.currentTimeMillis() - snapshotRetention.toMillis())
+                .retainLast(minSnapshots)
+                .commit();
+        return before - snapshotCount();
+    }
+
+    private int rewriteManifests() {
+        Snapshot snapshot = productTable.currentSnapshot();
+        if (snapshot == null) {
+            return 0;
+        }
+        long targetManifestBytes = PropertyUtil.propertyAsLong(productTable.properties(),
+                TableProperties.MANIFEST_TARGET_SIZE_BYTES, TableProperties.MANIFEST_TARGET_SIZE_BYTES_DEFAULT);
+        long smallManifests = snapshot.dataManifests(productTable.io()).stream()
+                .filter(manifest -> manifest.length() < targetManifestBytes)
+                .count();
+        if (smallManifests < minInputFiles) {
+            return 0;
+        }
+
+        Map<Integer, PartitionSpec> specs = productTable.specs();
+        CommitProperties.stamp(productTable.rewriteManifests())
+                .clusterBy(file -> file.specId() + "/" + specs.get(file.specId()).partitionToPath(file.partition()))
+                .rewriteIf(manifest -> manifest.length() < targetManifestBytes)
+                .commit();
+        return (int) smallManifests;
+    }
+
+    /**
+     * Deletes files under the table location that no snapshot, manifest or metadata file
+     * references. Files younger than {@code orphan-file-age} are kept because they may belong
+     * to a commit still in flight.
+     */
+    private int removeOrphanFiles() {
+        if (!(productTable.io() instanceof SupportsPrefixOperations io)) {
+            log.warn("Skip orphan file removal: {} cannot list files", productTable.io().getClass().getSimpleName());
+            return 0;
+        }
+
+        Set<String> reachable = reachableFiles();
+        long cutoff = System.currentTimeMillis() - orphanFileAge.toMillis();
+        int removed = 0;
+        for (FileInfo file : io.listPrefix(productTable.location())) {
+            String name = file.location().substring(file.location().lastIndexOf('/') + 1);
+            if (file.createdAtMillis() >= cutoff
+                    || name.startsWith(".") || name.startsWith("_")
+                    || reachable.contains(normalize(file.location()))) {
+                continue;
+            }
+            log.debug("Remove orphan file {}", file.location());
+            io.deleteFile(file.location());
+            removed++;
+        }
+        return removed;
+    }
+
+    private Set<String> reachableFiles() {
+        Set<String> locations = new HashSet<>(ReachableFileUtil.metadataFileLocations(productTable, true));
+        locations.add(ReachableFileUtil.versionHintLocation(productTable));
+        locations.addAll(ReachableFileUtil.statisticsFilesLocations(productTable));
+
+        Set<String> manifests = new HashSet<>();
+        for (Snapshot snapshot : productTable.snapshots()) {
+            locations.add(snapshot.manifestListLocation());
+            for (ManifestFile manifest : snapshot.allManifests(productTable.io())) {
+                if (!manifests.add(manifest.path())) {
+                    continue;
+                }
+                try (CloseableIterable<String> paths = manifest.content() == ManifestContent.DATA
+                        ? ManifestFiles.readPaths(manifest, productTable.io())
+                        : CloseableIterable.transform(
+                                ManifestFiles.readDeleteManifest(manifest, productTable.io(), productTable.specs()),
+                                DeleteFile::location)) {
+                    paths.forEach(locations::add);
+                } catch (IOException e) {
+                    throw new DataAccessException("Failed to read manifest " + manifest.path(), e);
+                }
+            }
+        }
+        locations.addAll(manifests);
+        return locations.stream()
+                .map(TableMaintenance::normalize)
+                .collect(Collectors.toSet());
+    }
+
+    private static String normalize(String location) {
+        return new Path(location).toUri().getPath();
+    }
+
+    private MaintenanceReport.Footprint footprint() {
+        Snapshot snapshot = productTable.currentSnapshot();
+        if (snapshot == null) {
+            return new MaintenanceReport.Footprint(0, 0, 0, 0, 0);
+        }
+        Map<String, String> summary = snapshot.summary();
+        return new MaintenanceReport.Footprint(
+                PropertyUtil.propertyAsLong(summary, SnapshotSummary.TOTAL_DATA_FILES_PROP, 0),
+                PropertyUtil.propertyAsLong(summary, SnapshotSummary.TOTAL_DELETE_FILES_PROP, 0),
+                PropertyUtil.propertyAsLong(summary, SnapshotSummary.TOTAL_FILE_SIZE_PROP, 0),
+                snapshot.allManifests(productTable.io()).size(),
+                snapshotCount());
+    }
+
+    private int snapshotCount() {
+        int count = 0;
+        for (Snapshot ignored : productTable.snapshots()) {
+            count++;
+        }
+        return count;
+    }
+
+    private int withBackoff(String operation, Supplier<Integer> step) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return step.get();
+            } catch (CommitFailedException | ValidationException e) {
+                if (attempt >= commitAttempts) {
+                    log.warn("Giving up on {} after {} conflicting attempts", operation, attempt, e);
+                    return 0;
+                }
+                log.warn("Conflict during {} on attempt {}/{}: {}", operation, attempt, commitAttempts, e.getMessage());
+                backOff(attempt);
+                productTable.refresh();
+            }
+        }
+    }
+
+    private void backOff(int conflicts) {
+        try {
+            Thread.sleep(backoffMs << Math.min(conflicts - 1, 10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void deleteQuietly(List<DataFile> files) {
+        for (DataFile file : files) {
+            try {
+                productTable.io().deleteFile(file.location());
+            } catch (RuntimeException e) {
+                log.warn("Failed to clean up uncommitted file {}", file.location(), e);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Abort {
+        void run() throws IOException;
+    }
+
+    private record MergeHead(Record row, Iterator<Record> rows) {
+    }
+
+    private record Compaction(AtomicInteger rewrittenDataFiles,
+                              AtomicInteger addedDataFiles,
+                              AtomicInteger removedDeleteFiles,
+                              AtomicInteger skippedGroups,
+                              AtomicInteger conflicts) {
+
+        Compaction() {
+            this(new AtomicInteger(), new AtomicInteger(), new AtomicInteger(), new AtomicInteger(), new AtomicInteger());
+        }
+    }
+}
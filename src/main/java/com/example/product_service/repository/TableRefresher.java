@@ -0,0 +1,31 @@
+package com.example.product_service.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.iceberg.Table;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically reloads table metadata so snapshots committed by other instances become visible,
+ * and lets the product cache drop its entries when any of them was written elsewhere.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TableRefresher {
+
+    private final Table productTable;
+    private final ProductCache productCache;
+
+    @Scheduled(fixedDelayString = "${iceberg.table.refresh-interval-ms:10000}")
+    public void refresh() {
+        try {
+            productTable.refresh();
+        } catch (RuntimeException e) {
+            log.warn("Failed to refresh product table", e);
+            return;
+        }
+        productCache.checkForeignSnapshots();
+    }
+}
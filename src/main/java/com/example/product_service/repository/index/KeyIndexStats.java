@@ -0,0 +1,4 @@
+package com.example.product_service.repository.index;
+
+public record KeyIndexStats(boolean enabled, Long snapshotId, int keys, int dataFiles, long memoryBytes) {
+}
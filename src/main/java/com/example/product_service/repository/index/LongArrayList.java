@@ -0,0 +1,42 @@
+package com.example.product_service.repository.index;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive {@code long}s.
+ */
+public final class LongArrayList {
+
+    private long[] elements;
+    private int size;
+
+    public LongArrayList() {
+        this(16);
+    }
+
+    public LongArrayList(int initialCapacity) {
+        this.elements = new long[Math.max(initialCapacity, 1)];
+    }
+
+    public void add(long value) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, elements.length << 1);
+        }
+        elements[size++] = value;
+    }
+
+    public long get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return elements[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long[] toArray() {
+        return Arrays.copyOf(elements, size);
+    }
+}
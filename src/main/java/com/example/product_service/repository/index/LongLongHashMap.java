@@ -0,0 +1,220 @@
+package com.example.product_service.repository.index;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from {@code long} keys to non-negative {@code long} values. Keys and
+ * values live in two parallel primitive arrays (16 bytes per slot) probed linearly, so lookups
+ * neither box nor allocate and the footprint is fixed by the capacity. Not thread-safe.
+ */
+public final class LongLongHashMap {
+
+    public static final long NO_VALUE = -1L;
+
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final float LOAD_FACTOR = 0.7f;
+    private static final int MIN_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+
+    private boolean hasEmptyKey;
+    private long emptyKeyValue;
+
+    public LongLongHashMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    public long get(long key) {
+        if (key == EMPTY) {
+            return hasEmptyKey ? emptyKeyValue : NO_VALUE;
+        }
+        int slot = slot(key);
+        long current;
+        while ((current = keys[slot]) != EMPTY) {
+            if (current == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NO_VALUE;
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != NO_VALUE;
+    }
+
+    public long put(long key, long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Values must be non-negative: " + value);
+        }
+        if (key == EMPTY) {
+            long previous = hasEmptyKey ? emptyKeyValue : NO_VALUE;
+            if (!hasEmptyKey) {
+                hasEmptyKey = true;
+                size++;
+            }
+            emptyKeyValue = value;
+            return previous;
+        }
+
+        int slot = slot(key);
+        long current;
+        while ((current = keys[slot]) != EMPTY) {
+            if (current == key) {
+                long previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > resizeThreshold) {
+            resize(keys.length << 1);
+        }
+        return NO_VALUE;
+    }
+
+    public long remove(long key) {
+        if (key == EMPTY) {
+            if (!hasEmptyKey) {
+                return NO_VALUE;
+            }
+            hasEmptyKey = false;
+            size--;
+            return emptyKeyValue;
+        }
+
+        int slot = slot(key);
+        long current;
+        while ((current = keys[slot]) != EMPTY) {
+            if (current == key) {
+                long previous = values[slot];
+                size--;
+                shiftKeys(slot);
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NO_VALUE;
+    }
+
+    /**
+     * Removes every entry whose value matches the predicate and returns how many were removed.
+     */
+    public int removeIfValue(ValuePredicate predicate) {
+        LongArrayList matches = new LongArrayList();
+        forEach((key, value) -> {
+            if (predicate.test(value)) {
+                matches.add(key);
+            }
+        });
+        for (int i = 0; i < matches.size(); i++) {
+            remove(matches.get(i));
+        }
+        return matches.size();
+    }
+
+    public void forEach(EntryConsumer consumer) {
+        if (hasEmptyKey) {
+            consumer.accept(EMPTY, emptyKeyValue);
+        }
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                consumer.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        hasEmptyKey = false;
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long memoryBytes() {
+        return (long) keys.length * (Long.BYTES + Long.BYTES);
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void shiftKeys(int slot) {
+        int last;
+        long current;
+        while (true) {
+            last = slot;
+            slot = (slot + 1) & mask;
+            while (true) {
+                if ((current = keys[slot]) == EMPTY) {
+                    keys[last] = EMPTY;
+                    return;
+                }
+                int ideal = slot(current);
+                if (last <= slot ? last >= ideal || ideal > slot : last >= ideal && ideal > slot) {
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[last] = current;
+            values[last] = values[slot];
+        }
+    }
+
+    private void resize(int capacity) {
+        if (capacity > MAX_CAPACITY) {
+            throw new IllegalStateException("LongLongHashMap cannot grow beyond " + MAX_CAPACITY + " slots");
+        }
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != EMPTY) {
+                int slot = slot(key);
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int capacityFor(int expectedSize) {
+        long needed = (long) Math.ceil(Math.max(expectedSize, MIN_CAPACITY) / (double) LOAD_FACTOR);
+        if (needed > MAX_CAPACITY) {
+            return MAX_CAPACITY;
+        }
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+
+    @FunctionalInterface
+    public interface ValuePredicate {
+        boolean test(long value);
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long key, long value);
+    }
+}
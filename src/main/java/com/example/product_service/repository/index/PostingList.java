@@ -0,0 +1,125 @@
+package com.example.product_service.repository.index;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.Arrays;
+
+/**
+ * Postings of one term: ascending doc ids with their term frequencies, stored as varint-encoded
+ * doc id gaps and frequencies in one byte array, so a posting usually takes two bytes. Not
+ * thread-safe.
+ */
+final class PostingList {
+
+    private static final int OBJECT_OVERHEAD_BYTES = 40;
+
+    private byte[] bytes = new byte[4];
+    private int length;
+    private int docs;
+    private int lastDoc = -1;
+
+    void add(int docId, int frequency) {
+        if (docId <= lastDoc) {
+            throw new IllegalStateException("Doc ids must be added in ascending order: " + docId + " after " + lastDoc);
+        }
+        if (length + 10 > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length << 1, length + 10));
+        }
+        writeVarInt(docId - lastDoc);
+        writeVarInt(frequency);
+        lastDoc = docId;
+        docs++;
+    }
+
+    void forEach(PostingConsumer consumer) {
+        Cursor cursor = cursor();
+        while (cursor.next()) {
+            consumer.accept(cursor.docId(), cursor.frequency());
+        }
+    }
+
+    /**
+     * A cursor before the first posting, for walking several lists side by side in doc id order.
+     */
+    Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Drops the postings of docs that are no longer live and trims the array.
+     */
+    PostingList retain(RoaringBitmap liveDocs) {
+        PostingList retained = new PostingList();
+        forEach((docId, frequency) -> {
+            if (liveDocs.contains(docId)) {
+                retained.add(docId, frequency);
+            }
+        });
+        retained.bytes = Arrays.copyOf(retained.bytes, retained.length);
+        return retained;
+    }
+
+    /**
+     * Number of postings, including those of docs deleted since the last {@link #retain}.
+     */
+    int docs() {
+        return docs;
+    }
+
+    long memoryBytes() {
+        return OBJECT_OVERHEAD_BYTES + bytes.length;
+    }
+
+    private void writeVarInt(int value) {
+        while ((value & ~0x7F) != 0) {
+            bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[length++] = (byte) value;
+    }
+
+    /**
+     * Forward-only position in the postings. Past the last posting the doc id is
+     * {@link Integer#MAX_VALUE}, which no document gets.
+     */
+    final class Cursor {
+
+        private int position;
+        private int docId = -1;
+        private int frequency;
+
+        boolean next() {
+            if (position >= length) {
+                docId = Integer.MAX_VALUE;
+                return false;
+            }
+            docId += readVarInt();
+            frequency = readVarInt();
+            return true;
+        }
+
+        int docId() {
+            return docId;
+        }
+
+        int frequency() {
+            return frequency;
+        }
+
+        private int readVarInt() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = bytes[position++];
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface PostingConsumer {
+        void accept(int docId, int frequency);
+    }
+}
@@ -0,0 +1,281 @@
+package com.example.product_service.repository.index;
+
+import com.example.product_service.infrastructure.exception.DataAccessException;
+import com.example.product_service.repository.ProductRecordReader;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.iceberg.DataFile;
+import org.apache.iceberg.DeleteFile;
+import org.apache.iceberg.FileContent;
+import org.apache.iceberg.FileScanTask;
+import org.apache.iceberg.MetadataColumns;
+import org.apache.iceberg.Snapshot;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.data.Record;
+import org.apache.iceberg.expressions.Expressions;
+import org.apache.iceberg.io.CloseableIterable;
+import org.apache.iceberg.util.SnapshotUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Primary-key index from {@code product_id} to the data file and row position holding the live
+ * row. Locations are packed into one {@code long} (file id in the high 32 bits, row position in
+ * the low 32 bits) inside a {@link LongLongHashMap}, so the footprint is 16 bytes per slot.
+ * The id of a removed file goes to the next added one, so the file table grows with the number
+ * of live files rather than with every commit and compaction. The index is built from the current snapshot at startup and caught up lazily with the added
+ * and removed files and position deletes of every newer snapshot before a lookup.
+ */
+@Slf4j
+@Component
+public class ProductKeyIndex {
+
+    private static final long NO_SNAPSHOT = -1L;
+
+    private final Table productTable;
+    private final ProductRecordReader recordReader;
+    private final boolean enabled;
+    private final int expectedKeys;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<String> filePaths = new ArrayList<>();
+    private final Map<String, Integer> fileIds = new HashMap<>();
+    private final Deque<Integer> freeFileIds = new ArrayDeque<>();
+    private LongLongHashMap locations;
+    private volatile long indexedSnapshotId = NO_SNAPSHOT;
+
+    public ProductKeyIndex(Table productTable,
+                           ProductRecordReader recordReader,
+                           @Value("${iceberg.index.primary-key.enabled:false}") boolean enabled,
+                           @Value("${iceberg.index.primary-key.expected-keys:1000000}") int expectedKeys) {
+        this.productTable = productTable;
+        this.recordReader = recordReader;
+        this.enabled = enabled;
+        this.expectedKeys = expectedKeys;
+    }
+
+    @PostConstruct
+    void build() {
+        if (enabled) {
+            lock.writeLock().lock();
+            try {
+                rebuild(productTable.currentSnapshot());
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Optional<RowLocation> lookup(long productId) {
+        sync();
+        lock.readLock().lock();
+        try {
+            long location = locations.get(productId);
+            if (location == LongLongHashMap.NO_VALUE) {
+                return Optional.empty();
+            }
+            return Optional.of(new RowLocation(filePaths.get(fileId(location)), position(location)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Brings the index up to the table's current snapshot. Snapshots that descend from the
+     * indexed one are applied incrementally; anything else (rollback, expired history) rebuilds.
+     */
+    public void sync() {
+        Snapshot current = productTable.currentSnapshot();
+        long currentId = current != null ? current.snapshotId() : NO_SNAPSHOT;
+        if (!enabled || currentId == indexedSnapshotId) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (currentId == indexedSnapshotId) {
+                return;
+            }
+            if (indexedSnapshotId == NO_SNAPSHOT
+                    || !SnapshotUtil.isAncestorOf(productTable, currentId, indexedSnapshotId)) {
+                rebuild(current);
+                return;
+            }
+
+            List<Snapshot> newSnapshots = new ArrayList<>();
+            SnapshotUtil.ancestorsBetween(currentId, indexedSnapshotId, productTable::snapshot)
+                    .forEach(newSnapshots::add);
+            for (int i = newSnapshots.size() - 1; i >= 0; i--) {
+                if (!apply(newSnapshots.get(i))) {
+                    rebuild(current);
+                    return;
+                }
+            }
+            indexedSnapshotId = currentId;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public KeyIndexStats stats() {
+        if (!enabled) {
+            return new KeyIndexStats(false, null, 0, 0, 0);
+        }
+        lock.readLock().lock();
+        try {
+            return new KeyIndexStats(true,
+                    indexedSnapshotId == NO_SNAPSHOT ? null : indexedSnapshotId,
+                    locations.size(), fileIds.size(), locations.memoryBytes());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void rebuild(Snapshot snapshot) {
+        long start = System.nanoTime();
+        filePaths.clear();
+        fileIds.clear();
+        freeFileIds.clear();
+        locations = new LongLongHashMap(expectedKeys);
+        if (snapshot == null) {
+            indexedSnapshotId = NO_SNAPSHOT;
+            return;
+        }
+
+        List<FileScanTask> tasks = new ArrayList<>();
+        try (CloseableIterable<FileScanTask> planned = productTable.newScan()
+                .useSnapshot(snapshot.snapshotId())
+                .planFiles()) {
+            planned.forEach(tasks::add);
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to plan primary-key index build", e);
+        }
+
+        tasks.sort(Comparator.comparingLong(task -> task.file().dataSequenceNumber()));
+        for (FileScanTask task : tasks) {
+            index(task.file().location(), recordReader.open(task, ProductRecordReader.KEY_PROJECTION));
+        }
+        indexedSnapshotId = snapshot.snapshotId();
+        log.info("Built primary-key index at snapshot {}: {} keys in {} data files, {} MB, {} ms",
+                indexedSnapshotId, locations.size(), fileIds.size(),
+                locations.memoryBytes() / (1024 * 1024),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Applies one snapshot's changes. Returns {@code false} when they cannot be applied
+     * incrementally (equality deletes, or position deletes written without the deleted row).
+     * Removed files are dropped first, so no key points at a file id by the time it is reused.
+     */
+    private boolean apply(Snapshot snapshot) {
+        Set<Integer> removed = new HashSet<>();
+        for (DataFile file : snapshot.removedDataFiles(productTable.io())) {
+            Integer id = fileIds.remove(file.location());
+            if (id != null) {
+                filePaths.set(id, null);
+                removed.add(id);
+            }
+        }
+        if (!removed.isEmpty()) {
+            int dropped = locations.removeIfValue(location -> removed.contains(fileId(location)));
+            freeFileIds.addAll(removed);
+            log.debug("Dropped {} keys of {} removed data files in snapshot {}",
+                    dropped, removed.size(), snapshot.snapshotId());
+        }
+
+        for (DeleteFile file : snapshot.addedDeleteFiles(productTable.io())) {
+            if (file.content() != FileContent.POSITION_DELETES || !removePositionDeletes(file)) {
+                log.info("Snapshot {} adds {} {} that the index cannot apply, rebuilding",
+                        snapshot.snapshotId(), file.content(), file.location());
+                return false;
+            }
+        }
+
+        for (DataFile file : snapshot.addedDataFiles(productTable.io())) {
+            index(file.location(), recordReader.openFile(file.location(), ProductRecordReader.KEY_PROJECTION, Expressions.alwaysTrue()));
+        }
+        return true;
+    }
+
+    private boolean removePositionDeletes(DeleteFile file) {
+        try (CloseableIterable<Record> deletes = recordReader.openPositionDeletes(file)) {
+            for (Record delete : deletes) {
+                Record row = (Record) delete.getField(MetadataColumns.DELETE_FILE_ROW_FIELD_NAME);
+                if (row == null) {
+                    return false;
+                }
+                Integer fileId = fileIds.get((String) delete.getField(MetadataColumns.DELETE_FILE_PATH.name()));
+                if (fileId == null) {
+                    continue;
+                }
+                long productId = (Long) row.getField("product_id");
+                long position = (Long) delete.getField(MetadataColumns.DELETE_FILE_POS.name());
+                if (locations.get(productId) == pack(fileId, position)) {
+                    locations.remove(productId);
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to read delete file " + file.location(), e);
+        }
+    }
+
+    private void index(String path, CloseableIterable<Record> records) {
+        int fileId = registerFile(path);
+        try (records) {
+            for (Record record : records) {
+                long productId = (Long) record.getField("product_id");
+                long position = (Long) record.getField(MetadataColumns.ROW_POSITION.name());
+                locations.put(productId, pack(fileId, position));
+            }
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to index data file " + path, e);
+        }
+    }
+
+    private int registerFile(String path) {
+        return fileIds.computeIfAbsent(path, p -> {
+            Integer free = freeFileIds.poll();
+            if (free != null) {
+                filePaths.set(free, p);
+                return free;
+            }
+            filePaths.add(p);
+            return filePaths.size() - 1;
+        });
+    }
+
+    private static long pack(int fileId, long position) {
+        if (position > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Row position does not fit the primary-key index: " + position);
+        }
+        return ((long) fileId << 32) | position;
+    }
+
+    private static int fileId(long location) {
+        return (int) (location >>> 32);
+    }
+
+    private static long position(long location) {
+        return location & 0xFFFFFFFFL;
+    }
+}
@@ -0,0 +1,466 @@
+package com.example.product_service.repository.index;
+
+import com.example.product_service.infrastructure.exception.DataAccessException;
+import com.example.product_service.repository.ParallelScanner;
+import com.example.product_service.repository.ProductRecordReader;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.iceberg.BaseCombinedScanTask;
+import org.apache.iceberg.CombinedScanTask;
+import org.apache.iceberg.DataFile;
+import org.apache.iceberg.DeleteFile;
+import org.apache.iceberg.FileContent;
+import org.apache.iceberg.FileScanTask;
+import org.apache.iceberg.MetadataColumns;
+import org.apache.iceberg.Schema;
+import org.apache.iceberg.Snapshot;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.data.Record;
+import org.apache.iceberg.expressions.Expressions;
+import org.apache.iceberg.io.CloseableIterable;
+import org.apache.iceberg.types.TypeUtil;
+import org.apache.iceberg.util.SnapshotUtil;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory full-text index over the product text columns, ranked with BM25. Documents are rows:
+ * like {@link ProductSecondaryIndex}, every data file gets a contiguous range of 32-bit doc ids
+ * sized by its record count, and a {@link RoaringBitmap} holds the live ones. Each term maps to a
+ * {@link PostingList} of varint-compressed doc id gaps and frequencies. A term in the title counts
+ * three times and one in the brand twice, which boosts those columns without scoring them
+ * separately. A search walks the posting lists of its terms side by side and scores one doc at
+ * a time, keeping only the best {@code limit}; each hit carries its row's file and position so
+ * the caller can read hits file by file.
+ *
+ * <p>The index is built with a parallel scan on first use, or by the scheduled refresh shortly
+ * after startup, and caught up snapshot by snapshot before every search and on a schedule.
+ * Deleted docs stay in the postings, skipped at query time, until they make up a quarter of the
+ * index and the postings are rewritten.
+ */
+@Slf4j
+@Component
+public class ProductSearchIndex {
+
+    private static final Map<String, Integer> FIELD_WEIGHTS = Map.of(
+            "title", 3,
+            "brand", 2,
+            "material", 1,
+            "description", 1);
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final long NO_SNAPSHOT = -1L;
+    private static final int MIN_DOC_CAPACITY = 1024;
+    // ascending score; on a tie the later doc ranks lower
+    private static final Comparator<ScoredDoc> RANKING = Comparator.comparingDouble(ScoredDoc::score)
+            .thenComparing(ScoredDoc::docId, Comparator.reverseOrder());
+
+    private final Table productTable;
+    private final ProductRecordReader recordReader;
+    private final ParallelScanner scanner;
+    private final boolean enabled;
+    private final Schema projection;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, IndexedFile> filesByPath = new HashMap<>();
+    private final NavigableMap<Integer, IndexedFile> filesByFirstDoc = new TreeMap<>();
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private RoaringBitmap liveDocs = new RoaringBitmap();
+    private int[] docLengths = new int[0];
+    private long[] productIds = new long[0];
+    private int nextDocId;
+    private long liveLength;
+    private long deadDocs;
+    private volatile boolean loaded;
+    private volatile long indexedSnapshotId = NO_SNAPSHOT;
+
+    public ProductSearchIndex(Table productTable,
+                              ProductRecordReader recordReader,
+                              ParallelScanner scanner,
+                              @Value("${iceberg.index.search.enabled:false}") boolean enabled) {
+        this.productTable = productTable;
+        this.recordReader = recordReader;
+        this.scanner = scanner;
+        this.enabled = enabled;
+        List<String> columns = new ArrayList<>(FIELD_WEIGHTS.keySet());
+        columns.add("product_id");
+        this.projection = TypeUtil.join(productTable.schema().select(columns),
+                new Schema(MetadataColumns.ROW_POSITION));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The {@code limit} best-scoring live products for the query, best first, and the number of
+     * products matching any query term.
+     */
+    public SearchResult search(String query, int limit) {
+        List<String> terms = List.copyOf(new LinkedHashSet<>(TextAnalyzer.tokens(query)));
+        load();
+        sync();
+        lock.readLock().lock();
+        try {
+            int documents = liveDocs.getCardinality();
+            if (terms.isEmpty() || documents == 0 || limit <= 0) {
+                return new SearchResult(0, List.of());
+            }
+            double averageLength = (double) liveLength / documents;
+            PostingList.Cursor[] cursors = new PostingList.Cursor[terms.size()];
+            double[] idfs = new double[terms.size()];
+            int termCount = 0;
+            for (String term : terms) {
+                PostingList posting = postings.get(term);
+                if (posting == null) {
+                    continue;
+                }
+                int frequency = Math.min(posting.docs(), documents);
+                idfs[termCount] = Math.log(1 + (documents - frequency + 0.5) / (frequency + 0.5));
+                cursors[termCount] = posting.cursor();
+                cursors[termCount++].next();
+            }
+
+            PriorityQueue<ScoredDoc> best = new PriorityQueue<>(RANKING);
+            long matched = 0;
+            while (true) {
+                int docId = Integer.MAX_VALUE;
+                for (int i = 0; i < termCount; i++) {
+                    docId = Math.min(docId, cursors[i].docId());
+                }
+                if (docId == Integer.MAX_VALUE) {
+                    break;
+                }
+                boolean live = liveDocs.contains(docId);
+                double norm = live ? K1 * (1 - B + B * docLengths[docId] / averageLength) : 0;
+                float score = 0;
+                for (int i = 0; i < termCount; i++) {
+                    PostingList.Cursor cursor = cursors[i];
+                    if (cursor.docId() == docId) {
+                        if (live) {
+                            int termFrequency = cursor.frequency();
+                            score += (float) (idfs[i] * termFrequency * (K1 + 1) / (termFrequency + norm));
+                        }
+                        cursor.next();
+                    }
+                }
+                if (live) {
+                    matched++;
+                    // docs arrive in ascending order, so a tie with the weakest kept doc never displaces it
+                    if (best.size() < limit) {
+                        best.add(new ScoredDoc(docId, score));
+                    } else if (score > best.peek().score()) {
+                        best.poll();
+                        best.add(new ScoredDoc(docId, score));
+                    }
+                }
+            }
+            return new SearchResult(matched, hits(best));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Brings a loaded index up to the table's current snapshot. Snapshots that descend from the
+     * indexed one are applied incrementally; anything else (rollback, expired history) rebuilds.
+     */
+    public void sync() {
+        Snapshot current = productTable.currentSnapshot();
+        long currentId = current != null ? current.snapshotId() : NO_SNAPSHOT;
+        if (!loaded || currentId == indexedSnapshotId) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            catchUp(current);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${iceberg.index.search.sync-interval-ms:5000}")
+    void refresh() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            load();
+            sync();
+        } catch (RuntimeException e) {
+            log.warn("Failed to refresh search index", e);
+        }
+    }
+
+    public SearchIndexStats stats() {
+        if (!enabled || !loaded) {
+            return new SearchIndexStats(enabled, null, 0, 0, 0, 0);
+        }
+        lock.readLock().lock();
+        try {
+            long postingsBytes = 0;
+            long termBytes = 0;
+            for (Map.Entry<String, PostingList> posting : postings.entrySet()) {
+                postingsBytes += posting.getValue().memoryBytes();
+                // String with its byte array, plus the hash map entry
+                termBytes += 56 + posting.getKey().length() + 32;
+            }
+            long memoryBytes = postingsBytes + termBytes + liveDocs.getLongSizeInBytes()
+                    + (long) docLengths.length * Integer.BYTES + (long) productIds.length * Long.BYTES;
+            return new SearchIndexStats(true, indexedSnapshotId == NO_SNAPSHOT ? null : indexedSnapshotId,
+                    liveDocs.getLongCardinality(), postings.size(), postingsBytes, memoryBytes);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                rebuild(productTable.currentSnapshot());
+                loaded = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void catchUp(Snapshot current) {
+        long currentId = current != null ? current.snapshotId() : NO_SNAPSHOT;
+        if (currentId == indexedSnapshotId) {
+            return;
+        }
+        if (indexedSnapshotId == NO_SNAPSHOT || currentId == NO_SNAPSHOT
+                || !SnapshotUtil.isAncestorOf(productTable, currentId, indexedSnapshotId)) {
+            rebuild(current);
+            return;
+        }
+
+        List<Snapshot> newSnapshots = new ArrayList<>();
+        SnapshotUtil.ancestorsBetween(currentId, indexedSnapshotId, productTable::snapshot)
+                .forEach(newSnapshots::add);
+        for (int i = newSnapshots.size() - 1; i >= 0; i--) {
+            if (!apply(newSnapshots.get(i))) {
+                rebuild(current);
+                return;
+            }
+        }
+        if (deadDocs > liveDocs.getLongCardinality() / 4) {
+            compact();
+        }
+        indexedSnapshotId = currentId;
+    }
+
+    /**
+     * Rebuilds the index with an ordered parallel scan, one task per data file, so every file's
+     * rows arrive in position order and the doc ids added to each posting list keep ascending.
+     */
+    private void rebuild(Snapshot snapshot) {
+        long start = System.nanoTime();
+        clear();
+        if (snapshot == null) {
+            indexedSnapshotId = NO_SNAPSHOT;
+            return;
+        }
+
+        List<CombinedScanTask> tasks = new ArrayList<>();
+        List<IndexedFile> files = new ArrayList<>();
+        try (CloseableIterable<FileScanTask> fileTasks = productTable.newScan()
+                .useSnapshot(snapshot.snapshotId())
+                .planFiles()) {
+            for (FileScanTask task : fileTasks) {
+                IndexedFile file = register(task.file());
+                if (file == null) {
+                    throw new IllegalStateException("Product table has more rows than the search index can address");
+                }
+                tasks.add(new BaseCombinedScanTask(task));
+                files.add(file);
+            }
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to plan search index build", e);
+        }
+        scanner.scan(tasks, projection, true, (task, record) -> {
+            index(files.get(task), record);
+            return true;
+        });
+        liveDocs.runOptimize();
+        indexedSnapshotId = snapshot.snapshotId();
+        log.info("Built search index at snapshot {}: {} documents, {} terms in {} data files, {} ms",
+                indexedSnapshotId, liveDocs.getLongCardinality(), postings.size(), filesByPath.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Applies one snapshot's changes. Returns {@code false} when they cannot be applied
+     * incrementally (equality deletes, or no doc ids left for the added files).
+     */
+    private boolean apply(Snapshot snapshot) {
+        for (DataFile removed : snapshot.removedDataFiles(productTable.io())) {
+            IndexedFile file = filesByPath.remove(removed.location());
+            if (file != null) {
+                filesByFirstDoc.remove(file.firstDoc(), file);
+                for (int docId = file.firstDoc(); docId < file.firstDoc() + file.docs(); docId++) {
+                    remove(docId);
+                }
+            }
+        }
+
+        for (DataFile added : snapshot.addedDataFiles(productTable.io())) {
+            IndexedFile file = register(added);
+            if (file == null) {
+                log.info("Search index ran out of doc ids at snapshot {}, rebuilding", snapshot.snapshotId());
+                return false;
+            }
+            try (CloseableIterable<Record> records =
+                         recordReader.openFile(added.location(), projection, Expressions.alwaysTrue())) {
+                for (Record record : records) {
+                    index(file, record);
+                }
+            } catch (IOException e) {
+                throw new DataAccessException("Failed to index data file " + added.location(), e);
+            }
+        }
+
+        for (DeleteFile deletes : snapshot.addedDeleteFiles(productTable.io())) {
+            if (deletes.content() != FileContent.POSITION_DELETES) {
+                log.info("Snapshot {} adds {} {} that the search index cannot apply, rebuilding",
+                        snapshot.snapshotId(), deletes.content(), deletes.location());
+                return false;
+            }
+            removePositionDeletes(deletes);
+        }
+        return true;
+    }
+
+    private void removePositionDeletes(DeleteFile deletes) {
+        try (CloseableIterable<Record> rows = recordReader.openPositionDeletes(deletes)) {
+            for (Record delete : rows) {
+                IndexedFile file = filesByPath.get((String) delete.getField(MetadataColumns.DELETE_FILE_PATH.name()));
+                if (file != null) {
+                    long position = (Long) delete.getField(MetadataColumns.DELETE_FILE_POS.name());
+                    remove(file.firstDoc() + (int) position);
+                }
+            }
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to read delete file " + deletes.location(), e);
+        }
+    }
+
+    private void index(IndexedFile file, Record record) {
+        int docId = file.firstDoc() + ((Long) record.getField(MetadataColumns.ROW_POSITION.name())).intValue();
+        Map<String, Integer> frequencies = new HashMap<>();
+        int length = 0;
+        for (Map.Entry<String, Integer> field : FIELD_WEIGHTS.entrySet()) {
+            Object text = record.getField(field.getKey());
+            if (text == null) {
+                continue;
+            }
+            for (String token : TextAnalyzer.tokens(text.toString())) {
+                frequencies.merge(token, field.getValue(), Integer::sum);
+                length += field.getValue();
+            }
+        }
+        for (Map.Entry<String, Integer> frequency : frequencies.entrySet()) {
+            postings.computeIfAbsent(frequency.getKey(), term -> new PostingList())
+                    .add(docId, frequency.getValue());
+        }
+        docLengths[docId] = length;
+        productIds[docId] = (Long) record.getField("product_id");
+        liveDocs.add(docId);
+        liveLength += length;
+    }
+
+    private void remove(int docId) {
+        if (liveDocs.checkedRemove(docId)) {
+            liveLength -= docLengths[docId];
+            deadDocs++;
+        }
+    }
+
+    /**
+     * Rewrites the postings without the docs deleted since the last compaction.
+     */
+    private void compact() {
+        long start = System.nanoTime();
+        postings.replaceAll((term, posting) -> posting.retain(liveDocs));
+        postings.values().removeIf(posting -> posting.docs() == 0);
+        liveDocs.runOptimize();
+        log.info("Compacted search index: dropped {} deleted documents, {} terms left, {} ms",
+                deadDocs, postings.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        deadDocs = 0;
+    }
+
+    /**
+     * Assigns the file the next range of doc ids, or returns {@code null} when the range would
+     * run past {@link Integer#MAX_VALUE}.
+     */
+    private IndexedFile register(DataFile dataFile) {
+        long docs = dataFile.recordCount();
+        if (nextDocId + docs > Integer.MAX_VALUE) {
+            return null;
+        }
+        IndexedFile file = new IndexedFile(dataFile.location(), nextDocId, (int) docs);
+        filesByPath.put(file.path(), file);
+        if (file.docs() > 0) {
+            filesByFirstDoc.put(file.firstDoc(), file);
+        }
+        nextDocId += (int) docs;
+        if (nextDocId > docLengths.length) {
+            int capacity = (int) Math.min(Integer.MAX_VALUE,
+                    Math.max((long) nextDocId, Math.max(MIN_DOC_CAPACITY, docLengths.length + (docLengths.length >> 1))));
+            docLengths = Arrays.copyOf(docLengths, capacity);
+            productIds = Arrays.copyOf(productIds, capacity);
+        }
+        return file;
+    }
+
+    private void clear() {
+        filesByPath.clear();
+        filesByFirstDoc.clear();
+        postings.clear();
+        liveDocs = new RoaringBitmap();
+        docLengths = new int[0];
+        productIds = new long[0];
+        nextDocId = 0;
+        liveLength = 0;
+        deadDocs = 0;
+    }
+
+    private List<SearchHit> hits(PriorityQueue<ScoredDoc> best) {
+        SearchHit[] hits = new SearchHit[best.size()];
+        for (int i = hits.length - 1; i >= 0; i--) {
+            ScoredDoc scored = best.poll();
+            IndexedFile file = filesByFirstDoc.floorEntry(scored.docId()).getValue();
+            hits[i] = new SearchHit(productIds[scored.docId()], scored.score(),
+                    new RowLocation(file.path(), scored.docId() - file.firstDoc()));
+        }
+        return List.of(hits);
+    }
+
+    private record IndexedFile(String path, int firstDoc, int docs) {
+    }
+
+    private record ScoredDoc(int docId, float score) {
+    }
+}
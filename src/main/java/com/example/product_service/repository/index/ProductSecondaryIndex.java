@@ -0,0 +1,637 @@
+package com.example.product_service.repository.index;
+
+import com.example.product_service.infrastructure.exception.DataAccessException;
+import com.example.product_service.repository.ProductRecordReader;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.iceberg.DataFile;
+import org.apache.iceberg.DeleteFile;
+import org.apache.iceberg.FileContent;
+import org.apache.iceberg.FileScanTask;
+import org.apache.iceberg.GenericBlobMetadata;
+import org.apache.iceberg.GenericStatisticsFile;
+import org.apache.iceberg.MetadataColumns;
+import org.apache.iceberg.Schema;
+import org.apache.iceberg.Snapshot;
+import org.apache.iceberg.StatisticsFile;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.UpdateStatistics;
+import org.apache.iceberg.data.Record;
+import org.apache.iceberg.expressions.Expressions;
+import org.apache.iceberg.io.CloseableIterable;
+import org.apache.iceberg.puffin.Blob;
+import org.apache.iceberg.puffin.BlobMetadata;
+import org.apache.iceberg.puffin.Puffin;
+import org.apache.iceberg.puffin.PuffinReader;
+import org.apache.iceberg.puffin.PuffinWriter;
+import org.apache.iceberg.types.Type;
+import org.apache.iceberg.types.TypeUtil;
+import org.apache.iceberg.types.Types;
+import org.apache.iceberg.util.Pair;
+import org.apache.iceberg.util.SnapshotUtil;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Secondary indexes from the values of chosen columns to the rows holding them. Every data file
+ * gets a contiguous range of 32-bit row ids sized by its record count, so a posting list is a
+ * {@link RoaringBitmap} of row ids and the live rows are one more bitmap: dropping a file clears
+ * its range, a position delete clears one bit, and a lookup intersects the postings of every
+ * requested column with the live rows. Postings keep the bits of dead rows until the index is
+ * next persisted.
+ *
+ * <p>The index is loaded on the first lookup from the Puffin statistics file of the nearest
+ * ancestor snapshot that has one, or built with a scan when there is none. From then on it is
+ * caught up snapshot by snapshot like {@link ProductKeyIndex}: before every lookup and on a
+ * schedule, so commits are usually applied before the next lookup arrives. The scheduled task
+ * also writes the index for the current snapshot to a new Puffin file every
+ * {@code persist-interval-ms} and drops the file it replaces.
+ */
+@Slf4j
+@Component
+public class ProductSecondaryIndex {
+
+    static final String ROW_IDS_BLOB = "product-service-row-ids-v1";
+    static final String POSTINGS_BLOB = "product-service-postings-v1";
+
+    private static final String CREATED_BY = "product-service";
+    private static final long NO_SNAPSHOT = -1L;
+
+    private final Table productTable;
+    private final ProductRecordReader recordReader;
+    private final boolean enabled;
+    private final Map<String, Types.NestedField> columns = new LinkedHashMap<>();
+    private final Schema projection;
+    private final long persistIntervalMs;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, IndexedFile> filesByPath = new HashMap<>();
+    private final TreeMap<Integer, IndexedFile> filesByFirstRow = new TreeMap<>();
+    private final Map<String, Map<Object, RoaringBitmap>> postings = new HashMap<>();
+    private RoaringBitmap liveRows = new RoaringBitmap();
+    private int nextRowId;
+    private volatile boolean loaded;
+    private volatile long indexedSnapshotId = NO_SNAPSHOT;
+    private volatile long persistedSnapshotId = NO_SNAPSHOT;
+    private long lastPersistedAt;
+
+    public ProductSecondaryIndex(Table productTable,
+                                 ProductRecordReader recordReader,
+                                 @Value("${iceberg.index.secondary.enabled:false}") boolean enabled,
+                                 @Value("${iceberg.index.secondary.columns:supplier_id,brand}") List<String> columns,
+                                 @Value("${iceberg.index.secondary.persist-interval-ms:60000}") long persistIntervalMs) {
+        this.productTable = productTable;
+        this.recordReader = recordReader;
+        this.enabled = enabled;
+        this.persistIntervalMs = persistIntervalMs;
+        for (String name : columns) {
+            String column = name.trim();
+            Types.NestedField field = productTable.schema().findField(column);
+            if (field == null) {
+                throw new IllegalArgumentException("Secondary index column is not in the product schema: " + column);
+            }
+            Type.TypeID type = field.type().typeId();
+            if (type != Type.TypeID.LONG && type != Type.TypeID.INTEGER && type != Type.TypeID.STRING) {
+                throw new IllegalArgumentException("Secondary indexes support long, int and string columns, not "
+                        + column + " (" + field.type() + ")");
+            }
+            this.columns.put(column, field);
+        }
+        this.projection = TypeUtil.join(productTable.schema().select(this.columns.keySet()),
+                new Schema(MetadataColumns.ROW_POSITION));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Whether every given column is indexed.
+     */
+    public boolean covers(Collection<String> lookupColumns) {
+        return enabled && !lookupColumns.isEmpty() && columns.keySet().containsAll(lookupColumns);
+    }
+
+    /**
+     * The live rows of the current snapshot whose columns equal every given value, grouped by
+     * data file in row-id order. Columns must be {@linkplain #covers covered}.
+     */
+    public List<RowPositions> lookup(Map<String, Object> values) {
+        load();
+        sync();
+        lock.readLock().lock();
+        try {
+            RoaringBitmap matches = liveRows;
+            for (Map.Entry<String, Object> value : values.entrySet()) {
+                RoaringBitmap posting = postings.get(value.getKey()).get(key(value.getKey(), value.getValue()));
+                if (posting == null) {
+                    return List.of();
+                }
+                matches = RoaringBitmap.and(matches, posting);
+            }
+            return group(matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Brings a loaded index up to the table's current snapshot. Snapshots that descend from the
+     * indexed one are applied incrementally; anything else (rollback, expired history) rebuilds.
+     */
+    public void sync() {
+        Snapshot current = productTable.currentSnapshot();
+        long currentId = current != null ? current.snapshotId() : NO_SNAPSHOT;
+        if (!loaded || currentId == indexedSnapshotId) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            catchUp(current);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${iceberg.index.secondary.sync-interval-ms:5000}")
+    void refresh() {
+        if (!loaded) {
+            return;
+        }
+        try {
+            sync();
+            if (indexedSnapshotId != persistedSnapshotId
+                    && System.currentTimeMillis() - lastPersistedAt >= persistIntervalMs) {
+                persist();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to refresh secondary index", e);
+        }
+    }
+
+    public SecondaryIndexStats stats() {
+        if (!enabled || !loaded) {
+            return new SecondaryIndexStats(enabled, false, null, null, 0, 0, Map.of(), 0);
+        }
+        lock.readLock().lock();
+        try {
+            Map<String, Integer> valueCounts = new LinkedHashMap<>();
+            long memoryBytes = liveRows.getLongSizeInBytes();
+            for (String column : columns.keySet()) {
+                Map<Object, RoaringBitmap> columnPostings = postings.get(column);
+                valueCounts.put(column, columnPostings.size());
+                for (RoaringBitmap posting : columnPostings.values()) {
+                    memoryBytes += posting.getLongSizeInBytes();
+                }
+            }
+            return new SecondaryIndexStats(true, true,
+                    indexedSnapshotId == NO_SNAPSHOT ? null : indexedSnapshotId,
+                    persistedSnapshotId == NO_SNAPSHOT ? null : persistedSnapshotId,
+                    filesByPath.size(), liveRows.getLongCardinality(), valueCounts, memoryBytes);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                return;
+            }
+            Snapshot current = productTable.currentSnapshot();
+            StatisticsFile persisted = current != null ? nearestPersisted() : null;
+            if (persisted == null || !read(persisted)) {
+                rebuild(current);
+            } else {
+                catchUp(current);
+            }
+            lastPersistedAt = System.currentTimeMillis();
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void catchUp(Snapshot current) {
+        long currentId = current != null ? current.snapshotId() : NO_SNAPSHOT;
+        if (currentId == indexedSnapshotId) {
+            return;
+        }
+        if (indexedSnapshotId == NO_SNAPSHOT || currentId == NO_SNAPSHOT
+                || !SnapshotUtil.isAncestorOf(productTable, currentId, indexedSnapshotId)) {
+            rebuild(current);
+            return;
+        }
+
+        List<Snapshot> newSnapshots = new ArrayList<>();
+        SnapshotUtil.ancestorsBetween(currentId, indexedSnapshotId, productTable::snapshot)
+                .forEach(newSnapshots::add);
+        for (int i = newSnapshots.size() - 1; i >= 0; i--) {
+            if (!apply(newSnapshots.get(i))) {
+                rebuild(current);
+                return;
+            }
+        }
+        indexedSnapshotId = currentId;
+    }
+
+    private void rebuild(Snapshot snapshot) {
+        long start = System.nanoTime();
+        clear();
+        if (snapshot == null) {
+            indexedSnapshotId = NO_SNAPSHOT;
+            return;
+        }
+
+        try (CloseableIterable<FileScanTask> tasks = productTable.newScan()
+                .useSnapshot(snapshot.snapshotId())
+                .planFiles()) {
+            for (FileScanTask task : tasks) {
+                IndexedFile file = register(task.file());
+                if (file == null) {
+                    throw new IllegalStateException("Product table has more rows than the secondary index can address");
+                }
+                index(file, recordReader.open(task, projection));
+            }
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to plan secondary index build", e);
+        }
+        liveRows.runOptimize();
+        postings.values().forEach(columnPostings -> columnPostings.values().forEach(RoaringBitmap::runOptimize));
+        indexedSnapshotId = snapshot.snapshotId();
+        log.info("Built secondary index on {} at snapshot {}: {} rows in {} data files, {} ms",
+                columns.keySet(), indexedSnapshotId, liveRows.getLongCardinality(), filesByPath.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Applies one snapshot's changes. Returns {@code false} when they cannot be applied
+     * incrementally (equality deletes, or no row ids left for the added files).
+     */
+    private boolean apply(Snapshot snapshot) {
+        for (DataFile removed : snapshot.removedDataFiles(productTable.io())) {
+            IndexedFile file = filesByPath.remove(removed.location());
+            if (file != null) {
+                filesByFirstRow.remove(file.firstRow());
+                liveRows.remove((long) file.firstRow(), (long) file.firstRow() + file.rows());
+            }
+        }
+
+        for (DataFile added : snapshot.addedDataFiles(productTable.io())) {
+            IndexedFile file = register(added);
+            if (file == null) {
+                log.info("Secondary index ran out of row ids at snapshot {}, rebuilding", snapshot.snapshotId());
+                return false;
+            }
+            index(file, recordReader.openFile(added.location(), projection, Expressions.alwaysTrue()));
+        }
+
+        for (DeleteFile deletes : snapshot.addedDeleteFiles(productTable.io())) {
+            if (deletes.content() != FileContent.POSITION_DELETES) {
+                log.info("Snapshot {} adds {} {} that the secondary index cannot apply, rebuilding",
+                        snapshot.snapshotId(), deletes.content(), deletes.location());
+                return false;
+            }
+            removePositionDeletes(deletes);
+        }
+        return true;
+    }
+
+    private void removePositionDeletes(DeleteFile deletes) {
+        try (CloseableIterable<Record> rows = recordReader.openPositionDeletes(deletes)) {
+            for (Record delete : rows) {
+                IndexedFile file = filesByPath.get((String) delete.getField(MetadataColumns.DELETE_FILE_PATH.name()));
+                if (file != null) {
+                    long position = (Long) delete.getField(MetadataColumns.DELETE_FILE_POS.name());
+                    liveRows.remove(file.firstRow() + (int) position);
+                }
+            }
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to read delete file " + deletes.location(), e);
+        }
+    }
+
+    private void index(IndexedFile file, CloseableIterable<Record> records) {
+        try (records) {
+            for (Record record : records) {
+                int rowId = file.firstRow() + ((Long) record.getField(MetadataColumns.ROW_POSITION.name())).intValue();
+                liveRows.add(rowId);
+                for (String column : columns.keySet()) {
+                    Object value = record.getField(column);
+                    if (value != null) {
+                        postings.get(column)
+                                .computeIfAbsent(key(column, value), key -> new RoaringBitmap())
+                                .add(rowId);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to index data file " + file.path(), e);
+        }
+    }
+
+    /**
+     * Assigns the file the next range of row ids, or returns {@code null} when the range would
+     * run past {@link Integer#MAX_VALUE}.
+     */
+    private IndexedFile register(DataFile dataFile) {
+        long rows = dataFile.recordCount();
+        if (nextRowId + rows > Integer.MAX_VALUE) {
+            return null;
+        }
+        IndexedFile file = new IndexedFile(dataFile.location(), nextRowId, (int) rows);
+        add(file);
+        nextRowId += (int) rows;
+        return file;
+    }
+
+    private void add(IndexedFile file) {
+        filesByPath.put(file.path(), file);
+        filesByFirstRow.put(file.firstRow(), file);
+    }
+
+    private void clear() {
+        filesByPath.clear();
+        filesByFirstRow.clear();
+        postings.clear();
+        columns.keySet().forEach(column -> postings.put(column, new HashMap<>()));
+        liveRows = new RoaringBitmap();
+        nextRowId = 0;
+    }
+
+    private List<RowPositions> group(RoaringBitmap rowIds) {
+        List<RowPositions> result = new ArrayList<>();
+        IndexedFile[] file = {null};
+        RoaringBitmap[] positions = {null};
+        rowIds.forEach((int rowId) -> {
+            if (file[0] == null || rowId >= file[0].firstRow() + file[0].rows()) {
+                file[0] = filesByFirstRow.floorEntry(rowId).getValue();
+                positions[0] = new RoaringBitmap();
+                result.add(new RowPositions(file[0].path(), positions[0]));
+            }
+            positions[0].add(rowId - file[0].firstRow());
+        });
+        return result;
+    }
+
+    private Object key(String column, Object value) {
+        return switch (columns.get(column).type().typeId()) {
+            case LONG -> value instanceof Number number ? number.longValue() : Long.parseLong(value.toString());
+            case INTEGER -> value instanceof Number number ? number.intValue() : Integer.parseInt(value.toString());
+            default -> value.toString();
+        };
+    }
+
+    /**
+     * The statistics file with this index for the current snapshot or its nearest ancestor.
+     */
+    private StatisticsFile nearestPersisted() {
+        Map<Long, StatisticsFile> persisted = new HashMap<>();
+        for (StatisticsFile file : productTable.statisticsFiles()) {
+            if (isIndexFile(file)) {
+                persisted.put(file.snapshotId(), file);
+            }
+        }
+        if (persisted.isEmpty()) {
+            return null;
+        }
+        for (Snapshot snapshot : SnapshotUtil.currentAncestors(productTable)) {
+            StatisticsFile file = persisted.get(snapshot.snapshotId());
+            if (file != null) {
+                return file;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Loads the index from a Puffin file. Returns {@code false} when the file cannot be used,
+     * such as when it does not hold every configured column.
+     */
+    private boolean read(StatisticsFile statisticsFile) {
+        long start = System.nanoTime();
+        clear();
+        try (PuffinReader reader = Puffin.read(productTable.io().newInputFile(statisticsFile.path()))
+                .withFileSize(statisticsFile.fileSizeInBytes())
+                .withFooterSize(statisticsFile.fileFooterSizeInBytes())
+                .build()) {
+            List<BlobMetadata> blobs = reader.fileMetadata().blobs();
+            int found = 0;
+            for (Pair<BlobMetadata, ByteBuffer> blob : reader.readAll(blobs)) {
+                DataInputStream in = input(blob.second());
+                if (ROW_IDS_BLOB.equals(blob.first().type())) {
+                    readRowIds(in);
+                    found++;
+                } else if (POSTINGS_BLOB.equals(blob.first().type())) {
+                    String column = productTable.schema().findColumnName(blob.first().inputFields().get(0));
+                    if (columns.containsKey(column)) {
+                        readPostings(column, in);
+                        found++;
+                    }
+                }
+            }
+            if (found != columns.size() + 1) {
+                log.info("Secondary index file {} does not cover {}, rebuilding", statisticsFile.path(), columns.keySet());
+                return false;
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to read secondary index file {}, rebuilding", statisticsFile.path(), e);
+            return false;
+        }
+        indexedSnapshotId = statisticsFile.snapshotId();
+        persistedSnapshotId = statisticsFile.snapshotId();
+        log.info("Loaded secondary index on {} at snapshot {}: {} rows in {} data files, {} ms",
+                columns.keySet(), indexedSnapshotId, liveRows.getLongCardinality(), filesByPath.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return true;
+    }
+
+    private void readRowIds(DataInputStream in) throws IOException {
+        nextRowId = in.readInt();
+        int files = in.readInt();
+        for (int i = 0; i < files; i++) {
+            add(new IndexedFile(in.readUTF(), in.readInt(), in.readInt()));
+        }
+        liveRows.deserialize(in);
+    }
+
+    private void readPostings(String column, DataInputStream in) throws IOException {
+        Type.TypeID type = columns.get(column).type().typeId();
+        Map<Object, RoaringBitmap> columnPostings = postings.get(column);
+        int values = in.readInt();
+        for (int i = 0; i < values; i++) {
+            Object key = switch (type) {
+                case LONG -> in.readLong();
+                case INTEGER -> in.readInt();
+                default -> in.readUTF();
+            };
+            RoaringBitmap posting = new RoaringBitmap();
+            posting.deserialize(in);
+            columnPostings.put(key, posting);
+        }
+    }
+
+    /**
+     * Writes the index to a Puffin file registered as the statistics file of the indexed
+     * snapshot. Dead rows are dropped from the postings first. A snapshot that already has a
+     * statistics file from another writer is left alone.
+     */
+    private void persist() {
+        long snapshotId;
+        List<Blob> blobs = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            snapshotId = indexedSnapshotId;
+            Snapshot snapshot = productTable.snapshot(snapshotId);
+            if (snapshot == null) {
+                return;
+            }
+            compact();
+            blobs.add(new Blob(ROW_IDS_BLOB, List.of(), snapshotId, snapshot.sequenceNumber(),
+                    serialize(this::writeRowIds)));
+            for (Map.Entry<String, Types.NestedField> column : columns.entrySet()) {
+                blobs.add(new Blob(POSTINGS_BLOB, List.of(column.getValue().fieldId()), snapshotId,
+                        snapshot.sequenceNumber(), serialize(out -> writePostings(column.getKey(), out))));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        lastPersistedAt = System.currentTimeMillis();
+        for (StatisticsFile existing : productTable.statisticsFiles()) {
+            if (existing.snapshotId() == snapshotId && !isIndexFile(existing)) {
+                log.debug("Snapshot {} already has statistics file {}, not persisting the secondary index",
+                        snapshotId, existing.path());
+                persistedSnapshotId = snapshotId;
+                return;
+            }
+        }
+
+        String location = productTable.location() + "/metadata/" + snapshotId + "-" + UUID.randomUUID() + ".stats";
+        StatisticsFile statisticsFile;
+        try (PuffinWriter writer = Puffin.write(productTable.io().newOutputFile(location))
+                .createdBy(CREATED_BY)
+                .build()) {
+            blobs.forEach(writer::add);
+            writer.finish();
+            statisticsFile = new GenericStatisticsFile(snapshotId, location, writer.fileSize(), writer.footerSize(),
+                    writer.writtenBlobsMetadata().stream().map(GenericBlobMetadata::from).toList());
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to write secondary index file " + location, e);
+        }
+
+        List<String> replaced = new ArrayList<>();
+        try {
+            UpdateStatistics update = productTable.updateStatistics().setStatistics(snapshotId, statisticsFile);
+            for (StatisticsFile existing : productTable.statisticsFiles()) {
+                if (isIndexFile(existing) && existing.snapshotId() != snapshotId) {
+                    update.removeStatistics(existing.snapshotId());
+                    replaced.add(existing.path());
+                }
+            }
+            update.commit();
+        } catch (RuntimeException e) {
+            productTable.io().deleteFile(location);
+            throw e;
+        }
+        persistedSnapshotId = snapshotId;
+        for (String path : replaced) {
+            try {
+                productTable.io().deleteFile(path);
+            } catch (RuntimeException e) {
+                log.warn("Failed to delete replaced secondary index file {}", path, e);
+            }
+        }
+        log.info("Persisted secondary index at snapshot {} to {} ({} bytes)",
+                snapshotId, location, statisticsFile.fileSizeInBytes());
+    }
+
+    private void compact() {
+        for (Map<Object, RoaringBitmap> columnPostings : postings.values()) {
+            columnPostings.values().removeIf(posting -> {
+                posting.and(liveRows);
+                posting.runOptimize();
+                return posting.isEmpty();
+            });
+        }
+        liveRows.runOptimize();
+    }
+
+    private void writeRowIds(DataOutputStream out) throws IOException {
+        out.writeInt(nextRowId);
+        out.writeInt(filesByFirstRow.size());
+        for (IndexedFile file : filesByFirstRow.values()) {
+            out.writeUTF(file.path());
+            out.writeInt(file.firstRow());
+            out.writeInt(file.rows());
+        }
+        liveRows.serialize(out);
+    }
+
+    private void writePostings(String column, DataOutputStream out) throws IOException {
+        Type.TypeID type = columns.get(column).type().typeId();
+        Map<Object, RoaringBitmap> columnPostings = postings.get(column);
+        out.writeInt(columnPostings.size());
+        for (Map.Entry<Object, RoaringBitmap> posting : columnPostings.entrySet()) {
+            switch (type) {
+                case LONG -> out.writeLong((Long) posting.getKey());
+                case INTEGER -> out.writeInt((Integer) posting.getKey());
+                default -> out.writeUTF((String) posting.getKey());
+            }
+            posting.getValue().serialize(out);
+        }
+    }
+
+    private static ByteBuffer serialize(BlobWriter writer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writer.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return ByteBuffer.wrap(bytes.toByteArray());
+    }
+
+    private static DataInputStream input(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return new DataInputStream(new ByteArrayInputStream(bytes));
+    }
+
+    private static boolean isIndexFile(StatisticsFile file) {
+        return file.blobMetadata().stream().anyMatch(blob -> ROW_IDS_BLOB.equals(blob.type()));
+    }
+
+    @FunctionalInterface
+    private interface BlobWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private record IndexedFile(String path, int firstRow, int rows) {
+    }
+}
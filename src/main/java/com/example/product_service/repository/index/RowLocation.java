@@ -0,0 +1,4 @@
+package com.example.product_service.repository.index;
+
+public record RowLocation(String filePath, long position) {
+}
@@ -0,0 +1,6 @@
+package com.example.product_service.repository.index;
+
+import org.roaringbitmap.RoaringBitmap;
+
+public record RowPositions(String filePath, RoaringBitmap positions) {
+}
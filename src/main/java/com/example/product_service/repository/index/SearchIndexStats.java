@@ -0,0 +1,5 @@
+package com.example.product_service.repository.index;
+
+public record SearchIndexStats(boolean enabled, Long snapshotId, long documents, int terms, long postingsBytes,
+                               long memoryBytes) {
+}
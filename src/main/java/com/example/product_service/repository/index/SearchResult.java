@@ -0,0 +1,6 @@
+package com.example.product_service.repository.index;
+
+import java.util.List;
+
+public record SearchResult(long matched, List<SearchHit> hits) {
+}
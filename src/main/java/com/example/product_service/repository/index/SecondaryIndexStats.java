@@ -0,0 +1,7 @@
+package com.example.product_service.repository.index;
+
+import java.util.Map;
+
+public record SecondaryIndexStats(boolean enabled, boolean loaded, Long snapshotId, Long persistedSnapshotId,
+                                  int dataFiles, long liveRows, Map<String, Integer> values, long memoryBytes) {
+}
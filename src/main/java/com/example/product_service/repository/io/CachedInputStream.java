@@ -0,0 +1,144 @@
+package com.example.product_service.repository.io;
+
+import org.apache.iceberg.io.RangeReadable;
+import org.apache.iceberg.io.SeekableInputStream;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Seekable stream over a file held as fixed-size cached blocks. Blocks are fetched lazily
+ * through the loader, so a reader that only touches the footer and a few column chunks only
+ * ever loads those ranges.
+ */
+class CachedInputStream extends SeekableInputStream implements RangeReadable {
+
+    @FunctionalInterface
+    interface BlockLoader {
+
+        ByteBuffer load(int index) throws IOException;
+    }
+
+    private final String location;
+    private final long length;
+    private final int blockSize;
+    private final BlockLoader loader;
+    private ByteBuffer block;
+    private int blockIndex = -1;
+    private long pos;
+    private boolean closed;
+
+    CachedInputStream(String location, long length, int blockSize, BlockLoader loader) {
+        this.location = location;
+        this.length = length;
+        this.blockSize = blockSize;
+        this.loader = loader;
+    }
+
+    @Override
+    public long getPos() {
+        return pos;
+    }
+
+    @Override
+    public void seek(long newPos) throws IOException {
+        checkOpen();
+        if (newPos < 0 || newPos > length) {
+            throw new EOFException("Cannot seek to " + newPos + " in " + location + " of length " + length);
+        }
+        pos = newPos;
+    }
+
+    @Override
+    public int read() throws IOException {
+        checkOpen();
+        if (pos >= length) {
+            return -1;
+        }
+        ByteBuffer buffer = blockAt(pos);
+        int value = buffer.get((int) (pos % blockSize)) & 0xFF;
+        pos++;
+        return value;
+    }
+
+    @Override
+    public int read(byte[] bytes, int off, int len) throws IOException {
+        checkOpen();
+        if (len == 0) {
+            return 0;
+        }
+        if (pos >= length) {
+            return -1;
+        }
+        int read = copy(pos, bytes, off, len);
+        pos += read;
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        checkOpen();
+        long skipped = Math.max(0, Math.min(n, length - pos));
+        pos += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(Integer.MAX_VALUE, length - pos);
+    }
+
+    @Override
+    public void readFully(long position, byte[] buffer, int offset, int len) throws IOException {
+        checkOpen();
+        if (position < 0 || position + len > length) {
+            throw new EOFException("Cannot read " + len + " bytes at " + position + " from " + location);
+        }
+        while (len > 0) {
+            int read = copy(position, buffer, offset, len);
+            position += read;
+            offset += read;
+            len -= read;
+        }
+    }
+
+    @Override
+    public int readTail(byte[] buffer, int offset, int len) throws IOException {
+        int read = (int) Math.min(len, length);
+        readFully(length - read, buffer, offset, read);
+        return read;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        block = null;
+    }
+
+    /**
+     * Copies up to the end of the block that holds {@code position}.
+     */
+    private int copy(long position, byte[] bytes, int off, int len) throws IOException {
+        ByteBuffer buffer = blockAt(position);
+        int inBlock = (int) (position % blockSize);
+        int count = (int) Math.min(len, Math.min(buffer.limit() - inBlock, length - position));
+        buffer.get(inBlock, bytes, off, count);
+        return count;
+    }
+
+    private ByteBuffer blockAt(long position) throws IOException {
+        int index = (int) (position / blockSize);
+        if (index != blockIndex) {
+            block = loader.load(index);
+            blockIndex = index;
+        }
+        return block;
+    }
+
+    private void checkOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream is closed: " + location);
+        }
+    }
+}
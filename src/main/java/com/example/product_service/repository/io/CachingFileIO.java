@@ -0,0 +1,381 @@
+package com.example.product_service.repository.io;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.iceberg.CatalogUtil;
+import org.apache.iceberg.hadoop.HadoopConfigurable;
+import org.apache.iceberg.hadoop.HadoopFileIO;
+import org.apache.iceberg.io.FileIO;
+import org.apache.iceberg.io.FileInfo;
+import org.apache.iceberg.io.IOUtil;
+import org.apache.iceberg.io.InputFile;
+import org.apache.iceberg.io.OutputFile;
+import org.apache.iceberg.io.SeekableInputStream;
+import org.apache.iceberg.io.SupportsBulkOperations;
+import org.apache.iceberg.io.SupportsPrefixOperations;
+import org.apache.iceberg.util.PropertyUtil;
+import org.apache.iceberg.util.SerializableSupplier;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * {@link FileIO} that keeps what it reads. Iceberg never rewrites a file in place, so cached
+ * bytes stay valid until the file is deleted. Metadata JSON, manifest lists and manifests are
+ * held whole in a byte-bounded memory cache; data and delete files are cached in fixed-size
+ * blocks written to local disk and memory-mapped, so only the ranges a reader touches are
+ * fetched. File lengths are cached too, so repeated reads make no calls to the store at all.
+ * Writes, listings and deletes go to the delegate, which must support prefix operations; deletes
+ * also drop the cached copies.
+ *
+ * <p>Configured through catalog properties ({@code io-impl} plus the {@code cache.*} keys below).
+ * Since the block index lives in memory, each instance keeps its blocks in a directory of its own
+ * under {@code cache.disk.dir}, named after the process; directories left by processes that are no
+ * longer running are removed on start-up. Every block load goes to a new file, so a mapped block
+ * is never overwritten or truncated, and evicting a block deletes only the file it was mapped from.
+ */
+@Slf4j
+public class CachingFileIO implements FileIO, HadoopConfigurable, SupportsPrefixOperations, SupportsBulkOperations {
+
+    public static final String DELEGATE_IMPL = "cache.delegate-impl";
+    public static final String MEMORY_MAX_BYTES = "cache.memory.max-bytes";
+    public static final String MEMORY_MAX_FILE_BYTES = "cache.memory.max-file-bytes";
+    public static final String DISK_DIR = "cache.disk.dir";
+    public static final String DISK_MAX_BYTES = "cache.disk.max-bytes";
+    public static final String DISK_BLOCK_BYTES = "cache.disk.block-bytes";
+
+    private static final long MAX_CACHED_LENGTHS = 100_000;
+
+    private transient Configuration conf;
+    private Map<String, String> properties;
+    private SupportsPrefixOperations delegate;
+    private long memoryMaxFileBytes;
+    private int blockBytes;
+    private Path diskDir;
+    private transient Cache<String, byte[]> files;
+    private transient Cache<BlockKey, CachedBlock> blocks;
+    private transient Cache<String, Long> lengths;
+
+    @Override
+    public void initialize(Map<String, String> props) {
+        this.properties = Map.copyOf(props);
+        String delegateImpl = props.getOrDefault(DELEGATE_IMPL, HadoopFileIO.class.getName());
+        FileIO io = CatalogUtil.loadFileIO(delegateImpl, props, conf);
+        if (!(io instanceof SupportsPrefixOperations prefixOperations)) {
+            io.close();
+            throw new IllegalArgumentException("Cache delegate " + delegateImpl + " does not support prefix operations");
+        }
+        this.delegate = prefixOperations;
+
+        long memoryMaxBytes = PropertyUtil.propertyAsLong(props, MEMORY_MAX_BYTES, 64L << 20);
+        long diskMaxBytes = PropertyUtil.propertyAsLong(props, DISK_MAX_BYTES, 10L << 30);
+        this.memoryMaxFileBytes = PropertyUtil.propertyAsLong(props, MEMORY_MAX_FILE_BYTES, 8L << 20);
+        this.blockBytes = PropertyUtil.propertyAsInt(props, DISK_BLOCK_BYTES, 4 << 20);
+        this.diskDir = createDiskDir(Path.of(props.getOrDefault(DISK_DIR,
+                Path.of(System.getProperty("java.io.tmpdir"), "product-service-file-cache").toString())));
+
+        this.files = Caffeine.newBuilder()
+                .maximumWeight(memoryMaxBytes)
+                .weigher((String path, byte[] bytes) -> bytes.length)
+                .recordStats()
+                .build();
+        this.blocks = Caffeine.newBuilder()
+                .maximumWeight(diskMaxBytes)
+                .weigher((BlockKey key, CachedBlock block) -> block.buffer().capacity())
+                .removalListener((BlockKey key, CachedBlock block, RemovalCause cause) -> deleteBlockFile(key, block))
+                .recordStats()
+                .build();
+        this.lengths = Caffeine.newBuilder()
+                .maximumSize(MAX_CACHED_LENGTHS)
+                .build();
+        log.info("Configure file cache over {}: memory={} bytes, disk={} bytes in {}, block={} bytes",
+                delegate.getClass().getSimpleName(), memoryMaxBytes, diskMaxBytes, diskDir, blockBytes);
+    }
+
+    @Override
+    public InputFile newInputFile(String path) {
+        return new CachingInputFile(path, null);
+    }
+
+    @Override
+    public InputFile newInputFile(String path, long length) {
+        lengths.put(path, length);
+        return new CachingInputFile(path, length);
+    }
+
+    /**
+     * The uncached store, for reads that touch every byte of a file once and would only evict
+     * hot blocks from the cache.
+     */
+    public FileIO delegate() {
+        return delegate;
+    }
+
+    @Override
+    public OutputFile newOutputFile(String path) {
+        return delegate.newOutputFile(path);
+    }
+
+    @Override
+    public void deleteFile(String path) {
+        delegate.deleteFile(path);
+        invalidate(path);
+    }
+
+    @Override
+    public void deleteFiles(Iterable<String> paths) {
+        if (delegate instanceof SupportsBulkOperations bulk) {
+            bulk.deleteFiles(paths);
+        } else {
+            paths.forEach(delegate::deleteFile);
+        }
+        paths.forEach(this::invalidate);
+    }
+
+    @Override
+    public Iterable<FileInfo> listPrefix(String prefix) {
+        return delegate.listPrefix(prefix);
+    }
+
+    @Override
+    public void deletePrefix(String prefix) {
+        delegate.deletePrefix(prefix);
+        lengths.asMap().keySet().stream()
+                .filter(path -> path.startsWith(prefix))
+                .toList()
+                .forEach(this::invalidate);
+    }
+
+    @Override
+    public Map<String, String> properties() {
+        return properties;
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+        files.invalidateAll();
+        blocks.invalidateAll();
+        // removal listeners run asynchronously, so block files may still be there
+        try (Stream<Path> blockFiles = Files.list(diskDir)) {
+            for (Path file : blockFiles.toList()) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(diskDir);
+        } catch (IOException e) {
+            log.warn("Failed to delete file cache directory {}", diskDir, e);
+        }
+    }
+
+    @Override
+    public void setConf(Configuration conf) {
+        this.conf = conf;
+    }
+
+    @Override
+    public Configuration getConf() {
+        return conf;
+    }
+
+    @Override
+    public void serializeConfWith(Function<Configuration, SerializableSupplier<Configuration>> confSerializer) {
+        if (delegate instanceof HadoopConfigurable configurable) {
+            configurable.serializeConfWith(confSerializer);
+        }
+    }
+
+    public FileCacheStats stats() {
+        com.github.benmanes.caffeine.cache.stats.CacheStats memory = files.stats();
+        com.github.benmanes.caffeine.cache.stats.CacheStats disk = blocks.stats();
+        return new FileCacheStats(
+                files.estimatedSize(),
+                files.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L),
+                memory.hitCount(),
+                memory.missCount(),
+                blocks.estimatedSize(),
+                blocks.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L),
+                disk.hitCount(),
+                disk.missCount(),
+                memory.evictionCount() + disk.evictionCount());
+    }
+
+    private long length(String path) {
+        return lengths.get(path, key -> delegate.newInputFile(key).getLength());
+    }
+
+    private SeekableInputStream open(String path, long length) {
+        if (isMetadata(path) && length <= memoryMaxFileBytes) {
+            return new CachedInputStream(path, length, (int) Math.max(1, length),
+                    index -> ByteBuffer.wrap(load(files, path, key -> readRange(path, length, 0, (int) length))));
+        }
+        return new CachedInputStream(path, length, blockBytes,
+                index -> load(blocks, new BlockKey(path, index), key -> loadBlock(key, length)).buffer());
+    }
+
+    /**
+     * Cache loaders cannot throw checked exceptions; this restores the {@link IOException}.
+     */
+    private static <K, V> V load(Cache<K, V> cache, K key, Function<K, V> loader) throws IOException {
+        try {
+            return cache.get(key, loader);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private CachedBlock loadBlock(BlockKey key, long length) {
+        long start = (long) key.index() * blockBytes;
+        int size = (int) Math.min(blockBytes, length - start);
+        byte[] bytes = readRange(key.path(), length, start, size);
+        Path file = null;
+        try {
+            file = Files.createTempFile(diskDir, "block-", ".block");
+            Files.write(file, bytes);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                return new CachedBlock(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+            }
+        } catch (IOException e) {
+            if (file != null) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            throw new UncheckedIOException("Failed to cache block " + key.index() + " of " + key.path(), e);
+        }
+    }
+
+    private byte[] readRange(String path, long length, long start, int size) {
+        byte[] bytes = new byte[size];
+        try (SeekableInputStream in = delegate.newInputFile(path, length).newStream()) {
+            in.seek(start);
+            IOUtil.readFully(in, bytes, 0, size);
+            return bytes;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + path, e);
+        }
+    }
+
+    private void invalidate(String path) {
+        files.invalidate(path);
+        Long length = lengths.getIfPresent(path);
+        lengths.invalidate(path);
+        if (length != null) {
+            for (int index = 0; (long) index * blockBytes < length; index++) {
+                blocks.invalidate(new BlockKey(path, index));
+            }
+        }
+    }
+
+    private static boolean isMetadata(String path) {
+        return path.endsWith(".avro") || path.endsWith(".json");
+    }
+
+    /**
+     * Unlinking the file leaves existing mappings of it readable, so readers still holding the
+     * evicted block are unaffected.
+     */
+    private static void deleteBlockFile(BlockKey key, CachedBlock block) {
+        if (block == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(block.file());
+        } catch (IOException e) {
+            log.warn("Failed to delete cached block {} of {}", key.index(), key.path(), e);
+        }
+    }
+
+    /**
+     * Creates this instance's block directory under {@code root}, first removing the directories
+     * of processes that have exited. Directories are named {@code <pid>-<random>}.
+     */
+    private static Path createDiskDir(Path root) {
+        try {
+            Files.createDirectories(root);
+            try (Stream<Path> dirs = Files.list(root)) {
+                for (Path dir : dirs.filter(CachingFileIO::isOrphaned).toList()) {
+                    deleteRecursively(dir);
+                }
+            }
+            return Files.createTempDirectory(root, ProcessHandle.current().pid() + "-");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to prepare file cache directory " + root, e);
+        }
+    }
+
+    private static boolean isOrphaned(Path dir) {
+        String name = dir.getFileName().toString();
+        int dash = name.indexOf('-');
+        if (!Files.isDirectory(dir) || dash <= 0) {
+            return false;
+        }
+        try {
+            long pid = Long.parseLong(name.substring(0, dash));
+            return ProcessHandle.of(pid).map(process -> !process.isAlive()).orElse(true);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> tree = Files.walk(dir)) {
+            for (Path path : tree.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private record BlockKey(String path, int index) {
+    }
+
+    private record CachedBlock(Path file, ByteBuffer buffer) {
+    }
+
+    private class CachingInputFile implements InputFile {
+
+        private final String path;
+        private Long length;
+
+        CachingInputFile(String path, Long length) {
+            this.path = path;
+            this.length = length;
+        }
+
+        @Override
+        public long getLength() {
+            if (length == null) {
+                length = length(path);
+            }
+            return length;
+        }
+
+        @Override
+        public SeekableInputStream newStream() {
+            return open(path, getLength());
+        }
+
+        @Override
+        public String location() {
+            return path;
+        }
+
+        @Override
+        public boolean exists() {
+            return lengths.getIfPresent(path) != null || delegate.newInputFile(path).exists();
+        }
+    }
+}
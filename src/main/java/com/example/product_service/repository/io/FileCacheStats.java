@@ -0,0 +1,12 @@
+package com.example.product_service.repository.io;
+
+public record FileCacheStats(long memoryFiles,
+                             long memoryBytes,
+                             long memoryHits,
+                             long memoryMisses,
+                             long diskBlocks,
+                             long diskBytes,
+                             long diskHits,
+                             long diskMisses,
+                             long evictions) {
+}
@@ -0,0 +1,112 @@
+package com.example.product_service.repository.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.apache.iceberg.metrics.CommitMetricsResult;
+import org.apache.iceberg.metrics.CommitReport;
+import org.apache.iceberg.metrics.CounterResult;
+import org.apache.iceberg.metrics.MetricsReport;
+import org.apache.iceberg.metrics.MetricsReporter;
+import org.apache.iceberg.metrics.ScanMetricsResult;
+import org.apache.iceberg.metrics.ScanReport;
+import org.apache.iceberg.metrics.TimerResult;
+
+/**
+ * Turns Iceberg's scan and commit reports into meters. Iceberg creates the reporter itself from
+ * the catalog's {@code metrics-reporter-impl} property, so it registers with Micrometer's global
+ * registry, which Spring Boot binds its own registries to. Reports arrive once per planned scan
+ * or commit, never per row.
+ */
+public class IcebergMetricsReporter implements MetricsReporter {
+
+    private final MeterRegistry registry;
+
+    public IcebergMetricsReporter() {
+        this(Metrics.globalRegistry);
+    }
+
+    IcebergMetricsReporter(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void report(MetricsReport report) {
+        if (report instanceof ScanReport scan) {
+            reportScan(scan);
+        } else if (report instanceof CommitReport commit) {
+            reportCommit(commit);
+        }
+    }
+
+    private void reportScan(ScanReport report) {
+        ScanMetricsResult result = report.scanMetrics();
+        Tags tags = Tags.of("table", report.tableName());
+
+        record(timer("iceberg.scan.planning", "Time spent planning table scans", tags), result.totalPlanningDuration());
+        count("iceberg.scan.data.files", tags.and("result", "scanned"), result.resultDataFiles());
+        count("iceberg.scan.data.files", tags.and("result", "skipped"), result.skippedDataFiles());
+        count("iceberg.scan.delete.files", tags.and("result", "scanned"), result.resultDeleteFiles());
+        count("iceberg.scan.delete.files", tags.and("result", "skipped"), result.skippedDeleteFiles());
+        count("iceberg.scan.manifests", tags.and("result", "scanned"), result.scannedDataManifests());
+        count("iceberg.scan.manifests", tags.and("result", "skipped"), result.skippedDataManifests());
+        count("iceberg.scan.bytes", tags, result.totalFileSizeInBytes());
+    }
+
+    private void reportCommit(CommitReport report) {
+        CommitMetricsResult result = report.commitMetrics();
+        Tags tags = Tags.of("table", report.tableName(), "operation", report.operation());
+
+        record(timer("iceberg.commit.duration", "Duration of table commits including retries", tags), result.totalDuration());
+        long attempts = value(result.attempts());
+        if (attempts > 0) {
+            summary("iceberg.commit.attempts", tags).record(attempts);
+            Counter.builder("iceberg.commit.conflicts")
+                    .description("Commit attempts lost to a concurrent commit")
+                    .tags(tags)
+                    .register(registry)
+                    .increment(attempts - 1);
+        }
+        count("iceberg.commit.records.added", tags, result.addedRecords());
+        count("iceberg.commit.bytes.added", tags, result.addedFilesSizeInBytes());
+        summary("iceberg.commit.files", tags.and("content", "data")).record(value(result.addedDataFiles()));
+        summary("iceberg.commit.files", tags.and("content", "deletes")).record(value(result.addedDeleteFiles()));
+    }
+
+    private Timer timer(String name, String description, Tags tags) {
+        return Timer.builder(name)
+                .description(description)
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private DistributionSummary summary(String name, Tags tags) {
+        return DistributionSummary.builder(name)
+                .tags(tags)
+                .register(registry);
+    }
+
+    private void count(String name, Tags tags, CounterResult result) {
+        long value = value(result);
+        if (value > 0) {
+            registry.counter(name, tags).increment(value);
+        }
+    }
+
+    private static void record(Timer timer, TimerResult result) {
+        if (result != null) {
+            timer.record(result.totalDuration());
+        }
+    }
+
+    /**
+     * Counters Iceberg never incremented are left out of the report.
+     */
+    private static long value(CounterResult result) {
+        return result != null ? result.value() : 0;
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.product_service.repository.wal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * One pre-sized, memory-mapped log file. Entries are laid out as {@code length, crc, sequence,
+ * payload}; the CRC-32C covers the sequence and the payload. The unused tail of the file is
+ * zero-filled, so replay stops at the first zero length or at the first entry whose checksum
+ * does not match, which is where a torn write would end.
+ */
+final class LogSegment {
+
+    static final int HEADER_BYTES = Integer.BYTES + Integer.BYTES + Long.BYTES;
+
+    private static final String SUFFIX = ".log";
+
+    private final Path path;
+    private final long firstSequence;
+    private MappedByteBuffer buffer;
+    private volatile int position;
+    private int forcedPosition;
+    private volatile long lastSequence;
+
+    private LogSegment(Path path, long firstSequence, MappedByteBuffer buffer) {
+        this.path = path;
+        this.firstSequence = firstSequence;
+        this.buffer = buffer;
+        this.lastSequence = firstSequence - 1;
+    }
+
+    static LogSegment create(Path dir, long firstSequence, int size) throws IOException {
+        Path path = dir.resolve(String.format("%020d%s", firstSequence, SUFFIX));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return new LogSegment(path, firstSequence, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+    }
+
+    static boolean isSegment(Path path) {
+        return path.getFileName().toString().endsWith(SUFFIX);
+    }
+
+    /**
+     * Reads every intact entry of an existing segment. The segment is sealed afterwards: new
+     * entries always go to a fresh one.
+     */
+    static LogSegment replay(Path path, WriteAheadLog.EntryConsumer consumer) throws IOException {
+        String name = path.getFileName().toString();
+        long firstSequence = Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+        LogSegment segment = new LogSegment(path, firstSequence, null);
+
+        ByteBuffer entries;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            entries = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        CRC32C crc = new CRC32C();
+        while (entries.remaining() >= HEADER_BYTES) {
+            int length = entries.getInt();
+            int checksum = entries.getInt();
+            if (length <= 0 || length > entries.remaining() - Long.BYTES) {
+                break;
+            }
+            crc.reset();
+            crc.update(entries.slice(entries.position(), Long.BYTES + length));
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            long sequence = entries.getLong();
+            ByteBuffer payload = entries.slice(entries.position(), length);
+            entries.position(entries.position() + length);
+            segment.lastSequence = sequence;
+            consumer.accept(sequence, payload);
+        }
+        return segment;
+    }
+
+    /**
+     * Returns {@code false} when the entry does not fit, leaving the segment unchanged.
+     */
+    boolean append(long sequence, byte[] payload) {
+        int start = position;
+        if (buffer == null || buffer.capacity() - start < HEADER_BYTES + payload.length) {
+            return false;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, sequence));
+        crc.update(payload);
+
+        buffer.putInt(start, payload.length);
+        buffer.putInt(start + Integer.BYTES, (int) crc.getValue());
+        buffer.putLong(start + 2 * Integer.BYTES, sequence);
+        buffer.put(start + HEADER_BYTES, payload);
+        position = start + HEADER_BYTES + payload.length;
+        lastSequence = sequence;
+        return true;
+    }
+
+    /**
+     * Flushes the entries appended since the last call to the device.
+     */
+    synchronized void force() {
+        int end = position;
+        if (buffer != null && end > forcedPosition) {
+            buffer.force(forcedPosition, end - forcedPosition);
+            forcedPosition = end;
+        }
+    }
+
+    /**
+     * Forces outstanding entries and drops the mapping reference; the segment takes no more
+     * appends.
+     */
+    synchronized void seal() {
+        force();
+        buffer = null;
+    }
+
+    void delete() throws IOException {
+        buffer = null;
+        Files.deleteIfExists(path);
+    }
+
+    long firstSequence() {
+        return firstSequence;
+    }
+
+    long lastSequence() {
+        return lastSequence;
+    }
+
+    Path path() {
+        return path;
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.product_service.repository.wal;
+
+import com.example.product_service.infrastructure.exception.DataAccessException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of opaque entries in memory-mapped segment files. Every entry gets the next
+ * sequence number. Appends only copy into the mapping; {@link #sync} makes them durable with
+ * group fsync: the first caller to arrive forces everything appended so far, and callers that
+ * queued behind it usually find their entry already covered. Segments are deleted once the
+ * caller reports every entry in them as applied.
+ *
+ * <p>The log is single-writer per directory. A random id kept next to the segments lets the
+ * owner recognise which of its entries have already been applied elsewhere.
+ */
+@Slf4j
+public class WriteAheadLog implements AutoCloseable {
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+
+        void accept(long sequence, ByteBuffer payload);
+    }
+
+    private static final String ID_FILE = "log.id";
+
+    private final Path dir;
+    private final int segmentBytes;
+    private final String id;
+    private final Deque<LogSegment> segments = new ArrayDeque<>();
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    private volatile LogSegment active;
+    private volatile long appendedSequence;
+    private volatile long syncedSequence;
+    private long nextSequence = -1;
+    private boolean closed;
+
+    private WriteAheadLog(Path dir, int segmentBytes, String id) {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.id = id;
+    }
+
+    public static WriteAheadLog open(Path dir, int segmentBytes) {
+        try {
+            Files.createDirectories(dir);
+            Path idFile = dir.resolve(ID_FILE);
+            if (Files.notExists(idFile)) {
+                Files.writeString(idFile, UUID.randomUUID().toString(), StandardCharsets.UTF_8);
+            }
+            return new WriteAheadLog(dir, segmentBytes, Files.readString(idFile, StandardCharsets.UTF_8).trim());
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to open write-ahead log in " + dir, e);
+        }
+    }
+
+    public String id() {
+        return id;
+    }
+
+    /**
+     * Hands every intact entry after {@code appliedSequence} to the consumer in sequence order,
+     * then drops empty segments and those that hold nothing newer. Must run once before the first
+     * append; new entries are numbered after both the last logged and the last applied sequence.
+     */
+    public synchronized void replay(long appliedSequence, EntryConsumer consumer) {
+        long last = appliedSequence;
+        try (Stream<Path> files = Files.list(dir)) {
+            List<Path> paths = files.filter(LogSegment::isSegment)
+                    .sorted(Comparator.comparing(Path::getFileName))
+                    .toList();
+            for (Path path : paths) {
+                LogSegment segment = LogSegment.replay(path, (sequence, payload) -> {
+                    if (sequence > appliedSequence) {
+                        consumer.accept(sequence, payload);
+                    }
+                });
+                if (segment.lastSequence() < segment.firstSequence()) {
+                    // rolled just before a crash; its name would collide with the next new segment
+                    segment.delete();
+                    log.info("Deleted empty write-ahead log segment {}", path);
+                    continue;
+                }
+                segments.add(segment);
+                last = Math.max(last, segment.lastSequence());
+            }
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to replay write-ahead log in " + dir, e);
+        }
+        nextSequence = last + 1;
+        appendedSequence = last;
+        syncedSequence = last;
+        log.info("Replayed write-ahead log {} in {}: {} segments, next sequence {}",
+                id, dir, segments.size(), nextSequence);
+        truncate(appliedSequence);
+    }
+
+    /**
+     * Copies the entry into the active segment and returns its sequence number. The entry is not
+     * durable until {@link #sync} covers it.
+     */
+    public synchronized long append(byte[] payload) {
+        if (closed) {
+            throw new DataAccessException("Write-ahead log is closed");
+        }
+        if (nextSequence < 0) {
+            throw new IllegalStateException("Write-ahead log must be replayed before appending");
+        }
+        long sequence = nextSequence;
+        if (active == null || !active.append(sequence, payload)) {
+            roll(sequence, payload.length);
+            if (!active.append(sequence, payload)) {
+                throw new IllegalStateException("Entry of " + payload.length + " bytes does not fit a new segment");
+            }
+        }
+        nextSequence++;
+        appendedSequence = sequence;
+        return sequence;
+    }
+
+    /**
+     * Blocks until the entry with the given sequence, and every entry before it, is on disk.
+     */
+    public void sync(long sequence) {
+        if (syncedSequence >= sequence) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            if (syncedSequence >= sequence) {
+                return;
+            }
+            // segments are sealed, and so forced, before a newer one becomes active
+            long target = appendedSequence;
+            active.force();
+            syncedSequence = target;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the sealed segments whose entries are all at or below {@code appliedSequence}.
+     */
+    public synchronized void truncate(long appliedSequence) {
+        Iterator<LogSegment> iterator = segments.iterator();
+        while (iterator.hasNext()) {
+            LogSegment segment = iterator.next();
+            if (segment == active || segment.lastSequence() > appliedSequence) {
+                return;
+            }
+            try {
+                segment.delete();
+                iterator.remove();
+                log.debug("Deleted write-ahead log segment {}", segment.path());
+            } catch (IOException e) {
+                log.warn("Failed to delete write-ahead log segment {}", segment.path(), e);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            if (active != null) {
+                active.seal();
+            }
+        }
+    }
+
+    private void roll(long firstSequence, int payloadBytes) {
+        if (active != null) {
+            active.seal();
+        }
+        try {
+            active = LogSegment.create(dir, firstSequence, Math.max(segmentBytes, LogSegment.HEADER_BYTES + payloadBytes));
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to create write-ahead log segment in " + dir, e);
+        }
+        segments.add(active);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.product_service.service;
+
+import com.example.product_service.repository.ProductChangeListener;
+
+import java.util.function.Consumer;
+
+/**
+ * A change feed whose snapshot range has been validated but not yet read. The high-water
+ * snapshot is where the next sync should start from; it is {@code null} while the table is
+ * empty.
+ */
+public record ProductChangeStream(Long highWaterSnapshotId, Consumer<ProductChangeListener> reader) {
+
+    public void forEach(ProductChangeListener listener) {
+        reader.accept(listener);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.product_service.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A product export whose filters have been validated but that has not been written yet.
+ */
+@FunctionalInterface
+public interface ProductExport {
+
+    void writeTo(OutputStream out) throws IOException;
+}
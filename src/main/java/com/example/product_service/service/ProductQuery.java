@@ -0,0 +1,16 @@
+package com.example.product_service.service;
+
+import com.example.product_service.repository.QueryStats;
+import org.apache.iceberg.data.Record;
+
+import java.util.function.Consumer;
+
+/**
+ * A filtered product query that has been validated but not yet run. Running it pushes every
+ * matching row to the consumer and returns the scan stats.
+ */
+@FunctionalInterface
+public interface ProductQuery {
+
+    QueryStats forEach(Consumer<Record> consumer);
+}
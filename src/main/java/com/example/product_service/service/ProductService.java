@@ -1,23 +1,59 @@
 package com.example.product_service.service;
 
+import com.example.product_service.dto.BulkIngestResponse;
+import com.example.product_service.dto.ProductField;
+import com.example.product_service.dto.ProductFilterRequest;
+import com.example.product_service.dto.ProductQueryRequest;
 import com.example.product_service.dto.ProductRequest;
 import com.example.product_service.dto.ProductResponse;
+import com.example.product_service.dto.ProductSearchHit;
+import com.example.product_service.dto.ProductSearchResponse;
+import com.example.product_service.dto.RejectedRow;
+import com.example.product_service.infrastructure.exception.DataValidationException;
 import com.example.product_service.infrastructure.exception.NotFoundException;
 import com.example.product_service.model.Product;
+import com.example.product_service.repository.ChangeRange;
+import com.example.product_service.repository.ExportFormat;
+import com.example.product_service.repository.FilterOperator;
+import com.example.product_service.repository.GroupedProductStats;
+import com.example.product_service.repository.ProductAggregates;
+import com.example.product_service.repository.ProductBulkWriter;
+import com.example.product_service.repository.ProductFilter;
 import com.example.product_service.repository.ProductRepository;
+import com.example.product_service.repository.ProductSummary;
+import com.example.product_service.repository.ScanCursor;
+import com.example.product_service.repository.index.SearchHit;
+import com.example.product_service.repository.index.SearchResult;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.DatabindException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.springframework.transaction.annotation.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ProductService {
 
+    private static final int MAX_REPORTED_ERRORS = 100;
+
     private final ProductRepository productRepository;
+    private final ProductAggregates productAggregates;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
 
     @Transactional
     public ProductResponse createProduct(ProductRequest request) {
@@ -26,16 +62,195 @@ public class ProductService {
         return convertToResponse(savedProduct);
     }
 
+    @Transactional
+    public BulkIngestResponse ingestProducts(InputStream body) throws IOException {
+        long row = 0;
+        long accepted = 0;
+        long rejected = 0;
+        List<RejectedRow> errors = new ArrayList<>();
+
+        try (ProductBulkWriter writer = productRepository.openBulkWriter();
+             MappingIterator<ProductRequest> rows = objectMapper.readerFor(ProductRequest.class).readValues(body)) {
+            while (rows.hasNextValue()) {
+                row++;
+                ProductRequest request;
+                try {
+                    request = rows.nextValue();
+                } catch (DatabindException e) {
+                    rejected++;
+                    addRejectedRow(errors, row, null, Map.of("row", e.getOriginalMessage()));
+                    continue;
+                }
+
+                Set<ConstraintViolation<ProductRequest>> violations = validator.validate(request);
+                if (!violations.isEmpty()) {
+                    rejected++;
+                    addRejectedRow(errors, row, request.getProductId(), violations.stream()
+                            .collect(Collectors.toMap(
+                                    violation -> violation.getPropertyPath().toString(),
+                                    ConstraintViolation::getMessage,
+                                    (first, second) -> first)));
+                    continue;
+                }
+
+                writer.write(convertToEntity(request));
+                accepted++;
+            }
+            writer.commit();
+        } catch (JsonParseException e) {
+            throw new DataValidationException("Malformed product payload at row " + (row + 1), e);
+        }
+
+        return BulkIngestResponse.builder()
+                .accepted(accepted)
+                .rejected(rejected)
+                .errors(errors)
+                .build();
+    }
+
     @Transactional(readOnly = true)
-    public List<ProductResponse> getAllProducts() {
-        return productRepository.findAll().stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+    public ProductStream streamProducts(String after, int limit, Set<ProductField> fields) {
+        ScanCursor cursor = after != null ? ScanCursor.decode(after) : null;
+        List<String> columns = columns(fields);
+        return consumer -> {
+            ScanCursor next = productRepository.scan(cursor, limit, columns, consumer);
+            return next != null ? next.encode() : null;
+        };
     }
 
+    /**
+     * Products of one supplier and/or brand, at most {@code limit} of them ({@code 0} for all).
+     * Lookups are not paged, so the stream never returns a cursor.
+     */
     @Transactional(readOnly = true)
-    public ProductResponse getProductById(Long id) {
-        return productRepository.findById(id)
+    public ProductStream streamMatching(Long supplierId, String brand, int limit, Set<ProductField> fields) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        if (supplierId != null) {
+            values.put(ProductField.SUPPLIER_ID.column(), supplierId);
+        }
+        if (brand != null) {
+            values.put(ProductField.BRAND.column(), brand);
+        }
+        List<String> columns = columns(fields);
+        int maxRows = limit > 0 ? limit : Integer.MAX_VALUE;
+        return consumer -> {
+            productRepository.findByColumns(values, columns, maxRows, consumer);
+            return null;
+        };
+    }
+
+    /**
+     * Validates the query up front; running the returned stream performs the scan and yields
+     * its stats.
+     */
+    @Transactional(readOnly = true)
+    public ProductQuery queryProducts(ProductQueryRequest request, Set<ProductField> fields, int defaultLimit) {
+        List<ProductFilter> filters = new ArrayList<>();
+        if (request.getFilters() != null) {
+            for (ProductFilterRequest filter : request.getFilters()) {
+                ProductField field = ProductField.of(filter.getField());
+                FilterOperator operator = FilterOperator.parse(filter.getOp());
+                List<Object> values = operator == FilterOperator.IN
+                        ? filter.getValues()
+                        : filter.getValue() != null ? List.of(filter.getValue()) : List.of();
+                filters.add(new ProductFilter(field.column(), operator, values));
+            }
+        }
+
+        List<String> columns = columns(fields);
+        int limit = Objects.requireNonNullElse(request.getLimit(), defaultLimit);
+        productRepository.validateFilters(filters);
+        return consumer -> productRepository.query(filters, columns, limit, request.isOrdered(), consumer);
+    }
+
+    /**
+     * Validates the filters up front; writing the returned export scans the current snapshot.
+     * Each filter reads {@code field:op:value}, with {@code |}-separated values for {@code in}.
+     */
+    @Transactional(readOnly = true)
+    public ProductExport exportProducts(ExportFormat format, List<String> filterSpecs, Set<ProductField> fields) {
+        List<ProductFilter> filters = new ArrayList<>();
+        if (filterSpecs != null) {
+            for (String spec : filterSpecs) {
+                String[] parts = spec.split(":", 3);
+                if (parts.length != 3) {
+                    throw new DataValidationException("Filters must read field:op:value, not " + spec);
+                }
+                ProductField field = ProductField.of(parts[0]);
+                FilterOperator operator = FilterOperator.parse(parts[1]);
+                List<Object> values = operator == FilterOperator.IN
+                        ? List.of((Object[]) parts[2].split("\\|"))
+                        : List.of(parts[2]);
+                filters.add(new ProductFilter(field.column(), operator, values));
+            }
+        }
+
+        List<String> columns = columns(fields);
+        productRepository.validateFilters(filters);
+        return out -> productRepository.export(format, filters, columns, out);
+    }
+
+    /**
+     * Ranks products by how well their text matches the query and loads the {@code limit} best,
+     * reading each data file once for all of its hits; a product with a pending delete is left
+     * out.
+     */
+    @Transactional(readOnly = true)
+    public ProductSearchResponse searchProducts(String query, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new DataValidationException("Search query must not be blank");
+        }
+        SearchResult result = productRepository.search(query, limit);
+        Map<Long, Product> products = productRepository.findSearchHits(result.hits());
+        List<ProductSearchHit> hits = new ArrayList<>(result.hits().size());
+        for (SearchHit hit : result.hits()) {
+            Product product = products.get(hit.productId());
+            if (product != null) {
+                hits.add(new ProductSearchHit(hit.score(), convertToResponse(product)));
+            }
+        }
+        return new ProductSearchResponse(result.matched(), hits);
+    }
+
+    /**
+     * Validates the snapshot range up front; running the returned stream reads the changes.
+     */
+    @Transactional(readOnly = true)
+    public ProductChangeStream streamChanges(Long fromSnapshot, Long toSnapshot, Set<ProductField> fields) {
+        ChangeRange range = productRepository.resolveChanges(fromSnapshot, toSnapshot);
+        if (range == null) {
+            return new ProductChangeStream(null, listener -> {
+            });
+        }
+        List<String> columns = columns(fields);
+        return new ProductChangeStream(range.toSnapshotId(),
+                listener -> productRepository.changes(range, columns, listener));
+    }
+
+    @Transactional(readOnly = true)
+    public ProductSummary getSummary() {
+        return productAggregates.summary();
+    }
+
+    /**
+     * Aggregates by {@code brand} or {@code supplierId}, or over the whole table when
+     * {@code groupBy} is {@code null}.
+     */
+    @Transactional(readOnly = true)
+    public GroupedProductStats getGroupStats(String groupBy) {
+        if (groupBy == null) {
+            return productAggregates.groupStats(null);
+        }
+        ProductField field = ProductField.of(groupBy);
+        if (field != ProductField.BRAND && field != ProductField.SUPPLIER_ID) {
+            throw new DataValidationException("Grouping is supported by brand or supplierId, not " + groupBy);
+        }
+        return productAggregates.groupStats(field.column());
+    }
+
+    @Transactional(readOnly = true)
+    public ProductResponse getProductById(Long id, Set<ProductField> fields) {
+        return productRepository.findById(id, columns(fields))
                 .map(this::convertToResponse)
                 .orElseThrow(() -> new NotFoundException("Product not found with id: " + id));
     }
@@ -46,7 +261,7 @@ public class ProductService {
                 .orElseThrow(() -> new NotFoundException("Product not found with id: " + id));
 
         updateEntityFromRequest(request, existingProduct);
-        productRepository.save(existingProduct);
+        productRepository.update(existingProduct);
     }
 
     @Transactional
@@ -57,7 +272,26 @@ public class ProductService {
         productRepository.deleteById(id);
     }
 
-    private Product convertToEntity(ProductRequest request) {
+    private List<String> columns(Set<ProductField> fields) {
+        if (ProductField.isAll(fields)) {
+            return null;
+        }
+        return fields.stream()
+                .map(ProductField::column)
+                .toList();
+    }
+
+    private void addRejectedRow(List<RejectedRow> errors, long row, Long productId, Map<String, String> details) {
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(RejectedRow.builder()
+                    .row(row)
+                    .productId(productId)
+                    .errors(details)
+                    .build());
+        }
+    }
+
+    Product convertToEntity(ProductRequest request) {
         return Product.builder()
                 .productId(request.getProductId())
                 .title(request.getTitle())
@@ -74,7 +308,7 @@ public class ProductService {
                 .build();
     }
 
-    private ProductResponse convertToResponse(Product product) {
+    ProductResponse convertToResponse(Product product) {
         return ProductResponse.builder()
                 .productId(product.getProductId())
                 .title(product.getTitle())
@@ -0,0 +1,16 @@
+package com.example.product_service.service;
+
+import org.apache.iceberg.data.Record;
+
+import java.util.function.Consumer;
+
+/**
+ * A product scan that has been validated but not yet started. Running it pushes every product
+ * row to the consumer and returns the cursor of the next page, or {@code null} when the scan is
+ * exhausted.
+ */
+@FunctionalInterface
+public interface ProductStream {
+
+    String forEach(Consumer<Record> consumer);
+}
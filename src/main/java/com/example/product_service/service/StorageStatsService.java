@@ -0,0 +1,59 @@
+package com.example.product_service.service;
+
+import com.example.product_service.repository.CacheStats;
+import com.example.product_service.repository.MaintenanceReport;
+import com.example.product_service.repository.ProductCache;
+import com.example.product_service.repository.TableMaintenance;
+import com.example.product_service.repository.index.KeyIndexStats;
+import com.example.product_service.repository.index.ProductKeyIndex;
+import com.example.product_service.repository.index.ProductSearchIndex;
+import com.example.product_service.repository.index.ProductSecondaryIndex;
+import com.example.product_service.repository.index.SearchIndexStats;
+import com.example.product_service.repository.index.SecondaryIndexStats;
+import com.example.product_service.repository.io.CachingFileIO;
+import com.example.product_service.repository.io.FileCacheStats;
+import lombok.RequiredArgsConstructor;
+import org.apache.iceberg.Table;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+@Service
+@RequiredArgsConstructor
+public class StorageStatsService {
+
+    private final ProductCache productCache;
+    private final ProductKeyIndex keyIndex;
+    private final ProductSecondaryIndex secondaryIndex;
+    private final ProductSearchIndex searchIndex;
+    private final TableMaintenance tableMaintenance;
+    private final Table productTable;
+
+    public CacheStats getCacheStats() {
+        return productCache.stats();
+    }
+
+    public Optional<FileCacheStats> getFileCacheStats() {
+        return productTable.io() instanceof CachingFileIO io ? Optional.of(io.stats()) : Optional.empty();
+    }
+
+    public KeyIndexStats getKeyIndexStats() {
+        return keyIndex.stats();
+    }
+
+    public SecondaryIndexStats getSecondaryIndexStats() {
+        return secondaryIndex.stats();
+    }
+
+    public SearchIndexStats getSearchIndexStats() {
+        return searchIndex.stats();
+    }
+
+    public Optional<MaintenanceReport> getLastMaintenanceReport() {
+        return tableMaintenance.lastReport();
+    }
+
+    public MaintenanceReport runMaintenance() {
+        return tableMaintenance.run();
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.product_service.config;
+
+import com.example.product_service.repository.ProductFileWriterFactory;
+import org.apache.iceberg.AppendFiles;
+import org.apache.iceberg.DataFile;
+import org.apache.iceberg.FileScanTask;
+import org.apache.iceberg.PartitionField;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.catalog.Catalog;
+import org.apache.iceberg.data.GenericRecord;
+import org.apache.iceberg.data.IcebergGenerics;
+import org.apache.iceberg.data.Record;
+import org.apache.iceberg.expressions.Expression;
+import org.apache.iceberg.expressions.Expressions;
+import org.apache.iceberg.io.CloseableIterable;
+import org.apache.iceberg.io.TaskWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reopens one table with a changing {@code partition-buckets} setting, as restarts after a
+ * configuration change do, with data written under every layout.
+ */
+class IcebergConfigTest {
+
+    @TempDir
+    Path warehouse;
+
+    @Test
+    void evolvesATableWithDataFromUnpartitionedToBucketedAndKeepsPruning() throws IOException {
+        Table table = open(0);
+        assertThat(table.spec().isUnpartitioned()).isTrue();
+        append(table, LongStream.rangeClosed(1, 100));
+
+        table = open(4);
+        assertThat(bucketTransforms(table)).containsExactly("bucket[4]");
+        append(table, LongStream.rangeClosed(101, 200));
+
+        table = open(8);
+        assertThat(bucketTransforms(table)).containsExactly("bucket[8]");
+        append(table, LongStream.rangeClosed(201, 300));
+
+        // a restart with the same setting leaves the spec alone
+        int specId = table.spec().specId();
+        table = open(8);
+        assertThat(table.spec().specId()).isEqualTo(specId);
+        assertThat(table.specs()).hasSize(3);
+        assertThat(dataFiles(table, Expressions.alwaysTrue())).hasSizeGreaterThan(8);
+        for (long id : new long[] {42, 150, 250}) {
+            // the unpartitioned file is pruned by its bounds, the bucketed ones by their bucket
+            assertThat(dataFiles(table, Expressions.equal("product_id", id))).hasSize(1);
+            try (CloseableIterable<Record> rows = IcebergGenerics.read(table)
+                    .where(Expressions.equal("product_id", id))
+                    .build()) {
+                assertThat(rows).extracting(row -> row.getField("title")).containsExactly("Product " + id);
+            }
+        }
+    }
+
+    @Test
+    void dropsTheBucketsWhenPartitioningIsTurnedOff() throws IOException {
+        Table table = open(4);
+        append(table, LongStream.rangeClosed(1, 50));
+
+        table = open(0);
+
+        assertThat(bucketTransforms(table)).isEmpty();
+        append(table, LongStream.rangeClosed(51, 100));
+        assertThat(dataFiles(table, Expressions.equal("product_id", 75L))).hasSize(1);
+        assertThat(dataFiles(table, Expressions.equal("product_id", 25L))).hasSize(1);
+    }
+
+    private Table open(int partitionBuckets) {
+        IcebergConfig config = new IcebergConfig();
+        ReflectionTestUtils.setField(config, "accessKey", "test");
+        ReflectionTestUtils.setField(config, "secretKey", "test");
+        ReflectionTestUtils.setField(config, "endpoint", "http://localhost:9000");
+        ReflectionTestUtils.setField(config, "catalogType", "hadoop");
+        ReflectionTestUtils.setField(config, "warehouse", "file://" + warehouse);
+        ReflectionTestUtils.setField(config, "ioType", "hadoop");
+        ReflectionTestUtils.setField(config, "fileCacheEnabled", false);
+        ReflectionTestUtils.setField(config, "partitionBuckets", partitionBuckets);
+        Catalog catalog = config.catalog(config.hadoopConfiguration());
+        return config.productTable(catalog, new ParquetWriterProfile("zstd", "3", 134217728, 1048576,
+                true, 2097152, List.of("product_id"), 0.01, 1048576));
+    }
+
+    private static void append(Table table, LongStream ids) throws IOException {
+        TaskWriter<Record> writer = new ProductFileWriterFactory(table, 134217728, 1000).newTaskWriter(100);
+        try {
+            for (long id : ids.toArray()) {
+                writer.write(row(table, id));
+            }
+            AppendFiles append = table.newAppend();
+            for (DataFile file : writer.dataFiles()) {
+                append.appendFile(file);
+            }
+            append.commit();
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static List<String> bucketTransforms(Table table) {
+        return table.spec().fields().stream()
+                .filter(field -> field.name().equals("product_id_bucket"))
+                .map(PartitionField::transform)
+                .map(Object::toString)
+                .toList();
+    }
+
+    private static List<DataFile> dataFiles(Table table, Expression filter) throws IOException {
+        List<DataFile> files = new ArrayList<>();
+        try (CloseableIterable<FileScanTask> tasks = table.newScan().filter(filter).planFiles()) {
+            tasks.forEach(task -> files.add(task.file()));
+        }
+        return files;
+    }
+
+    private static Record row(Table table, long id) {
+        Record record = GenericRecord.create(table.schema());
+        record.setField("product_id", id);
+        record.setField("title", "Product " + id);
+        record.setField("amount", id % 100);
+        record.setField("brand", "brand-" + id);
+        record.setField("price", 9.5);
+        record.setField("supplier_id", 1L);
+        record.setField("supplier_name", "Supplier 1");
+        return record;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.product_service.repository;
+
+import org.apache.iceberg.CombinedScanTask;
+import org.apache.iceberg.FileScanTask;
+import org.apache.iceberg.Schema;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.data.GenericRecord;
+import org.apache.iceberg.data.Record;
+import org.apache.iceberg.io.CloseableIterable;
+import org.apache.iceberg.types.Types;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ParallelScannerTest {
+
+    private static final Schema SCHEMA = new Schema(
+            Types.NestedField.required(1, "product_id", Types.LongType.get()));
+
+    private final ProductRecordReader recordReader = mock(ProductRecordReader.class);
+    // a single read permit: any reader that still held it while the sink runs would block the probe
+    private final IoLimiter ioLimiter = new IoLimiter(1, 1);
+
+    @Test
+    void handsInlineRowsOverWithoutHoldingTheReadPermit() {
+        ParallelScanner scanner = new ParallelScanner(mock(Table.class), recordReader, ioLimiter, 1, 4, 2, 1000, false);
+        List<Record> rows = LongStream.rangeClosed(1, 10).mapToObj(ParallelScannerTest::row).toList();
+        when(recordReader.open(any(), any())).thenReturn(CloseableIterable.withNoopClose(rows));
+
+        List<Long> seen = new ArrayList<>();
+        scanner.scan(List.of(task()), SCHEMA, true, (task, record) -> {
+            CompletableFuture.runAsync(() -> ioLimiter.acquireRead().close()).orTimeout(5, TimeUnit.SECONDS).join();
+            seen.add((Long) record.getField("product_id"));
+            return true;
+        });
+
+        assertThat(seen).containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L);
+    }
+
+    @Test
+    void stopsInlineScansWhenTheSinkDeclinesARow() {
+        ParallelScanner scanner = new ParallelScanner(mock(Table.class), recordReader, ioLimiter, 1, 4, 2, 1000, false);
+        List<Record> rows = LongStream.rangeClosed(1, 10).mapToObj(ParallelScannerTest::row).toList();
+        when(recordReader.open(any(), any())).thenReturn(CloseableIterable.withNoopClose(rows));
+
+        List<Long> seen = new ArrayList<>();
+        scanner.scan(List.of(task()), SCHEMA, true, (task, record) -> {
+            seen.add((Long) record.getField("product_id"));
+            return seen.size() < 6;
+        });
+
+        assertThat(seen).containsExactly(1L, 2L, 3L, 4L, 5L, 6L);
+        // the permit went back when the scan stopped
+        CompletableFuture.runAsync(() -> ioLimiter.acquireRead().close()).orTimeout(5, TimeUnit.SECONDS).join();
+    }
+
+    private static CombinedScanTask task() {
+        CombinedScanTask combined = mock(CombinedScanTask.class);
+        when(combined.files()).thenReturn(List.of(mock(FileScanTask.class)));
+        return combined;
+    }
+
+    private static Record row(long productId) {
+        Record record = GenericRecord.create(SCHEMA);
+        record.setField("product_id", productId);
+        return record;
+    }
+}
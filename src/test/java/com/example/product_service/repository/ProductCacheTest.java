@@ -0,0 +1,99 @@
+package com.example.product_service.repository;
+
+import com.example.product_service.model.Product;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.iceberg.PartitionSpec;
+import org.apache.iceberg.Schema;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.hadoop.HadoopTables;
+import org.apache.iceberg.types.Types;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Commits empty snapshots to a local table, stamped as this instance's or made through a second
+ * handle on the table, as another instance would.
+ */
+class ProductCacheTest {
+
+    private static final Schema SCHEMA = new Schema(
+            Types.NestedField.required(1, "product_id", Types.LongType.get()));
+
+    @TempDir
+    Path warehouse;
+
+    private Table table;
+    private Table otherInstance;
+    private ProductCache cache;
+
+    @BeforeEach
+    void setUp() {
+        HadoopTables tables = new HadoopTables(new Configuration());
+        table = tables.create(SCHEMA, PartitionSpec.unpartitioned(), Map.of("format-version", "2"), warehouse.toString());
+        otherInstance = tables.load(warehouse.toString());
+        commitLocally();
+        cache = new ProductCache(table, true, 100, 0, Duration.ofMinutes(10));
+    }
+
+    @Test
+    void keepsEntriesAcrossLocalCommits() {
+        assertThat(get("first")).contains("first");
+
+        commitLocally();
+        commitLocally();
+
+        assertThat(get("second")).contains("first");
+        assertThat(cache.stats().staleReloads()).isZero();
+    }
+
+    @Test
+    void dropsEntriesOnceAForeignCommitIsRefreshed() {
+        assertThat(get("first")).contains("first");
+
+        otherInstance.newAppend().commit();
+        table.refresh();
+
+        assertThat(get("second")).contains("second");
+        assertThat(cache.stats().staleReloads()).isEqualTo(1);
+    }
+
+    @Test
+    void noticesAForeignCommitBehindALocalOne() {
+        assertThat(get("first")).contains("first");
+
+        otherInstance.newAppend().commit();
+        // a local commit refreshes past the foreign snapshot before any check runs
+        table.refresh();
+        commitLocally();
+
+        assertThat(get("second")).contains("second");
+    }
+
+    @Test
+    void dropsEntriesWhenTheTableIsRolledBack() {
+        long before = table.currentSnapshot().snapshotId();
+        commitLocally();
+        assertThat(get("first")).contains("first");
+
+        table.manageSnapshots().rollbackTo(before).commit();
+
+        assertThat(get("second")).contains("second");
+    }
+
+    private Optional<String> get(String title) {
+        return cache.get(1L, id -> Optional.of(Product.builder().productId(id).title(title).build()))
+                .map(Product::getTitle);
+    }
+
+    private void commitLocally() {
+        CommitProperties.stamp(table.newAppend()).commit();
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.product_service.repository;
+
+import com.example.product_service.model.Product;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.iceberg.DataFile;
+import org.apache.iceberg.FileScanTask;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.arrow.ArrowAllocation;
+import org.apache.iceberg.arrow.ArrowSchemaUtil;
+import org.apache.iceberg.io.CloseableIterable;
+import org.apache.iceberg.io.SeekableInputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Exports a table written only by bulk loads, so it has no delete files and the byte-copy and
+ * vectorized paths apply.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("local")
+class ProductExporterTest {
+
+    @TempDir
+    static Path dataDir;
+
+    @Autowired
+    private ProductRepository repository;
+
+    @Autowired
+    private Table productTable;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("iceberg.catalog.warehouse", () -> "file://" + dataDir.resolve("warehouse"));
+        registry.add("iceberg.catalog.jdbc.uri",
+                () -> "jdbc:h2:file:" + dataDir.resolve("catalog") + ";DATABASE_TO_UPPER=FALSE");
+        registry.add("iceberg.write.wal.dir", () -> dataDir.resolve("wal").toString());
+        registry.add("iceberg.file-cache.disk-dir", () -> dataDir.resolve("file-cache").toString());
+        registry.add("iceberg.write.sort-buffer-rows", () -> 10);
+        registry.add("iceberg.scan.batch-size", () -> 16);
+        registry.add("iceberg.maintenance.enabled", () -> false);
+        registry.add("product.cache.enabled", () -> false);
+    }
+
+    @Test
+    void copiesUntouchedDataFilesByteForByte() throws IOException {
+        bulkLoad(LongStream.rangeClosed(1_001, 1_030).mapToObj(id -> product(id, "Product " + id, null)).toList());
+
+        byte[] export = export(ExportFormat.PARQUET, List.of(), null);
+
+        List<byte[]> dataFiles = new ArrayList<>();
+        for (DataFile file : dataFiles()) {
+            try (SeekableInputStream in = productTable.io().newInputFile(file.location()).newStream()) {
+                dataFiles.add(in.readAllBytes());
+            }
+        }
+        List<byte[]> parts = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(export))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                assertThat(entry.getName()).matches("products/part-\\d{5}\\.parquet");
+                parts.add(zip.readAllBytes());
+            }
+        }
+        assertThat(parts).hasSize(dataFiles.size()).hasSizeGreaterThan(1);
+        for (byte[] part : parts) {
+            assertThat(dataFiles).anySatisfy(file -> assertThat(file).isEqualTo(part));
+        }
+    }
+
+    @Test
+    void loadsVectorizedBatchesIntoTheExportSchema() throws IOException {
+        bulkLoad(LongStream.rangeClosed(2_001, 2_040).mapToObj(id -> product(id, "Product " + id, null)).toList());
+
+        Map<Long, String> exported = readArrow(export(ExportFormat.ARROW, List.of(), null), true);
+
+        Map<Long, String> stored = repository.findAll().stream()
+                .collect(Collectors.toMap(Product::getProductId, Product::getTitle));
+        assertThat(exported).isEqualTo(stored);
+    }
+
+    @Test
+    void encodesFilteredArrowExportsFromRows() throws IOException {
+        bulkLoad(LongStream.rangeClosed(3_001, 3_020).mapToObj(id -> product(id, "Product " + id, null)).toList());
+
+        byte[] export = export(ExportFormat.ARROW,
+                List.of(new ProductFilter("product_id", FilterOperator.EQ, List.of(3_007L))), List.of("title"));
+
+        assertThat(readArrow(export, false)).containsExactly(Map.entry(3_007L, "Product 3007"));
+    }
+
+    @Test
+    void quotesCsvValuesThatNeedIt() throws IOException {
+        bulkLoad(List.of(
+                product(4_001, "Lamp, \"brass\"", "Two\r\nlines"),
+                product(4_002, "Plain", null)));
+
+        byte[] export = export(ExportFormat.CSV,
+                List.of(new ProductFilter("product_id", FilterOperator.IN, List.of(4_001L, 4_002L))),
+                List.of("title", "description"));
+
+        List<String> lines = List.of(new String(export, StandardCharsets.UTF_8).split("\r\n(?=\\d|$)"));
+        assertThat(lines.get(0)).isEqualTo("product_id,title,description");
+        assertThat(lines.subList(1, lines.size())).containsExactlyInAnyOrder(
+                "4001,\"Lamp, \"\"brass\"\"\",\"Two\r\nlines\"",
+                "4002,Plain,");
+    }
+
+    /**
+     * Product ids and titles of an Arrow stream, whose schema must match the Iceberg schema of
+     * the table or of the projection.
+     */
+    private Map<Long, String> readArrow(byte[] export, boolean fullSchema) throws IOException {
+        Map<Long, String> rows = new HashMap<>();
+        try (BufferAllocator allocator = ArrowAllocation.rootAllocator()
+                .newChildAllocator("export-test", 0, Long.MAX_VALUE);
+             ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(export), allocator)) {
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            if (fullSchema) {
+                assertThat(root.getSchema()).isEqualTo(ArrowSchemaUtil.convert(productTable.schema()));
+            }
+            while (reader.loadNextBatch()) {
+                for (int row = 0; row < root.getRowCount(); row++) {
+                    rows.put((Long) root.getVector("product_id").getObject(row),
+                            root.getVector("title").getObject(row).toString());
+                }
+            }
+        }
+        return rows;
+    }
+
+    private byte[] export(ExportFormat format, List<ProductFilter> filters, List<String> columns) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        repository.export(format, filters, columns, out);
+        return out.toByteArray();
+    }
+
+    private List<DataFile> dataFiles() throws IOException {
+        productTable.refresh();
+        List<DataFile> files = new ArrayList<>();
+        try (CloseableIterable<FileScanTask> tasks = productTable.newScan().planFiles()) {
+            tasks.forEach(task -> files.add(task.file()));
+        }
+        return files;
+    }
+
+    private void bulkLoad(List<Product> products) throws IOException {
+        try (ProductBulkWriter writer = repository.openBulkWriter()) {
+            products.forEach(writer::write);
+            writer.commit();
+        }
+    }
+
+    private static Product product(long id, String title, String description) {
+        return Product.builder()
+                .productId(id)
+                .title(title)
+                .description(description)
+                .amount(id % 100)
+                .brand("brand-" + id)
+                .material("steel")
+                .color("grey")
+                .price(9.5)
+                .supplierId(1L)
+                .supplierName("Supplier 1")
+                .supplierContact("sales@supplier-1.example.com")
+                .supplierCountry("DE")
+                .build();
+    }
+}
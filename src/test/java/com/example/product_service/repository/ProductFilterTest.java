@@ -0,0 +1,87 @@
+package com.example.product_service.repository;
+
+import com.example.product_service.infrastructure.exception.DataValidationException;
+import org.apache.iceberg.Schema;
+import org.apache.iceberg.expressions.Expression;
+import org.apache.iceberg.expressions.Expressions;
+import org.apache.iceberg.types.Types;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProductFilterTest {
+
+    private static final Schema SCHEMA = new Schema(
+            Types.NestedField.required(1, "product_id", Types.LongType.get()),
+            Types.NestedField.required(2, "title", Types.StringType.get()),
+            Types.NestedField.required(3, "price", Types.DoubleType.get()),
+            Types.NestedField.optional(4, "active", Types.BooleanType.get()));
+
+    @Test
+    void coercesNumbersAndStringsToTheColumnType() {
+        assertSameExpression(filter("product_id", FilterOperator.EQ, "42"), Expressions.equal("product_id", 42L));
+        assertSameExpression(filter("product_id", FilterOperator.GT, 7), Expressions.greaterThan("product_id", 7L));
+        assertSameExpression(filter("price", FilterOperator.LTE, "9.5"), Expressions.lessThanOrEqual("price", 9.5));
+        assertSameExpression(filter("price", FilterOperator.GTE, 3), Expressions.greaterThanOrEqual("price", 3.0));
+        assertSameExpression(filter("title", FilterOperator.STARTS_WITH, "Lamp"), Expressions.startsWith("title", "Lamp"));
+    }
+
+    @Test
+    void coercesEveryValueOfAnInList() {
+        Expression expression = new ProductFilter("product_id", FilterOperator.IN, List.of(1, "2", 3L)).toExpression(SCHEMA);
+
+        assertSameExpression(expression, Expressions.in("product_id", 1L, 2L, 3L));
+    }
+
+    @Test
+    void rejectsUnknownColumns() {
+        assertInvalid(new ProductFilter("weight", FilterOperator.EQ, List.of(1)), "Unknown column: weight");
+    }
+
+    @Test
+    void rejectsValuesOfTheWrongType() {
+        assertInvalid(new ProductFilter("product_id", FilterOperator.EQ, List.of("abc")), "Invalid value for product_id");
+        assertInvalid(new ProductFilter("product_id", FilterOperator.EQ, List.of(1.5)), "Invalid value for product_id");
+        assertInvalid(new ProductFilter("price", FilterOperator.EQ, List.of(true)), "Invalid value for price");
+        assertInvalid(new ProductFilter("title", FilterOperator.EQ, List.of(5)), "Invalid value for title");
+    }
+
+    @Test
+    void rejectsNullValues() {
+        assertInvalid(new ProductFilter("title", FilterOperator.IN, Arrays.asList("a", null)), "does not accept null");
+        assertInvalid(new ProductFilter("price", FilterOperator.EQ, Arrays.asList((Object) null)), "does not accept null");
+        assertInvalid(new ProductFilter("product_id", FilterOperator.IN, Arrays.asList(1, null)), "does not accept null");
+    }
+
+    @Test
+    void rejectsOperatorsTheColumnDoesNotSupport() {
+        assertInvalid(new ProductFilter("title", FilterOperator.LT, List.of("m")), "Range filters are not supported");
+        assertInvalid(new ProductFilter("price", FilterOperator.STARTS_WITH, List.of("1")), "only supported on text fields");
+        assertInvalid(new ProductFilter("active", FilterOperator.EQ, List.of(true)), "Filtering on active is not supported");
+    }
+
+    @Test
+    void checksTheNumberOfValues() {
+        assertInvalid(new ProductFilter("product_id", FilterOperator.EQ, List.of(1, 2)), "needs exactly one value");
+        assertInvalid(new ProductFilter("product_id", FilterOperator.IN, List.of()), "needs at least one value");
+        assertInvalid(new ProductFilter("product_id", FilterOperator.EQ, null), "needs exactly one value");
+    }
+
+    private static Expression filter(String column, FilterOperator operator, Object value) {
+        return new ProductFilter(column, operator, List.of(value)).toExpression(SCHEMA);
+    }
+
+    private static void assertSameExpression(Expression actual, Expression expected) {
+        assertThat(actual.toString()).isEqualTo(expected.toString());
+    }
+
+    private static void assertInvalid(ProductFilter filter, String message) {
+        assertThatThrownBy(() -> filter.toExpression(SCHEMA))
+                .isInstanceOf(DataValidationException.class)
+                .hasMessageContaining(message);
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.product_service.repository;
+
+import com.example.product_service.model.Product;
+import com.example.product_service.repository.index.SearchHit;
+import com.example.product_service.repository.index.SearchResult;
+import org.apache.iceberg.Snapshot;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.data.Record;
+import org.apache.iceberg.util.SnapshotUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the repository against a JDBC catalog and a local warehouse, as the {@code local} profile
+ * does. Tests share one table, so each works on its own range of product ids.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("local")
+class ProductRepositoryTest {
+
+    @TempDir
+    static Path dataDir;
+
+    @Autowired
+    private ProductRepository repository;
+
+    @Autowired
+    private Table productTable;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("iceberg.catalog.warehouse", () -> "file://" + dataDir.resolve("warehouse"));
+        registry.add("iceberg.catalog.jdbc.uri",
+                () -> "jdbc:h2:file:" + dataDir.resolve("catalog") + ";DATABASE_TO_UPPER=FALSE");
+        registry.add("iceberg.write.wal.dir", () -> dataDir.resolve("wal").toString());
+        registry.add("iceberg.file-cache.disk-dir", () -> dataDir.resolve("file-cache").toString());
+        registry.add("iceberg.write.max-delay-ms", () -> 20);
+        registry.add("iceberg.write.sort-buffer-rows", () -> 10);
+        registry.add("iceberg.maintenance.enabled", () -> false);
+        registry.add("product.cache.enabled", () -> false);
+    }
+
+    @Test
+    void groupsConcurrentWritesIntoFewerCommits() throws Exception {
+        Set<Long> before = snapshotIds();
+        List<Long> ids = LongStream.rangeClosed(1_001, 1_064).boxed().toList();
+
+        ExecutorService writers = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<Product>> saves = new ArrayList<>();
+            for (Long id : ids) {
+                saves.add(writers.submit(() -> repository.save(product(id, 1))));
+            }
+            for (Future<Product> save : saves) {
+                save.get();
+            }
+        } finally {
+            writers.shutdown();
+        }
+
+        Set<Long> added = snapshotIds();
+        added.removeAll(before);
+        assertThat(added).isNotEmpty().hasSizeLessThan(ids.size());
+        for (Long id : ids) {
+            assertThat(repository.findById(id)).hasValueSatisfying(product -> assertThat(product.getTitle())
+                    .isEqualTo("Product " + id));
+        }
+    }
+
+    @Test
+    void updatesAndDeletesReplaceTheStoredRow() {
+        repository.save(product(2_001, 1));
+        repository.save(product(2_002, 1));
+
+        repository.update(product(2_001, 1).toBuilder().title("Renamed").build());
+        repository.deleteById(2_002L);
+
+        assertThat(repository.findById(2_001L)).hasValueSatisfying(product ->
+                assertThat(product.getTitle()).isEqualTo("Renamed"));
+        assertThat(repository.findById(2_002L)).isEmpty();
+        assertThat(repository.findAll()).filteredOn(product -> product.getProductId() == 2_001L).hasSize(1);
+    }
+
+    @Test
+    void pagesThroughEveryRowAcrossDataFiles() throws IOException {
+        bulkLoad(LongStream.rangeClosed(3_001, 3_045), 1);
+
+        List<Long> paged = new ArrayList<>();
+        Set<String> pageFiles = new HashSet<>();
+        ScanCursor cursor = null;
+        int pages = 0;
+        do {
+            if (cursor != null) {
+                cursor = ScanCursor.decode(cursor.encode());
+                pageFiles.add(cursor.filePath());
+            }
+            List<Long> page = new ArrayList<>();
+            cursor = repository.scan(cursor, 7, List.of("title"), record -> page.add(productId(record)));
+            assertThat(page).hasSizeLessThanOrEqualTo(7);
+            paged.addAll(page);
+            pages++;
+        } while (cursor != null);
+
+        List<Long> all = repository.findAll().stream().map(Product::getProductId).toList();
+        assertThat(paged).doesNotHaveDuplicates().containsExactlyInAnyOrderElementsOf(all);
+        assertThat(pages).isEqualTo((all.size() + 6) / 7);
+        assertThat(pageFiles).hasSizeGreaterThan(1);
+    }
+
+    @Test
+    void feedsNetChangesAcrossUpdatesAndDeletes() {
+        repository.save(product(4_001, 1));
+        repository.save(product(4_002, 1));
+        repository.save(product(4_003, 1));
+        long from = productTable.currentSnapshot().snapshotId();
+
+        repository.deleteById(4_001L);
+        repository.update(product(4_002, 1).toBuilder().title("Changed").build());
+        repository.save(product(4_004, 1));
+        repository.save(product(4_005, 1));
+        repository.deleteById(4_005L);
+
+        ChangeRange range = repository.resolveChanges(from, null);
+        Map<Long, String> upserts = new HashMap<>();
+        Set<Long> deletes = new HashSet<>();
+        repository.changes(range, List.of("title"), new ProductChangeListener() {
+            @Override
+            public void upsert(Record row) {
+                upserts.put(productId(row), (String) row.getField("title"));
+            }
+
+            @Override
+            public void delete(long productId) {
+                deletes.add(productId);
+            }
+        });
+
+        assertThat(upserts).containsOnly(Map.entry(4_002L, "Changed"), Map.entry(4_004L, "Product 4004"));
+        assertThat(deletes).contains(4_001L).doesNotContain(4_002L, 4_003L, 4_004L);
+    }
+
+    @Test
+    void looksRowsUpThroughTheSecondaryIndex() {
+        long supplier = 505_001;
+        repository.save(product(5_001, supplier));
+        repository.save(product(5_002, supplier));
+        repository.save(product(5_003, supplier));
+        repository.save(product(5_004, supplier + 1));
+
+        assertThat(lookup(Map.of("supplier_id", supplier))).containsExactlyInAnyOrder(5_001L, 5_002L, 5_003L);
+
+        repository.update(product(5_002, supplier + 1));
+        repository.deleteById(5_003L);
+
+        assertThat(lookup(Map.of("supplier_id", supplier))).containsExactly(5_001L);
+        assertThat(lookup(Map.of("supplier_id", supplier + 1, "brand", "brand-5002")))
+                .containsExactly(5_002L);
+    }
+
+    @Test
+    void ranksFullTextMatchesAndDropsDeletedProducts() {
+        repository.save(product(6_001, 1).toBuilder().title("Zephyr lantern").build());
+        repository.save(product(6_002, 1).toBuilder().description("A brass lantern for the porch").build());
+        repository.save(product(6_003, 1).toBuilder().title("Quartz lamp").build());
+
+        SearchResult result = repository.search("zephyr lantern", 10);
+
+        assertThat(result.matched()).isEqualTo(2);
+        assertThat(result.hits()).extracting(SearchHit::productId).containsExactly(6_001L, 6_002L);
+        assertThat(repository.findSearchHits(result.hits()))
+                .containsOnlyKeys(6_001L, 6_002L)
+                .hasEntrySatisfying(6_001L, product -> assertThat(product.getTitle()).isEqualTo("Zephyr lantern"))
+                .hasEntrySatisfying(6_002L, product ->
+                        assertThat(product.getDescription()).isEqualTo("A brass lantern for the porch"));
+
+        repository.deleteById(6_001L);
+
+        assertThat(repository.search("lantern", 10).hits()).extracting(SearchHit::productId).containsExactly(6_002L);
+    }
+
+    private List<Long> lookup(Map<String, Object> values) {
+        List<Long> ids = new ArrayList<>();
+        repository.findByColumns(values, List.of("title"), 100, record -> ids.add(productId(record)));
+        return ids;
+    }
+
+    private void bulkLoad(LongStream ids, long supplierId) throws IOException {
+        try (ProductBulkWriter writer = repository.openBulkWriter()) {
+            ids.forEach(id -> writer.write(product(id, supplierId)));
+            writer.commit();
+        }
+    }
+
+    private Set<Long> snapshotIds() {
+        Set<Long> ids = new HashSet<>();
+        productTable.refresh();
+        if (productTable.currentSnapshot() != null) {
+            SnapshotUtil.currentAncestors(productTable).forEach((Snapshot snapshot) -> ids.add(snapshot.snapshotId()));
+        }
+        return ids;
+    }
+
+    private static long productId(Record record) {
+        return (Long) record.getField("product_id");
+    }
+
+    private static Product product(long id, long supplierId) {
+        return Product.builder()
+                .productId(id)
+                .title("Product " + id)
+                .description("Test product " + id)
+                .amount(id % 100)
+                .brand("brand-" + id)
+                .material("steel")
+                .color("grey")
+                .price(9.5)
+                .supplierId(supplierId)
+                .supplierName("Supplier " + supplierId)
+                .supplierContact("sales@supplier-" + supplierId + ".example.com")
+                .supplierCountry("DE")
+                .build();
+    }
+}
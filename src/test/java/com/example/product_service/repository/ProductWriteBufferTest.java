@@ -0,0 +1,284 @@
+package com.example.product_service.repository;
+
+import com.example.product_service.infrastructure.exception.DataAccessException;
+import org.apache.iceberg.Schema;
+import org.apache.iceberg.Snapshot;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.data.GenericRecord;
+import org.apache.iceberg.data.Record;
+import org.apache.iceberg.exceptions.CommitFailedException;
+import org.apache.iceberg.exceptions.CommitStateUnknownException;
+import org.apache.iceberg.types.Types;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductWriteBufferTest {
+
+    private static final Schema SCHEMA = new Schema(
+            Types.NestedField.required(1, "product_id", Types.LongType.get()),
+            Types.NestedField.required(2, "title", Types.StringType.get()));
+
+    @TempDir
+    Path walDir;
+
+    private final ProductChangeCommitter committer = mock(ProductChangeCommitter.class);
+    private final ProductCache productCache = mock(ProductCache.class);
+    private final Table productTable = mock(Table.class);
+    private ProductWriteBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        when(productTable.schema()).thenReturn(SCHEMA);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (buffer != null) {
+            buffer.stop();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void foldsTheWritesOfABatchIntoOneChangePerProduct() {
+        buffer = buffer(false);
+        Record first = row(1, "first");
+        Record second = row(1, "second");
+        Record readded = row(3, "readded");
+        List<CompletableFuture<Void>> futures = List.of(
+                buffer.submitInsert(first),
+                buffer.submitUpsert(second),
+                buffer.submitInsert(row(2, "gone")),
+                buffer.submitDelete(2),
+                buffer.submitDelete(3),
+                buffer.submitInsert(readded),
+                buffer.submitInsert(row(4, "new")));
+
+        // everything is queued before the flusher starts, so it all lands in one batch
+        buffer.start();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+        ArgumentCaptor<Collection<ProductChange>> batch = ArgumentCaptor.forClass(Collection.class);
+        verify(committer, times(1)).commit(batch.capture());
+        assertThat(batch.getValue()).extracting(ProductChange::productId).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(List.copyOf(batch.getValue())).satisfiesExactly(
+                change -> assertThat(change).isEqualTo(new ProductChange(1, second, true)),
+                change -> assertThat(change).isEqualTo(new ProductChange(2, null, true)),
+                change -> assertThat(change).isEqualTo(new ProductChange(3, readded, true)),
+                change -> assertThat(change.replaceExisting()).isFalse());
+    }
+
+    @Test
+    void failsEveryWriteOfABatchThatDoesNotCommit() {
+        doThrow(new CommitFailedException("conflict")).when(committer).commit(anyCollection());
+        buffer = buffer(false);
+        CompletableFuture<Void> insert = buffer.submitInsert(row(1, "one"));
+        CompletableFuture<Void> delete = buffer.submitDelete(2);
+
+        buffer.start();
+
+        assertThatThrownBy(insert::join).isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(DataAccessException.class);
+        assertThatThrownBy(delete::join).isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(DataAccessException.class);
+    }
+
+    @Test
+    void rejectsWritesAfterStop() throws InterruptedException {
+        buffer = buffer(false);
+        buffer.start();
+        buffer.stop();
+
+        assertThatThrownBy(() -> buffer.submitInsert(row(1, "late"))).isInstanceOf(DataAccessException.class);
+        buffer = null;
+    }
+
+    @Test
+    void retriesALoggedBatchAfterACommitConflict() {
+        doThrow(new CommitFailedException("conflict"))
+                .doNothing()
+                .when(committer).commit(anyCollection(), anyMap());
+        buffer = buffer(true);
+        buffer.start();
+
+        buffer.submitInsert(row(1, "one")).join();
+        assertThat(buffer.pending(1)).isNotNull();
+
+        verify(productCache, timeout(5000)).invalidate(1L);
+        verify(committer, times(2)).commit(anyCollection(), anyMap());
+        assertThat(buffer.pending(1)).isNull();
+    }
+
+    @Test
+    void doesNotRecommitABatchWhoseUnknownCommitLanded() {
+        AtomicReference<Snapshot> current = new AtomicReference<>();
+        when(productTable.currentSnapshot()).thenAnswer(invocation -> current.get());
+        doAnswer(invocation -> {
+            Map<String, String> summary = invocation.getArgument(1);
+            Snapshot snapshot = mock(Snapshot.class);
+            when(snapshot.summary()).thenReturn(summary);
+            current.set(snapshot);
+            throw new CommitStateUnknownException(new RuntimeException("connection reset"));
+        }).when(committer).commit(anyCollection(), anyMap());
+        buffer = buffer(true);
+        buffer.start();
+
+        buffer.submitUpsert(row(1, "one")).join();
+
+        verify(productCache, timeout(5000)).invalidate(1L);
+        verify(committer, times(1)).commit(anyCollection(), anyMap());
+        assertThat(buffer.pending(1)).isNull();
+    }
+
+    @Test
+    void keepsRetryingALoggedBatchThroughALongOutage() {
+        AtomicInteger attempts = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (attempts.incrementAndGet() <= 20) {
+                throw new CommitFailedException("conflict");
+            }
+            return null;
+        }).when(committer).commit(anyCollection(), anyMap());
+        buffer = buffer(true);
+        buffer.start();
+
+        buffer.submitInsert(row(1, "one")).join();
+        buffer.awaitAcknowledged();
+
+        verify(committer, times(21)).commit(anyCollection(), anyMap());
+        assertThat(buffer.pending(1)).isNull();
+        assertThat(walDir.resolve("rejected")).doesNotExist();
+    }
+
+    @Test
+    void savesALoggedBatchThatCanNeverCommitAside() throws Exception {
+        doThrow(new IllegalArgumentException("unknown column")).when(committer).commit(anyCollection(), anyMap());
+        buffer = buffer(true);
+        buffer.start();
+
+        buffer.submitInsert(row(1, "one")).join();
+        buffer.awaitAcknowledged();
+
+        verify(committer, times(1)).commit(anyCollection(), anyMap());
+        assertThat(buffer.pending(1)).isNull();
+        try (Stream<Path> rejected = Files.list(walDir.resolve("rejected"))) {
+            assertThat(rejected.map(path -> path.getFileName().toString())).containsExactly("rejected-1-1.log");
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void keepsARejectedBatchInTheLogWhenItCannotBeSaved() throws Exception {
+        doThrow(new IllegalArgumentException("unknown column")).when(committer).commit(anyCollection(), anyMap());
+        // a file where the rejected directory belongs makes every save fail
+        Files.writeString(walDir.resolve("rejected"), "in the way");
+        buffer = buffer(true);
+        buffer.start();
+
+        buffer.submitInsert(row(1, "one")).join();
+        verify(committer, timeout(5000)).commit(anyCollection(), anyMap());
+        Thread.sleep(100);
+        verify(productCache, never()).invalidate(1L);
+        assertThat(buffer.pending(1)).isNotNull();
+        buffer.stop();
+        clearInvocations(committer, productCache);
+
+        Files.delete(walDir.resolve("rejected"));
+        doNothing().when(committer).commit(anyCollection(), anyMap());
+        buffer = buffer(true);
+        buffer.start();
+
+        verify(productCache, timeout(5000)).invalidate(1L);
+        ArgumentCaptor<Collection<ProductChange>> batch = ArgumentCaptor.forClass(Collection.class);
+        verify(committer).commit(batch.capture(), anyMap());
+        assertThat(batch.getValue()).extracting(ProductChange::productId).containsExactly(1L);
+    }
+
+    @Test
+    void waitsForAcknowledgedWritesBeforeReads() {
+        doAnswer(invocation -> {
+            Thread.sleep(200);
+            return null;
+        }).when(committer).commit(anyCollection(), anyMap());
+        buffer = buffer(true);
+        buffer.start();
+
+        buffer.submitInsert(row(1, "one")).join();
+        buffer.submitInsert(row(2, "two")).join();
+        assertThat(buffer.pending(2)).isNotNull();
+        buffer.awaitAcknowledged();
+
+        assertThat(buffer.pending(1)).isNull();
+        assertThat(buffer.pending(2)).isNull();
+        verify(productCache).invalidate(2L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void replaysLoggedWritesThatWereNeverCommitted() throws InterruptedException {
+        doThrow(new CommitFailedException("conflict")).when(committer).commit(anyCollection(), anyMap());
+        buffer = buffer(true);
+        buffer.start();
+        buffer.submitInsert(row(1, "one")).join();
+        verify(committer, timeout(5000).atLeastOnce()).commit(anyCollection(), anyMap());
+        // stopping during the retry loop leaves the batch to the log
+        buffer.stop();
+        clearInvocations(committer, productCache);
+
+        doNothing().when(committer).commit(anyCollection(), anyMap());
+        buffer = buffer(true);
+        buffer.start();
+
+        verify(productCache, timeout(5000)).invalidate(1L);
+        ArgumentCaptor<Collection<ProductChange>> batch = ArgumentCaptor.forClass(Collection.class);
+        verify(committer).commit(batch.capture(), anyMap());
+        // inserts replay as upserts, since an earlier commit may already hold them
+        assertThat(batch.getValue()).singleElement().satisfies(change -> {
+            assertThat(change.productId()).isEqualTo(1L);
+            assertThat(change.row().getField("title")).isEqualTo("one");
+            assertThat(change.replaceExisting()).isTrue();
+        });
+        assertThat(buffer.pending(1)).isNull();
+    }
+
+    private ProductWriteBuffer buffer(boolean wal) {
+        return new ProductWriteBuffer(committer, productTable, productCache, 100, 20, 100,
+                wal, walDir.toString(), 1 << 16, 10, 5000);
+    }
+
+    private static Record row(long productId, String title) {
+        Record record = GenericRecord.create(SCHEMA);
+        record.setField("product_id", productId);
+        record.setField("title", title);
+        return record;
+    }
+}
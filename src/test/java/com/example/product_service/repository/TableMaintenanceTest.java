@@ -0,0 +1,179 @@
+package com.example.product_service.repository;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.iceberg.DataFile;
+import org.apache.iceberg.DeleteFile;
+import org.apache.iceberg.FileFormat;
+import org.apache.iceberg.FileScanTask;
+import org.apache.iceberg.MetadataColumns;
+import org.apache.iceberg.PartitionSpec;
+import org.apache.iceberg.Schema;
+import org.apache.iceberg.SortOrder;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.TableProperties;
+import org.apache.iceberg.data.GenericAppenderFactory;
+import org.apache.iceberg.data.GenericRecord;
+import org.apache.iceberg.data.IcebergGenerics;
+import org.apache.iceberg.data.Record;
+import org.apache.iceberg.deletes.PositionDelete;
+import org.apache.iceberg.deletes.PositionDeleteWriter;
+import org.apache.iceberg.expressions.Expressions;
+import org.apache.iceberg.hadoop.HadoopTables;
+import org.apache.iceberg.io.CloseableIterable;
+import org.apache.iceberg.io.OutputFileFactory;
+import org.apache.iceberg.io.TaskWriter;
+import org.apache.iceberg.types.Types;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compacts a small unpartitioned table. The sort buffer holds four rows, so unsorted groups are
+ * written in several runs.
+ */
+class TableMaintenanceTest {
+
+    private static final Schema SCHEMA = new Schema(
+            Types.NestedField.required(1, "product_id", Types.LongType.get()),
+            Types.NestedField.required(2, "title", Types.StringType.get()));
+
+    @TempDir
+    Path warehouse;
+
+    private Table table;
+    private ProductFileWriterFactory writerFactory;
+    private TableMaintenance maintenance;
+
+    @BeforeEach
+    void setUp() {
+        table = new HadoopTables(new Configuration()).create(SCHEMA, PartitionSpec.unpartitioned(),
+                SortOrder.builderFor(SCHEMA).asc("product_id").build(),
+                Map.of("format-version", "2"), warehouse.toString());
+        writerFactory = new ProductFileWriterFactory(table, 134217728, 4);
+        maintenance = new TableMaintenance(table, writerFactory, new ProductRecordReader(table), new IoLimiter(4, 1),
+                false, 134217728, 1L << 30, 100, 5, Duration.ofHours(1), 10, Duration.ofDays(3), 2, 3, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        maintenance.stop();
+    }
+
+    @Test
+    void mergesSortedFilesAndDropsDeletedRows() throws IOException {
+        // six sorted files whose id ranges interleave
+        List<DataFile> files = new ArrayList<>();
+        for (long first = 1; first <= 6; first++) {
+            files.add(write(LongStream.iterate(first, id -> id <= 30, id -> id + 6).toArray()));
+        }
+        files.forEach(file -> table.newAppend().appendFile(file).commit());
+        // ids 7 and 13 sit at positions 1 and 2 of the first file
+        table.newRowDelta().addDeletes(positionDeletes(files.get(0), 1, 2)).commit();
+
+        MaintenanceReport report = maintenance.run();
+
+        assertThat(report.rewrittenDataFiles()).isEqualTo(6);
+        assertThat(report.addedDataFiles()).isEqualTo(1);
+        assertThat(report.removedDeleteFiles()).isEqualTo(1);
+        assertThat(report.after().deleteFiles()).isZero();
+        assertLiveIds(LongStream.rangeClosed(1, 30).filter(id -> id != 7 && id != 13).toArray());
+    }
+
+    @Test
+    void sortsGroupsWhoseFilesAreOutOfOrder() throws IOException {
+        for (long first = 0; first < 5; first++) {
+            long base = first * 10;
+            table.newAppend().appendFile(write(base + 9, base + 3, base + 7, base + 1, base + 5)).commit();
+        }
+
+        MaintenanceReport report = maintenance.run();
+
+        assertThat(report.rewrittenDataFiles()).isEqualTo(5);
+        assertThat(report.addedDataFiles()).isPositive();
+        assertLiveIds(LongStream.range(0, 5)
+                .flatMap(first -> LongStream.of(1, 3, 5, 7, 9).map(id -> first * 10 + id))
+                .toArray());
+    }
+
+    @Test
+    void leavesTooFewSmallFilesAlone() throws IOException {
+        for (long id = 1; id <= 4; id++) {
+            table.newAppend().appendFile(write(id)).commit();
+        }
+
+        MaintenanceReport report = maintenance.run();
+
+        assertThat(report.rewrittenDataFiles()).isZero();
+        assertThat(report.after().dataFiles()).isEqualTo(4);
+    }
+
+    /**
+     * The table holds exactly these rows, and every data file keeps them in product_id order.
+     */
+    private void assertLiveIds(long... expected) throws IOException {
+        table.refresh();
+        List<Long> live = new ArrayList<>();
+        try (CloseableIterable<Record> rows = IcebergGenerics.read(table).build()) {
+            rows.forEach(row -> live.add((Long) row.getField("product_id")));
+        }
+        assertThat(live).containsExactlyInAnyOrder(LongStream.of(expected).boxed().toArray(Long[]::new));
+
+        ProductRecordReader reader = new ProductRecordReader(table);
+        try (CloseableIterable<FileScanTask> tasks = table.newScan().planFiles()) {
+            for (FileScanTask task : tasks) {
+                assertThat(task.deletes()).isEmpty();
+                List<Long> ids = new ArrayList<>();
+                try (CloseableIterable<Record> rows = reader.openFile(task.file().location(), SCHEMA,
+                        Expressions.alwaysTrue())) {
+                    rows.forEach(row -> ids.add((Long) row.getField("product_id")));
+                }
+                assertThat(ids).isSorted();
+            }
+        }
+    }
+
+    private DataFile write(long... ids) throws IOException {
+        TaskWriter<Record> writer = writerFactory.newTaskWriter(ids.length);
+        try {
+            for (long id : ids) {
+                Record record = GenericRecord.create(SCHEMA);
+                record.setField("product_id", id);
+                record.setField("title", "Product " + id);
+                writer.write(record);
+            }
+            return writer.dataFiles()[0];
+        } finally {
+            writer.close();
+        }
+    }
+
+    private DeleteFile positionDeletes(DataFile file, long... positions) throws IOException {
+        // full file_path bounds, as ProductChangeCommitter writes them, name the targeted data file
+        GenericAppenderFactory appenderFactory = new GenericAppenderFactory(SCHEMA, table.spec())
+                .set(TableProperties.METRICS_MODE_COLUMN_CONF_PREFIX + MetadataColumns.DELETE_FILE_PATH.name(), "full");
+        OutputFileFactory fileFactory = OutputFileFactory.builderFor(table, 0, 0)
+                .format(FileFormat.PARQUET)
+                .suffix("deletes")
+                .build();
+        PositionDeleteWriter<Record> writer = appenderFactory.newPosDeleteWriter(
+                fileFactory.newOutputFile(), FileFormat.PARQUET, null);
+        PositionDelete<Record> delete = PositionDelete.create();
+        try (writer) {
+            for (long position : positions) {
+                writer.write(delete.set(file.location(), position, null));
+            }
+        }
+        return writer.toDeleteFile();
+    }
+}
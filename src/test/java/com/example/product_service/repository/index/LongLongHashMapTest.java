@@ -0,0 +1,54 @@
+package com.example.product_service.repository.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LongLongHashMapTest {
+
+    @Test
+    void keepsProbeChainsIntactWhenKeysAreRemoved() {
+        LongLongHashMap map = new LongLongHashMap(16);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+        // a small key range collides often, so removals shift keys across wrapped probe chains
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(64) - 32;
+            if (random.nextBoolean()) {
+                long value = random.nextInt(1_000);
+                assertThat(map.put(key, value)).isEqualTo(expected.getOrDefault(key, LongLongHashMap.NO_VALUE));
+                expected.put(key, value);
+            } else {
+                Long previous = expected.remove(key);
+                assertThat(map.remove(key)).isEqualTo(previous != null ? previous : LongLongHashMap.NO_VALUE);
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        for (long key = -32; key < 32; key++) {
+            assertThat(map.get(key)).isEqualTo(expected.getOrDefault(key, LongLongHashMap.NO_VALUE));
+        }
+    }
+
+    @Test
+    void removesEntriesByValue() {
+        LongLongHashMap map = new LongLongHashMap(4);
+        for (long key = 0; key < 1_000; key++) {
+            map.put(key, key % 3);
+        }
+        map.put(Long.MIN_VALUE, 1);
+
+        int removed = map.removeIfValue(value -> value == 1);
+
+        assertThat(removed).isEqualTo(334);
+        assertThat(map.size()).isEqualTo(667);
+        assertThat(map.containsKey(Long.MIN_VALUE)).isFalse();
+        for (long key = 0; key < 1_000; key++) {
+            assertThat(map.get(key)).isEqualTo(key % 3 == 1 ? LongLongHashMap.NO_VALUE : key % 3);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.product_service.repository.index;
+
+import com.example.product_service.repository.ProductFileWriterFactory;
+import com.example.product_service.repository.ProductRecordReader;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.iceberg.DataFile;
+import org.apache.iceberg.PartitionSpec;
+import org.apache.iceberg.Schema;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.data.GenericRecord;
+import org.apache.iceberg.data.Record;
+import org.apache.iceberg.hadoop.HadoopTables;
+import org.apache.iceberg.io.TaskWriter;
+import org.apache.iceberg.types.Types;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductKeyIndexTest {
+
+    private static final Schema SCHEMA = new Schema(
+            Types.NestedField.required(1, "product_id", Types.LongType.get()),
+            Types.NestedField.required(2, "title", Types.StringType.get()));
+
+    @TempDir
+    Path warehouse;
+
+    private Table table;
+    private ProductKeyIndex index;
+
+    @BeforeEach
+    void setUp() {
+        table = new HadoopTables(new Configuration())
+                .create(SCHEMA, PartitionSpec.unpartitioned(), Map.of("format-version", "2"), warehouse.toString());
+        index = new ProductKeyIndex(table, new ProductRecordReader(table), true, 16);
+    }
+
+    @Test
+    void reusesTheIdsOfRemovedFiles() throws IOException {
+        DataFile first = write(1, 2, 3);
+        DataFile second = write(4, 5, 6);
+        table.newAppend().appendFile(first).appendFile(second).commit();
+        index.build();
+
+        // every round rewrites one file, as a compaction does
+        for (int round = 0; round < 20; round++) {
+            DataFile rewritten = write(3, 2, 1);
+            table.newRewrite().deleteFile(first).addFile(rewritten).commit();
+            first = rewritten;
+
+            assertThat(index.lookup(1)).contains(new RowLocation(first.location(), 2));
+            assertThat(index.lookup(3)).contains(new RowLocation(first.location(), 0));
+            assertThat(index.lookup(5)).contains(new RowLocation(second.location(), 1));
+        }
+
+        assertThat(fileSlots()).isEqualTo(2);
+        assertThat(index.stats().dataFiles()).isEqualTo(2);
+        assertThat(index.stats().keys()).isEqualTo(6);
+    }
+
+    @Test
+    void dropsTheKeysOfADeletedFileBeforeItsIdIsReused() throws IOException {
+        DataFile first = write(1, 2);
+        DataFile second = write(3, 4);
+        table.newAppend().appendFile(first).appendFile(second).commit();
+        index.build();
+
+        table.newDelete().deleteFile(first).commit();
+        assertThat(index.lookup(1)).isEmpty();
+
+        DataFile third = write(5, 6);
+        table.newAppend().appendFile(third).commit();
+
+        assertThat(index.lookup(1)).isEmpty();
+        assertThat(index.lookup(2)).isEmpty();
+        assertThat(index.lookup(4)).contains(new RowLocation(second.location(), 1));
+        assertThat(index.lookup(6)).contains(new RowLocation(third.location(), 1));
+        assertThat(fileSlots()).isEqualTo(2);
+    }
+
+    private int fileSlots() {
+        return ((List<?>) ReflectionTestUtils.getField(index, "filePaths")).size();
+    }
+
+    private DataFile write(long... ids) throws IOException {
+        TaskWriter<Record> writer = new ProductFileWriterFactory(table, 134217728, 1000).newTaskWriter(ids.length);
+        try {
+            for (long id : ids) {
+                Record record = GenericRecord.create(SCHEMA);
+                record.setField("product_id", id);
+                record.setField("title", "Product " + id);
+                writer.write(record);
+            }
+            return writer.dataFiles()[0];
+        } finally {
+            writer.close();
+        }
+    }
+}
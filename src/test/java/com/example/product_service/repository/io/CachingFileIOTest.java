@@ -0,0 +1,152 @@
+package com.example.product_service.repository.io;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.iceberg.hadoop.HadoopFileIO;
+import org.apache.iceberg.io.SeekableInputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Caches the blocks of local files in a disk cache of three blocks.
+ */
+class CachingFileIOTest {
+
+    private static final int BLOCK_BYTES = 4096;
+    private static final int CACHED_BLOCKS = 3;
+
+    @TempDir
+    Path dir;
+
+    private Path cacheRoot;
+    private CachingFileIO io;
+
+    @BeforeEach
+    void setUp() {
+        cacheRoot = dir.resolve("cache");
+        io = open();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (io != null) {
+            io.close();
+        }
+    }
+
+    @Test
+    void evictsBlocksBeyondTheDiskLimitAndDeletesTheirFiles() throws IOException {
+        byte[] content = write("data-1.parquet", 10 * BLOCK_BYTES);
+
+        assertThat(read("data-1.parquet")).isEqualTo(content);
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+            assertThat(blockFiles()).hasSizeLessThanOrEqualTo(CACHED_BLOCKS);
+            assertThat(io.stats().diskBytes()).isLessThanOrEqualTo((long) CACHED_BLOCKS * BLOCK_BYTES);
+        });
+        assertThat(io.stats().evictions()).isGreaterThanOrEqualTo(10 - CACHED_BLOCKS);
+        // evicted blocks load again from the store
+        assertThat(read("data-1.parquet")).isEqualTo(content);
+    }
+
+    @Test
+    void keepsAnEvictedBlockReadableByTheStreamThatHoldsIt() throws IOException {
+        byte[] first = write("data-1.parquet", BLOCK_BYTES);
+        byte[] second = write("data-2.parquet", 8 * BLOCK_BYTES);
+
+        try (SeekableInputStream in = io.newInputFile(path("data-1.parquet")).newStream()) {
+            byte[] head = new byte[100];
+            assertThat(in.read(head)).isEqualTo(head.length);
+
+            // the block under the open stream is evicted and its file deleted
+            assertThat(read("data-2.parquet")).isEqualTo(second);
+            await().atMost(Duration.ofSeconds(5))
+                    .untilAsserted(() -> assertThat(blockFiles()).hasSizeLessThanOrEqualTo(CACHED_BLOCKS));
+
+            byte[] rest = in.readAllBytes();
+            assertThat(rest).isEqualTo(Arrays.copyOfRange(first, head.length, first.length));
+        }
+    }
+
+    @Test
+    void dropsTheBlocksOfADeletedFile() throws IOException {
+        write("data-1.parquet", 2 * BLOCK_BYTES);
+        read("data-1.parquet");
+        assertThat(blockFiles()).hasSize(2);
+
+        io.deleteFile(path("data-1.parquet"));
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(blockFiles()).isEmpty());
+        assertThat(io.stats().diskBlocks()).isZero();
+        assertThat(io.newInputFile(path("data-1.parquet")).exists()).isFalse();
+    }
+
+    @Test
+    void removesTheDirectoriesOfExitedProcessesOnly() throws IOException {
+        Path orphaned = Files.createDirectories(cacheRoot.resolve(Long.MAX_VALUE + "-1"));
+        Files.write(orphaned.resolve("block-1.block"), new byte[16]);
+        Path live = Files.createDirectories(cacheRoot.resolve(ProcessHandle.current().pid() + "-other"));
+
+        CachingFileIO other = open();
+        try {
+            assertThat(orphaned).doesNotExist();
+            assertThat(live).exists();
+        } finally {
+            other.close();
+        }
+
+        io.close();
+        io = null;
+        try (Stream<Path> dirs = Files.list(cacheRoot)) {
+            assertThat(dirs).containsExactly(live);
+        }
+    }
+
+    private CachingFileIO open() {
+        CachingFileIO cachingIO = new CachingFileIO();
+        cachingIO.setConf(new Configuration());
+        cachingIO.initialize(Map.of(
+                CachingFileIO.DELEGATE_IMPL, HadoopFileIO.class.getName(),
+                CachingFileIO.DISK_DIR, cacheRoot.toString(),
+                CachingFileIO.DISK_MAX_BYTES, String.valueOf(CACHED_BLOCKS * BLOCK_BYTES),
+                CachingFileIO.DISK_BLOCK_BYTES, String.valueOf(BLOCK_BYTES)));
+        return cachingIO;
+    }
+
+    private byte[] write(String name, int length) throws IOException {
+        byte[] content = new byte[length];
+        new Random(name.hashCode()).nextBytes(content);
+        Files.write(dir.resolve(name), content);
+        return content;
+    }
+
+    private byte[] read(String name) throws IOException {
+        try (SeekableInputStream in = io.newInputFile(path(name)).newStream()) {
+            return in.readAllBytes();
+        }
+    }
+
+    private String path(String name) {
+        return "file://" + dir.resolve(name);
+    }
+
+    private List<Path> blockFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(cacheRoot)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".block")).toList();
+        }
+    }
+}
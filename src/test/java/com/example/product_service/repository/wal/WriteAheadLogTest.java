@@ -0,0 +1,176 @@
+package com.example.product_service.repository.wal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WriteAheadLogTest {
+
+    private static final int SEGMENT_BYTES = 4096;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysSyncedEntriesInSequenceOrder() {
+        try (WriteAheadLog log = WriteAheadLog.open(dir, SEGMENT_BYTES)) {
+            log.replay(0, (sequence, payload) -> {
+            });
+            assertThat(log.append(bytes("one"))).isEqualTo(1);
+            assertThat(log.append(bytes("two"))).isEqualTo(2);
+            log.sync(2);
+        }
+
+        List<String> replayed = new ArrayList<>();
+        try (WriteAheadLog log = WriteAheadLog.open(dir, SEGMENT_BYTES)) {
+            log.replay(0, (sequence, payload) -> replayed.add(sequence + ":" + string(payload)));
+            assertThat(log.append(bytes("three"))).isEqualTo(3);
+        }
+        assertThat(replayed).containsExactly("1:one", "2:two");
+    }
+
+    @Test
+    void skipsAppliedEntriesAndKeepsTheLogId() {
+        String id;
+        try (WriteAheadLog log = WriteAheadLog.open(dir, SEGMENT_BYTES)) {
+            id = log.id();
+            log.replay(0, (sequence, payload) -> {
+            });
+            for (int i = 1; i <= 5; i++) {
+                log.append(bytes("entry-" + i));
+            }
+            log.sync(5);
+        }
+
+        List<Long> replayed = new ArrayList<>();
+        try (WriteAheadLog log = WriteAheadLog.open(dir, SEGMENT_BYTES)) {
+            assertThat(log.id()).isEqualTo(id);
+            log.replay(3, (sequence, payload) -> replayed.add(sequence));
+        }
+        assertThat(replayed).containsExactly(4L, 5L);
+    }
+
+    @Test
+    void numbersNewEntriesAfterTheAppliedSequence() {
+        try (WriteAheadLog log = WriteAheadLog.open(dir, SEGMENT_BYTES)) {
+            log.replay(41, (sequence, payload) -> {
+            });
+            assertThat(log.append(bytes("next"))).isEqualTo(42);
+        }
+    }
+
+    @Test
+    void stopsReplayAtATornEntry() throws IOException {
+        try (WriteAheadLog log = WriteAheadLog.open(dir, SEGMENT_BYTES)) {
+            log.replay(0, (sequence, payload) -> {
+            });
+            log.append(bytes("intact"));
+            log.append(bytes("torn"));
+            log.append(bytes("after"));
+            log.sync(3);
+        }
+        // flip one payload byte of the second entry, as a write cut short would leave it
+        Path segment = onlySegment();
+        long offset = 2L * LogSegment.HEADER_BYTES + "intact".length();
+        corrupt(segment, offset);
+
+        List<String> replayed = new ArrayList<>();
+        try (WriteAheadLog log = WriteAheadLog.open(dir, SEGMENT_BYTES)) {
+            log.replay(0, (sequence, payload) -> replayed.add(string(payload)));
+            assertThat(log.append(bytes("new"))).isEqualTo(2);
+        }
+        assertThat(replayed).containsExactly("intact");
+    }
+
+    @Test
+    void reusesTheNumberOfASegmentLeftEmptyByACrash() throws IOException {
+        try (WriteAheadLog log = WriteAheadLog.open(dir, SEGMENT_BYTES)) {
+            log.replay(0, (sequence, payload) -> {
+            });
+            log.append(bytes("one"));
+            log.append(bytes("two"));
+            log.sync(2);
+        }
+        // a roll that created the next segment just before the crash, with no entry in it yet
+        LogSegment.create(dir, 3, SEGMENT_BYTES).seal();
+
+        try (WriteAheadLog log = WriteAheadLog.open(dir, SEGMENT_BYTES)) {
+            log.replay(0, (sequence, payload) -> {
+            });
+            assertThat(log.append(bytes("three"))).isEqualTo(3);
+            log.sync(3);
+        }
+
+        List<String> replayed = new ArrayList<>();
+        try (WriteAheadLog log = WriteAheadLog.open(dir, SEGMENT_BYTES)) {
+            log.replay(0, (sequence, payload) -> replayed.add(sequence + ":" + string(payload)));
+        }
+        assertThat(replayed).containsExactly("1:one", "2:two", "3:three");
+    }
+
+    @Test
+    void rollsToANewSegmentAndTruncatesAppliedOnes() throws IOException {
+        byte[] entry = new byte[SEGMENT_BYTES / 3];
+        try (WriteAheadLog log = WriteAheadLog.open(dir, SEGMENT_BYTES)) {
+            log.replay(0, (sequence, payload) -> {
+            });
+            for (int i = 0; i < 6; i++) {
+                log.append(entry);
+            }
+            log.sync(6);
+            assertThat(segments()).hasSizeGreaterThan(1);
+
+            log.truncate(6);
+            assertThat(segments()).hasSize(1);
+        }
+    }
+
+    @Test
+    void rejectsAppendsBeforeReplay() {
+        try (WriteAheadLog log = WriteAheadLog.open(dir, SEGMENT_BYTES)) {
+            assertThatThrownBy(() -> log.append(bytes("early"))).isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    private Path onlySegment() throws IOException {
+        List<Path> segments = segments();
+        assertThat(segments).hasSize(1);
+        return segments.get(0);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(LogSegment::isSegment).toList();
+        }
+    }
+
+    private static void corrupt(Path file, long offset) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer value = ByteBuffer.allocate(1);
+            channel.read(value, offset);
+            value.put(0, (byte) (value.get(0) ^ 0xFF)).rewind();
+            channel.write(value, offset);
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(ByteBuffer payload) {
+        return StandardCharsets.UTF_8.decode(payload).toString();
+    }
+}